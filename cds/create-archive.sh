@@ -0,0 +1,19 @@
+#!/usr/bin/env sh
+# Create the class data sharing archive target/swagger-generator.jsa used by bin/swagger-generator.
+# The archive holds every class loaded by a training run over the bundled sample project (cds/sample-project),
+# which exercises parsing, symbol resolution, YAML output and the additional artifacts.
+# Called by "mvn -Pcds package", must be run again after the application or its dependencies changed.
+set -e
+
+BASE_DIR=$(cd "$(dirname "$0")/.." && pwd)
+ARCHIVE="$BASE_DIR/target/swagger-generator.jsa"
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+echo "$BASE_DIR/cds/sample-project;$WORK_DIR/openapi.yaml" > "$WORK_DIR/jobs.txt"
+rm -f "$ARCHIVE"
+
+SWAGGER_GENERATOR_CDS=off SWAGGER_GENERATOR_JAVA_OPTS="-XX:ArchiveClassesAtExit=$ARCHIVE -Xlog:cds=error -Xlog:cds+dynamic=error" \
+    "$BASE_DIR/bin/swagger-generator" batch --artifacts openapi,plantuml,endpoints "$WORK_DIR/jobs.txt"
+
+echo "CDS-Archiv erstellt: $ARCHIVE"
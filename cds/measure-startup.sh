@@ -0,0 +1,38 @@
+#!/usr/bin/env sh
+# Compare the wall time of a short generation run without and with the class data sharing archive.
+# Usage: cds/measure-startup.sh [runs]   (default: 5 runs per mode, after one warm-up run each)
+set -e
+
+BASE_DIR=$(cd "$(dirname "$0")/.." && pwd)
+RUNS=${1:-5}
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+# date +%N is GNU only, Time::HiRes ships with every perl
+now_millis() {
+    perl -MTime::HiRes=time -e 'printf "%d\n", time() * 1000'
+}
+
+if [ ! -f "$BASE_DIR/target/swagger-generator.jsa" ]; then
+    echo "Kein CDS-Archiv gefunden, bitte zuerst \"mvn -Pcds package\" ausführen." >&2
+    exit 2
+fi
+
+echo "$BASE_DIR/cds/sample-project;$WORK_DIR/openapi.yaml" > "$WORK_DIR/jobs.txt"
+
+measure() {
+    SWAGGER_GENERATOR_CDS=$1 "$BASE_DIR/bin/swagger-generator" batch "$WORK_DIR/jobs.txt" > /dev/null
+    start=$(now_millis)
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        SWAGGER_GENERATOR_CDS=$1 "$BASE_DIR/bin/swagger-generator" batch "$WORK_DIR/jobs.txt" > /dev/null
+        i=$((i + 1))
+    done
+    end=$(now_millis)
+    echo $(( (end - start) / RUNS ))
+}
+
+WITHOUT=$(measure off)
+WITH=$(measure on)
+echo "Ohne CDS-Archiv: $WITHOUT ms pro Lauf"
+echo "Mit CDS-Archiv:  $WITH ms pro Lauf"
@@ -0,0 +1,25 @@
+package com.example.library.api;
+
+import com.example.library.domain.Author;
+import com.example.library.dto.PageDto;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(value = "/api/v1/authors")
+public class AuthorController {
+
+    @RequestMapping(value = "", method = RequestMethod.GET, produces = {"application/json"})
+    public PageDto<Author> getAuthors(@RequestParam(value = "page") Integer page) {
+        return null;
+    }
+
+    @RequestMapping(value = "/{id}", method = {RequestMethod.GET, RequestMethod.HEAD}, produces = {"application/json"})
+    public Author getAuthor(@PathVariable("id") Long id) {
+        return null;
+    }
+
+    @RequestMapping(value = "/{id}/books/count", method = RequestMethod.GET, produces = {"text/plain"})
+    public int countBooks(@PathVariable("id") Long id) {
+        return 0;
+    }
+}
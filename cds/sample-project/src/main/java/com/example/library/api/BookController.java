@@ -0,0 +1,49 @@
+package com.example.library.api;
+
+import com.example.library.domain.Book;
+import com.example.library.dto.BookDto;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/v1/books")
+public class BookController {
+
+    @GetMapping(produces = "application/json")
+    @ApiOperation(value = "List all books.")
+    public ResponseEntity<List<Book>> getBooks(@RequestParam(value = "page") Integer page) {
+        return null;
+    }
+
+    @GetMapping(value = "/{id}", produces = {"application/json", "application/xml"})
+    @ApiOperation(value = "Get a single book.")
+    public Optional<Book> getBook(@PathVariable("id") Long id) {
+        return Optional.empty();
+    }
+
+    @PostMapping(consumes = "application/json", produces = "application/json")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Book createBook(@RequestBody BookDto book) {
+        return null;
+    }
+
+    @PutMapping(value = "/{id}", consumes = "application/json", produces = "application/json")
+    public Book updateBook(@PathVariable("id") Long id, @RequestBody BookDto book) {
+        return null;
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(code = HttpStatus.NO_CONTENT)
+    public void deleteBook(@PathVariable("id") Long id) {
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public void handleInvalidArgument() {
+    }
+}
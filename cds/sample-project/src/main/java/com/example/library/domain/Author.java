@@ -0,0 +1,10 @@
+package com.example.library.domain;
+
+import jakarta.persistence.Entity;
+
+@Entity
+public class Author {
+    private long id;
+    private String name;
+    private Integer birthYear;
+}
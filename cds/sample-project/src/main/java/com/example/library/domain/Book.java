@@ -0,0 +1,15 @@
+package com.example.library.domain;
+
+import jakarta.persistence.Entity;
+
+import java.util.List;
+
+@Entity
+public class Book {
+    private long id;
+    private String title;
+    private double price;
+    private boolean available;
+    private Author author;
+    private List<Author> coAuthors;
+}
@@ -0,0 +1,7 @@
+package com.example.library.dto;
+
+public class BookDto {
+    private String title;
+    private double price;
+    private long authorId;
+}
@@ -0,0 +1,9 @@
+package com.example.library.dto;
+
+import java.util.List;
+
+public class PageDto<T> {
+    private List<T> content;
+    private int page;
+    private long total;
+}
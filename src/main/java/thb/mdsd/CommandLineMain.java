@@ -0,0 +1,296 @@
+package thb.mdsd;
+
+import lombok.NonNull;
+import thb.mdsd.artifact.ArtifactType;
+import thb.mdsd.batch.BatchExport;
+import thb.mdsd.batch.BatchJob;
+import thb.mdsd.batch.BatchResult;
+import thb.mdsd.incremental.IncrementalExport;
+import thb.mdsd.incremental.IncrementalResult;
+import thb.mdsd.server.SpecServer;
+import thb.mdsd.spring.SpringBootExtractor;
+import thb.mdsd.spring.classpath.ClassPathIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Headless entry point for generating Swagger documentation without the JavaFX window.
+ */
+public class CommandLineMain {
+
+    private static final String USAGE = """
+        Usage:
+          batch [--parallelism <n>] [--export-threads <n>] [--sharded] [--dedupe-schemas] [--merge] [--artifacts <list>] <job-file>
+                                                 Generate the documentation of many projects in one JVM.
+                                                 --parallelism: projects at the same time, --export-threads: threads per project.
+                                                 Every line of the job file has the format "project-path;output-file".
+                                                 With --sharded the output is a directory with one file per controller and schema.
+                                                 --dedupe-schemas: identical object schemas become one component referenced by $ref.
+                                                 --merge: update an existing output file, manually added fields are kept (not with --sharded).
+                                                 --artifacts: comma separated, from one extraction pass (default: openapi):
+                                                 openapi, plantuml (<output>.puml), endpoints (<output>.endpoints.csv),
+                                                 model (<output>.model.bin, binary endpoints and schemas).
+          serve [--host <host>] [--port <n>] <name=project-path>...
+                                                 Serve /<name>/openapi.yaml and /<name>/openapi.json, re-extracting on source changes.
+          incremental --base <ref> [--state <file>] <project-path> <output-file>
+                                                 Only re-extract the java files that changed since the git ref <ref>.
+                                                 The state file (default: <output-file>.state) must belong to <ref>.
+
+        Extractor options (batch, serve, incremental):
+          --scan-classes                         Resolve types from target/classes and dependency jars of the project.
+          --unit-cache-size <n>                  Keep at most n parsed files in memory (bounded-memory mode).
+          --max-file-size <bytes>                Only scan larger files lexically (declarations, no members) instead of parsing them.
+          --max-parse-millis <n>                 Downgrade files that take longer to parse to a lexical scan.
+          --tolerant                             Skip files and endpoints that can not be extracted instead of aborting,
+                                                 problems are written to <output>.report.txt (batch).
+        """;
+
+    public static void main(String[] args) {
+        if(args.length == 0) {
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            final int exitCode = switch (args[0]) {
+                case "batch" -> runBatch(args);
+                case "serve" -> runServer(args);
+                case "incremental" -> runIncremental(args);
+                default -> {
+                    System.err.print(USAGE);
+                    yield 2;
+                }
+            };
+
+            System.exit(exitCode);
+        } catch (Exception exception) {
+            System.err.println("Aktion fehlgeschlagen: " + exception.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static int runBatch(@NonNull String[] args) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int exportThreads = 0;
+        boolean sharded = false;
+        boolean deduplicateSchemas = false;
+        boolean merge = false;
+        final Set<ArtifactType> artifacts = EnumSet.noneOf(ArtifactType.class);
+        String jobFile = null;
+        final ExtractorOptions extractorOptions = new ExtractorOptions();
+
+        for(int i = 1; i < args.length; i++) {
+            final int consumed = extractorOptions.parse(args, i);
+            if(consumed > 0) {
+                i += consumed - 1;
+            } else if(args[i].equals("--parallelism") && i + 1 < args.length) {
+                parallelism = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--export-threads") && i + 1 < args.length) {
+                exportThreads = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("--sharded")) {
+                sharded = true;
+            } else if(args[i].equals("--dedupe-schemas")) {
+                deduplicateSchemas = true;
+            } else if(args[i].equals("--merge")) {
+                merge = true;
+            } else if(args[i].equals("--artifacts") && i + 1 < args.length) {
+                for(String artifact : args[++i].split(",")) {
+                    artifacts.add(ArtifactType.byName(artifact));
+                }
+            } else {
+                jobFile = args[i];
+            }
+        }
+
+        if(jobFile == null || (merge && sharded)) {
+            System.err.print(USAGE);
+            return 2;
+        }
+
+        final List<BatchJob> jobs = BatchExport.readJobFile(Path.of(jobFile));
+        final BatchExport batchExport = new BatchExport(parallelism, extractorOptions);
+        batchExport.setSharded(sharded);
+        batchExport.setExportParallelism(exportThreads);
+        batchExport.setDeduplicateSchemas(deduplicateSchemas);
+        batchExport.setMerge(merge);
+        if(!artifacts.isEmpty()) {
+            batchExport.setArtifacts(artifacts);
+        }
+        final List<BatchResult> results = batchExport.run(jobs);
+
+        int failed = 0;
+        for(BatchResult result : results) {
+            if(result.isSuccessful()) {
+                System.out.println("OK     " + result.job().projectPath() + " -> " + result.job().outputFile().getAbsolutePath() + " (" + result.durationMillis() + " ms)"
+                    + (result.unitCacheStatistics() == null ? "" : ", Cache: " + result.unitCacheStatistics())
+                    + (result.diagnostics().isEmpty() ? "" : ", " + result.diagnostics().size() + " Probleme"
+                        + (extractorOptions.tolerant ? ", Bericht: " + BatchExport.getReportFile(result.job()) : "")));
+                if(!extractorOptions.tolerant) {
+                    result.diagnostics().forEach(diagnostic -> System.out.println("       " + diagnostic));
+                }
+            } else {
+                failed++;
+                System.out.println("FEHLER " + result.job().projectPath() + ": " + result.error());
+            }
+        }
+
+        System.out.println(results.size() - failed + "/" + results.size() + " Projekte exportiert.");
+        return failed == 0 ? 0 : 1;
+    }
+
+    private static int runServer(@NonNull String[] args) throws IOException, InterruptedException {
+        String host = "localhost";
+        int port = 8080;
+        final Map<String, String> projects = new LinkedHashMap<>();
+        final ExtractorOptions extractorOptions = new ExtractorOptions();
+
+        for(int i = 1; i < args.length; i++) {
+            final int consumed = extractorOptions.parse(args, i);
+            if(consumed > 0) {
+                i += consumed - 1;
+            } else if(args[i].equals("--host") && i + 1 < args.length) {
+                host = args[++i];
+            } else if(args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else {
+                final int separator = args[i].indexOf('=');
+                if(separator <= 0) {
+                    System.err.print(USAGE);
+                    return 2;
+                }
+
+                projects.put(args[i].substring(0, separator), args[i].substring(separator + 1));
+            }
+        }
+
+        if(projects.isEmpty()) {
+            System.err.print(USAGE);
+            return 2;
+        }
+
+        final SpecServer server = new SpecServer(new InetSocketAddress(host, port), projects, extractorOptions);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException exception) {
+                System.err.println("Could not stop server: " + exception.getMessage());
+            }
+        }));
+
+        server.start();
+        System.out.println("Server gestartet: http://" + host + ":" + port + "/");
+        server.awaitTermination();
+        return 0;
+    }
+
+    private static int runIncremental(@NonNull String[] args) throws IOException {
+        String baseRef = null;
+        String stateFile = null;
+        final List<String> positional = new ArrayList<>();
+        final ExtractorOptions extractorOptions = new ExtractorOptions();
+
+        for(int i = 1; i < args.length; i++) {
+            final int consumed = extractorOptions.parse(args, i);
+            if(consumed > 0) {
+                i += consumed - 1;
+            } else if(args[i].equals("--base") && i + 1 < args.length) {
+                baseRef = args[++i];
+            } else if(args[i].equals("--state") && i + 1 < args.length) {
+                stateFile = args[++i];
+            } else {
+                positional.add(args[i]);
+            }
+        }
+
+        if(baseRef == null || positional.size() != 2) {
+            System.err.print(USAGE);
+            return 2;
+        }
+
+        final File outputFile = new File(positional.get(1));
+        final Path statePath = Path.of(stateFile == null ? outputFile.getPath() + ".state" : stateFile);
+        final IncrementalResult result = new IncrementalExport(positional.get(0), statePath, extractorOptions).run(baseRef, outputFile);
+
+        if(result.incremental()) {
+            System.out.println("Inkrementell: " + result.changedFiles() + " geänderte Dateien, " + result.reusedFiles() + " übernommen, "
+                + result.exportedEndpoints() + " Endpunkte neu exportiert, " + result.reusedEndpoints() + " übernommen (" + result.durationMillis() + " ms)");
+        } else {
+            System.out.println("Vollständig extrahiert, kein passender Stand für " + baseRef + " gefunden (" + result.durationMillis() + " ms)");
+        }
+
+        if(!result.stateSaved()) {
+            System.out.println("Stand nicht gespeichert: Das Arbeitsverzeichnis enthält nicht committete Änderungen.");
+        }
+
+        return 0;
+    }
+
+    /**
+     * Options shared by all commands that configure the {@link SpringBootExtractor}.
+     */
+    private static final class ExtractorOptions implements Consumer<SpringBootExtractor> {
+
+        private boolean scanClasses;
+        private boolean tolerant;
+        private int unitCacheSize;
+        private long maxFileSize;
+        private long maxParseMillis;
+
+        /**
+         * Try to parse an extractor option at the given position.
+         * @return Number of consumed arguments, 0 if the argument is not an extractor option
+         */
+        private int parse(@NonNull String[] args, int index) {
+            switch (args[index]) {
+                case "--scan-classes" -> {
+                    this.scanClasses = true;
+                    return 1;
+                }
+                case "--tolerant" -> {
+                    this.tolerant = true;
+                    return 1;
+                }
+                case "--unit-cache-size" -> {
+                    this.unitCacheSize = Integer.parseInt(value(args, index));
+                    return 2;
+                }
+                case "--max-file-size" -> {
+                    this.maxFileSize = Long.parseLong(value(args, index));
+                    return 2;
+                }
+                case "--max-parse-millis" -> {
+                    this.maxParseMillis = Long.parseLong(value(args, index));
+                    return 2;
+                }
+                default -> {
+                    return 0;
+                }
+            }
+        }
+
+        private static String value(@NonNull String[] args, int index) {
+            if(index + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[index]);
+            }
+
+            return args[index + 1];
+        }
+
+        @Override
+        public void accept(@NonNull SpringBootExtractor extractor) {
+            if(this.scanClasses) {
+                extractor.setClassPathIndex(ClassPathIndex.forProject(extractor.getPath()));
+            }
+
+            extractor.setUnitCacheSize(this.unitCacheSize);
+            extractor.setTolerant(this.tolerant);
+            extractor.setMaxFileSize(this.maxFileSize);
+            extractor.setMaxParseMillis(this.maxParseMillis);
+        }
+    }
+}
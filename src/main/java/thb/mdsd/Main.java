@@ -1,6 +1,7 @@
 package thb.mdsd;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -12,7 +13,9 @@ import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import lombok.NonNull;
-import thb.mdsd.spring.SpringBootExtractor;
+import thb.mdsd.explorer.EndpointEntry;
+import thb.mdsd.explorer.EndpointExplorerPane;
+import thb.mdsd.explorer.EndpointIndex;
 import thb.mdsd.swagger.SwaggerAPIExport;
 
 import java.io.File;
@@ -20,6 +23,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Comparator;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Stream;
 
 public class Main extends Application {
@@ -49,8 +53,16 @@ public class Main extends Application {
     private final TreeView<String> fileTreeView = new TreeView<>();
     private final Button selectFolderButton = new Button("Auswählen");
     private final Button generateButton = new Button("Generieren");
+    private final EndpointExplorerPane endpointExplorerPane = new EndpointExplorerPane();
+    private final Tab endpointTab = new Tab("Endpunkte", endpointExplorerPane);
     private Stage primaryStage;
     private String selectedPath;
+    private String explorerPath;
+
+    /**
+     * Background extraction of the selected project, null if no project is selected
+     */
+    private ProjectExtraction extraction;
 
     @Override
     public void start(@NonNull Stage stage) {
@@ -80,9 +92,19 @@ public class Main extends Application {
         information.setTop(projectHeaderLabel);
         information.setCenter(statusLabel);
 
+        endpointExplorerPane.showMessage("Kein Projektpfad ausgewählt!");
+        endpointTab.setOnSelectionChanged(_ -> {
+            if(endpointTab.isSelected()) {
+                loadEndpoints();
+            }
+        });
+
+        final TabPane tabPane = new TabPane(new Tab("Dateien", fileTreeView), endpointTab);
+        tabPane.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+
         final BorderPane root = new BorderPane();
         root.setTop(information);
-        root.setCenter(fileTreeView);
+        root.setCenter(tabPane);
         root.setBottom(buttonContainer);
 
         selectFolderButton.setMaxWidth(Double.MAX_VALUE);
@@ -91,11 +113,18 @@ public class Main extends Application {
         BorderPane.setMargin(buttonContainer, new Insets(10));
         BorderPane.setMargin(statusLabel, new Insets(10));
 
-        final Scene scene = new Scene(root, 600, 450);
+        final Scene scene = new Scene(root, 800, 550);
         stage.setScene(scene);
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        if(extraction != null) {
+            extraction.discard();
+        }
+    }
+
     private void openDirectoryChooser() {
         final DirectoryChooser directoryChooser = new DirectoryChooser();
         directoryChooser.setTitle("Erstelle eine Swagger Dokumentation aus einem SpringBoot Projekt.");
@@ -113,6 +142,77 @@ public class Main extends Application {
             fileTreeView.setRoot(new TreeItem<>("Bitte wähle ein SpringBoot-Projektordner aus."));
             selectedPath = null;
         }
+
+        restartExtraction();
+        if(endpointTab.isSelected()) {
+            loadEndpoints();
+        }
+    }
+
+    /**
+     * Discard the extraction and start extracting the selected project again.
+     */
+    private void restartExtraction() {
+        if(extraction != null) {
+            extraction.discard();
+        }
+        extraction = selectedPath == null ? null : ProjectExtraction.start(selectedPath);
+        explorerPath = null;
+    }
+
+    /**
+     * Get the extraction of the selected project, restarted if the sources changed since it was started.
+     * @return The extraction or null if no project is selected
+     */
+    private ProjectExtraction getCurrentExtraction() {
+        if(extraction != null && extraction.isStale()) {
+            restartExtraction();
+        }
+
+        return extraction;
+    }
+
+    /**
+     * Show the endpoints of the selected project in the explorer as soon as its background extraction is done.
+     * Results of a previously selected project are discarded.
+     */
+    private void loadEndpoints() {
+        final ProjectExtraction projectExtraction = getCurrentExtraction();
+        if(projectExtraction == null) {
+            endpointExplorerPane.showMessage("Kein Projektpfad ausgewählt!");
+            return;
+        }
+
+        final String path = projectExtraction.getPath();
+        if(path.equals(explorerPath)) {
+            return;
+        }
+
+        explorerPath = path;
+        endpointExplorerPane.showMessage("Lade Endpunkte...");
+
+        projectExtraction.retain();
+        Thread.ofVirtual().start(() -> {
+            try {
+                final EndpointIndex index = new EndpointIndex(projectExtraction.await().springPaths().stream().map(springPath -> EndpointEntry.of(springPath, new File(path))).toList());
+
+                Platform.runLater(() -> {
+                    if(path.equals(explorerPath)) {
+                        endpointExplorerPane.setEndpointIndex(index);
+                    }
+                });
+            } catch (CancellationException _) {
+                // Another project was selected
+            } catch (Exception exception) {
+                Platform.runLater(() -> {
+                    if(path.equals(explorerPath)) {
+                        endpointExplorerPane.showMessage("Aktion fehlgeschlagen: " + exception.getMessage());
+                    }
+                });
+            } finally {
+                projectExtraction.release();
+            }
+        });
     }
 
     private void buildDirectoryTree(@NonNull TreeItem<String> parent, @NonNull Path dirPath) {
@@ -159,17 +259,43 @@ public class Main extends Application {
             new FileChooser.ExtensionFilter("Yaml Swagger Datei", "*.yaml")
         );
 
-        final SpringBootExtractor extractor = new SpringBootExtractor(selectedPath);
+        // The project is extracted in the background while the dialog is open, again if the sources changed
+        final ProjectExtraction projectExtraction = getCurrentExtraction();
 
         final File outputFile = fileChooser.showSaveDialog(primaryStage);
         if (outputFile != null) {
-            statusLabel.setText("Swagger OpenAPI Datei exportiert: " + outputFile.getAbsolutePath());
+            selectFolderButton.setDisable(true);
+            generateButton.setDisable(true);
 
-            try {
-                new SwaggerAPIExport(extractor).export(outputFile);
-            } catch (IOException exception) {
-                statusLabel.setText("Aktion fehlgeschlagen: " + exception.getMessage());
-            }
+            // A restart while exporting (stale sources in the endpoint tab, closed window) discards the extraction afterward
+            projectExtraction.retain();
+            Thread.ofVirtual().start(() -> {
+                String status;
+                try {
+                    final ProjectExtraction.Result result = projectExtraction.await();
+                    new SwaggerAPIExport(result.extractor(), result.snapshot()).export(outputFile, result.springPaths());
+                    status = "Swagger OpenAPI Datei exportiert: " + outputFile.getAbsolutePath();
+                } catch (Exception exception) {
+                    status = "Aktion fehlgeschlagen: " + exception.getMessage();
+                } finally {
+                    projectExtraction.release();
+                }
+
+                final String finalStatus = status;
+                Platform.runLater(() -> {
+                    statusLabel.setText(finalStatus);
+                    selectFolderButton.setDisable(false);
+                    generateButton.setDisable(false);
+
+                    // The next export starts from a fresh extraction, even if no change was detected
+                    if(extraction == projectExtraction) {
+                        restartExtraction();
+                        if(endpointTab.isSelected()) {
+                            loadEndpoints();
+                        }
+                    }
+                });
+            });
         } else {
             statusLabel.setText("Abgebrochen");
         }
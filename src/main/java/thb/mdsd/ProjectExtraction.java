@@ -0,0 +1,180 @@
+package thb.mdsd;
+
+import lombok.Getter;
+import lombok.NonNull;
+import thb.mdsd.server.SourceWatcher;
+import thb.mdsd.spring.ExtractionSnapshot;
+import thb.mdsd.spring.SpringBootExtractor;
+import thb.mdsd.spring.extractor.container.SpringPathContainer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Extraction of the selected project, started in the background as soon as the folder is selected. The endpoint
+ * explorer and the export share the result, so the documentation can usually be written as soon as the output file is chosen.
+ * Selecting another folder discards the extraction: its thread is interrupted and stops before the next file.
+ * The sources are watched from the start of the extraction, so a stale result can be detected and replaced.
+ * Users of the result (e.g. a running export) are registered with {@link #retain()}, a discard waits for them.
+ */
+final class ProjectExtraction {
+
+    /**
+     * @param extractor Extractor of the project, disposed when the extraction is discarded
+     * @param snapshot Snapshot the endpoints come from
+     * @param springPaths All endpoints of the project
+     */
+    record Result(@NonNull SpringBootExtractor extractor, @NonNull ExtractionSnapshot snapshot, @NonNull List<SpringPathContainer> springPaths) { }
+
+    @Getter
+    private final String path;
+    private final CompletableFuture<Result> result = new CompletableFuture<>();
+    private Thread thread;
+
+    /**
+     * Watches the sources, null until the extraction starts or if the directory can not be watched
+     */
+    private volatile SourceWatcher sourceWatcher;
+    private volatile boolean watching;
+    private boolean stale;
+
+    /**
+     * Number of registered users of the result
+     */
+    private int users;
+    private boolean discarded;
+
+    private ProjectExtraction(@NonNull String path) {
+        this.path = path;
+    }
+
+    /**
+     * Start extracting a project on a virtual thread.
+     * @param path Project directory
+     * @return The running extraction
+     */
+    static ProjectExtraction start(@NonNull String path) {
+        final ProjectExtraction extraction = new ProjectExtraction(path);
+        extraction.thread = Thread.ofVirtual().name("extraction").start(extraction::run);
+        return extraction;
+    }
+
+    private void run() {
+        SpringBootExtractor extractor = null;
+        try {
+            // Registered before the files are read, so no change is missed
+            try {
+                this.sourceWatcher = new SourceWatcher(Path.of(this.path));
+            } catch (IOException _) {
+                // Without a watcher every result counts as stale
+            }
+            this.watching = true;
+
+            if(this.result.isCancelled()) {
+                this.closeWatcher();  // Discarded before the watcher existed
+            }
+
+            extractor = new SpringBootExtractor(this.path);
+            extractor.startExtracting();
+
+            final ExtractionSnapshot snapshot = extractor.getSnapshot();
+            if(!this.result.complete(new Result(extractor, snapshot, extractor.getSpringAllPaths(snapshot)))) {
+                extractor.dispose();  // Discarded in the meantime
+            }
+        } catch (Exception exception) {
+            if(extractor != null) {
+                extractor.dispose();
+            }
+
+            this.result.completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * Wait for the extraction.
+     * @return The extracted project
+     * @throws CancellationException If the extraction was discarded
+     * @throws RuntimeException If the extraction failed
+     */
+    Result await() {
+        try {
+            return this.result.join();
+        } catch (CompletionException exception) {
+            if(exception.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw exception;
+        }
+    }
+
+    /**
+     * Check if a java source of the project was created, changed or deleted since the extraction started.
+     * @return True if the result does not reflect the current sources, it stays true once it was true
+     */
+    synchronized boolean isStale() {
+        if(!this.stale && this.watching) {
+            try {
+                this.stale = this.sourceWatcher == null || this.sourceWatcher.pollChanges();
+            } catch (IOException _) {
+                this.stale = true;
+            }
+        }
+
+        return this.stale;
+    }
+
+    /**
+     * Register a user of the result, before it waits for the result. Every call must be followed by {@link #release()}.
+     */
+    synchronized void retain() {
+        this.users++;
+    }
+
+    /**
+     * Unregister a user of the result, a deferred discard happens once the last user is gone.
+     */
+    synchronized void release() {
+        this.users--;
+        if(this.users == 0 && this.discarded) {
+            this.free();
+        }
+    }
+
+    /**
+     * Stop the extraction if it is still running, otherwise release the extractor.
+     * While the result is in use (see {@link #retain()}) this is deferred until the last user released it.
+     */
+    synchronized void discard() {
+        if(this.discarded) {
+            return;
+        }
+
+        this.discarded = true;
+        if(this.users == 0) {
+            this.free();
+        }
+    }
+
+    private void free() {
+        if(this.result.cancel(false)) {
+            this.thread.interrupt();
+        } else if(!this.result.isCompletedExceptionally()) {
+            this.result.join().extractor().dispose();
+        }
+
+        this.closeWatcher();
+    }
+
+    private void closeWatcher() {
+        final SourceWatcher watcher = this.sourceWatcher;
+        if(watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException _) {
+                // Nothing left to release
+            }
+        }
+    }
+}
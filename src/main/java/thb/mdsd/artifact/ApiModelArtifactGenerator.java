@@ -0,0 +1,42 @@
+package thb.mdsd.artifact;
+
+import lombok.NonNull;
+import thb.mdsd.model.ApiEndpoint;
+import thb.mdsd.model.ApiModelWriter;
+import thb.mdsd.util.FileUtils;
+import thb.mdsd.util.JsonWriter;
+import thb.mdsd.util.YamlHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Binary model of all endpoints (sorted by path and method) and component schemas (as JSON) for other tools,
+ * see {@link ApiModelWriter} for the format and {@link thb.mdsd.model.ApiModelReader} to read it.
+ */
+public class ApiModelArtifactGenerator implements ArtifactGenerator {
+
+    @Override
+    public ArtifactType getType() {
+        return ArtifactType.MODEL;
+    }
+
+    @Override
+    public boolean generate(@NonNull ArtifactContext context, @NonNull File output) throws IOException {
+        final List<ApiEndpoint> endpoints = context.springPaths().stream()
+            .map(ApiEndpoint::of)
+            .sorted(Comparator.comparing(ApiEndpoint::path).thenComparing(ApiEndpoint::method))
+            .toList();
+
+        final Map<String, String> schemas = new TreeMap<>();
+        if(context.requireDocument().get("components.schemas") instanceof Map<?, ?> map) {
+            map.forEach((name, schema) -> schemas.put(String.valueOf(name), JsonWriter.write(YamlHelper.canonicalize(schema))));
+        }
+
+        return FileUtils.writeIfChanged(this.getType().getTarget(output).toPath(), ApiModelWriter.write(endpoints, schemas));
+    }
+}
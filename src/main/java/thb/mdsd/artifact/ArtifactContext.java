@@ -0,0 +1,45 @@
+package thb.mdsd.artifact;
+
+import lombok.NonNull;
+import thb.mdsd.spring.ExtractionSnapshot;
+import thb.mdsd.spring.SpringBootExtractor;
+import thb.mdsd.spring.extractor.container.SpringPathContainer;
+import thb.mdsd.swagger.SwaggerAPIExport;
+import thb.mdsd.util.YamlHelper;
+
+import java.util.List;
+
+/**
+ * Result of one extraction pass that is shared by all {@link ArtifactGenerator}s of a project.
+ * @param extractor Extractor that already extracted the project
+ * @param snapshot Snapshot the endpoints come from, generators resolve types in it
+ * @param springPaths All endpoints of the project, extracted once
+ * @param document The OpenAPI document, built once for all generators that use it, null if no generator of the run uses it
+ */
+public record ArtifactContext(@NonNull SpringBootExtractor extractor, @NonNull ExtractionSnapshot snapshot, @NonNull List<SpringPathContainer> springPaths, YamlHelper document) {
+
+    /**
+     * Extract the project (if not done yet) and all of its endpoints.
+     * @param export Export of the project, configured like the OpenAPI document should be built
+     * @param buildDocument Build the OpenAPI document, see {@link ArtifactType#isDocumentBased()}
+     * @return The shared context
+     */
+    public static ArtifactContext of(@NonNull SwaggerAPIExport export, boolean buildDocument) {
+        final SpringBootExtractor extractor = export.getSpringBootExtractor();
+        final List<SpringPathContainer> springPaths = extractor.getSpringAllPaths(export.getSnapshot());
+
+        return new ArtifactContext(extractor, export.getSnapshot(), springPaths, buildDocument ? export.createDocument(springPaths) : null);
+    }
+
+    /**
+     * @return The shared OpenAPI document
+     * @throws RuntimeException If the context was created without the document
+     */
+    public YamlHelper requireDocument() {
+        if(this.document == null) {
+            throw new RuntimeException("The OpenAPI document was not built for this context.");
+        }
+
+        return this.document;
+    }
+}
@@ -0,0 +1,26 @@
+package thb.mdsd.artifact;
+
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Generates one artifact (e.g. the OpenAPI document or a class diagram) from an {@link ArtifactContext}.
+ * All generators of a project share the same context, so the project is only parsed and resolved once.
+ */
+public interface ArtifactGenerator {
+
+    /**
+     * @return The artifact this generator produces
+     */
+    ArtifactType getType();
+
+    /**
+     * Write the artifact. Files are only replaced if their content changed.
+     * @param context Shared extraction result
+     * @param output Output file of the job, the artifact is written to {@link ArtifactType#getTarget(File)}
+     * @return True if something was written
+     */
+    boolean generate(@NonNull ArtifactContext context, @NonNull File output) throws IOException;
+}
@@ -0,0 +1,81 @@
+package thb.mdsd.artifact;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.File;
+
+/**
+ * Artifacts that can be generated from one extraction pass.
+ */
+@Getter
+public enum ArtifactType {
+
+    /**
+     * OpenAPI document, written to the output file itself
+     */
+    OPENAPI("openapi", null, true),
+    /**
+     * PlantUML class diagram of the entities and DTOs
+     */
+    PLANTUML("plantuml", ".puml", false),
+    /**
+     * CSV list of all endpoints
+     */
+    ENDPOINTS("endpoints", ".endpoints.csv", false),
+    /**
+     * Binary model of the endpoints and component schemas, see {@link thb.mdsd.model.ApiModelReader}
+     */
+    MODEL("model", ".model.bin", true);
+
+    private final String name;
+    private final String suffix;
+
+    /**
+     * True if the artifact is generated from the OpenAPI document, see {@link ArtifactContext#document()}
+     */
+    private final boolean documentBased;
+
+    ArtifactType(@NonNull String name, String suffix, boolean documentBased) {
+        this.name = name;
+        this.suffix = suffix;
+        this.documentBased = documentBased;
+    }
+
+    /**
+     * Get the file of this artifact. Artifacts other than the OpenAPI document are written next to the output file,
+     * with its extension replaced, e.g. "api.yaml" becomes "api.puml".
+     * @param output Output file of the job
+     * @return The artifact file
+     */
+    public File getTarget(@NonNull File output) {
+        if(this.suffix == null) {
+            return output;
+        }
+
+        final String fileName = output.getName();
+        final int extension = fileName.lastIndexOf('.');
+        return new File(output.getAbsoluteFile().getParentFile(), (extension > 0 ? fileName.substring(0, extension) : fileName) + this.suffix);
+    }
+
+    /**
+     * Get an artifact by its name.
+     * @param name Name like "plantuml", case-insensitive
+     * @return The artifact type
+     * @throws IllegalArgumentException If there is no artifact with this name
+     */
+    public static ArtifactType byName(@NonNull String name) {
+        for(ArtifactType type : values()) {
+            if(type.name.equalsIgnoreCase(name.trim())) {
+                return type;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown artifact: " + name);
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
@@ -0,0 +1,56 @@
+package thb.mdsd.artifact;
+
+import lombok.NonNull;
+import thb.mdsd.model.ApiEndpoint;
+import thb.mdsd.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * CSV list of all endpoints (RFC 4180), sorted by path and method:
+ * {@code method,path,status,consumes,produces,controller,handler}.
+ */
+public class EndpointInventoryArtifactGenerator implements ArtifactGenerator {
+
+    private static final String HEADER = "method,path,status,consumes,produces,controller,handler";
+
+    @Override
+    public ArtifactType getType() {
+        return ArtifactType.ENDPOINTS;
+    }
+
+    @Override
+    public boolean generate(@NonNull ArtifactContext context, @NonNull File output) throws IOException {
+        final List<ApiEndpoint> endpoints = context.springPaths().stream()
+            .map(ApiEndpoint::of)
+            .sorted(Comparator.comparing(ApiEndpoint::path).thenComparing(ApiEndpoint::method))
+            .toList();
+
+        final StringBuilder builder = new StringBuilder(HEADER).append("\r\n");
+        for(ApiEndpoint endpoint : endpoints) {
+            builder.append(String.join(",",
+                endpoint.method(),
+                escape(endpoint.path()),
+                String.valueOf(endpoint.status()),
+                escape(String.join(" ", endpoint.consumes())),
+                escape(String.join(" ", endpoint.produces())),
+                escape(endpoint.controller()),
+                escape(endpoint.handler())
+            )).append("\r\n");
+        }
+
+        return FileUtils.writeIfChanged(this.getType().getTarget(output).toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String escape(@NonNull String value) {
+        if(value.indexOf(',') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1 && value.indexOf('\r') == -1) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
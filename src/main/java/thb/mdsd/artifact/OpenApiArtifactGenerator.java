@@ -0,0 +1,42 @@
+package thb.mdsd.artifact;
+
+import lombok.NonNull;
+import thb.mdsd.swagger.SwaggerAPIExport;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The OpenAPI document of the {@link ArtifactContext}, see {@link SwaggerAPIExport}.
+ */
+public class OpenApiArtifactGenerator implements ArtifactGenerator {
+
+    private final boolean sharded;
+    private final boolean merge;
+
+    /**
+     * @param sharded Write a directory with one file per controller and schema, see {@link SwaggerAPIExport#exportSharded(File)}
+     * @param merge Merge into an existing file, see {@link SwaggerAPIExport#setMerge(boolean)}
+     */
+    public OpenApiArtifactGenerator(boolean sharded, boolean merge) {
+        this.sharded = sharded;
+        this.merge = merge;
+    }
+
+    @Override
+    public ArtifactType getType() {
+        return ArtifactType.OPENAPI;
+    }
+
+    @Override
+    public boolean generate(@NonNull ArtifactContext context, @NonNull File output) throws IOException {
+        final SwaggerAPIExport swaggerAPIExport = new SwaggerAPIExport(context.extractor(), context.snapshot());
+        swaggerAPIExport.setMerge(this.merge);
+
+        if(this.sharded) {
+            return swaggerAPIExport.exportSharded(output, context.requireDocument(), context.springPaths()) > 0;
+        }
+
+        return swaggerAPIExport.export(this.getType().getTarget(output), context.requireDocument());
+    }
+}
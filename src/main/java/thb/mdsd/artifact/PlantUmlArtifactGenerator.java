@@ -0,0 +1,198 @@
+package thb.mdsd.artifact;
+
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.MarkerAnnotationExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import lombok.NonNull;
+import thb.mdsd.spring.ExtractionSnapshot;
+import thb.mdsd.spring.data.CommonAnnotationNameRegistry;
+import thb.mdsd.spring.extractor.JavaFile;
+import thb.mdsd.spring.extractor.container.SpringPathContainer;
+import thb.mdsd.spring.query.JavaFileQuery;
+import thb.mdsd.swagger.GenericType;
+import thb.mdsd.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PlantUML class diagram of the {@code @Entity} classes and of the DTOs used as request or response body, including
+ * all project classes reachable through their fields. Classes are sorted by name, so the diagram is stable between runs.
+ */
+public class PlantUmlArtifactGenerator implements ArtifactGenerator {
+
+    private record DiagramClass(@NonNull String qualifiedName, @NonNull JavaFile file, @NonNull ClassOrInterfaceDeclaration declaration, boolean entity) { }
+
+    @Override
+    public ArtifactType getType() {
+        return ArtifactType.PLANTUML;
+    }
+
+    @Override
+    public boolean generate(@NonNull ArtifactContext context, @NonNull File output) throws IOException {
+        final ExtractionSnapshot snapshot = context.snapshot();
+        final Map<String, DiagramClass> classes = new TreeMap<>();
+        final LinkedList<DiagramClass> pending = new LinkedList<>();
+
+        for(JavaFile javaFile : snapshot.find(JavaFileQuery.annotatedWith(List.of(CommonAnnotationNameRegistry.ENTITY)))) {
+            for(ClassOrInterfaceDeclaration declaration : javaFile.getClassOrInterfaceDeclarations()) {
+                if(declaration.getAnnotationByName(CommonAnnotationNameRegistry.ENTITY.toString()).isPresent()) {
+                    add(classes, pending, new DiagramClass(qualifiedName(declaration), javaFile, declaration, true));
+                }
+            }
+        }
+
+        for(SpringPathContainer springPath : context.springPaths()) {
+            if(springPath.produces() != null && !springPath.produces().isEmpty()) {
+                addReferenced(snapshot, springPath.methodDeclaration().getType(), springPath.javaFileContainer(), classes, pending);
+            }
+
+            for(Parameter parameter : springPath.methodDeclaration().getParameters()) {
+                if(parameter.getAnnotations().stream().anyMatch(annotationExpr -> annotationExpr instanceof MarkerAnnotationExpr && annotationExpr.getNameAsString().equals(CommonAnnotationNameRegistry.REQUEST_BODY.toString()))) {
+                    addReferenced(snapshot, parameter.getType(), springPath.javaFileContainer(), classes, pending);
+                }
+            }
+        }
+
+        // Project classes used by fields and super types are part of the diagram as well
+        while (!pending.isEmpty()) {
+            final DiagramClass diagramClass = pending.removeFirst();
+            for(FieldDeclaration fieldDeclaration : diagramClass.declaration().getFields()) {
+                if(fieldDeclaration.isStatic()) continue;
+
+                for(VariableDeclarator variableDeclarator : fieldDeclaration.getVariables()) {
+                    addReferenced(snapshot, variableDeclarator.getType(), diagramClass.file(), classes, pending);
+                }
+            }
+
+            diagramClass.declaration().getExtendedTypes().forEach(type -> addReferenced(snapshot, type, diagramClass.file(), classes, pending));
+            diagramClass.declaration().getImplementedTypes().forEach(type -> addReferenced(snapshot, type, diagramClass.file(), classes, pending));
+        }
+
+        final StringBuilder builder = new StringBuilder("@startuml\n");
+        for(DiagramClass diagramClass : classes.values()) {
+            builder.append(diagramClass.declaration().isInterface() ? "interface " : diagramClass.declaration().isAbstract() ? "abstract class " : "class ")
+                .append(diagramClass.qualifiedName())
+                .append(diagramClass.entity() ? " <<Entity>>" : "")
+                .append(" {\n");
+
+            for(FieldDeclaration fieldDeclaration : diagramClass.declaration().getFields()) {
+                if(fieldDeclaration.isStatic()) continue;
+
+                for(VariableDeclarator variableDeclarator : fieldDeclaration.getVariables()) {
+                    builder.append("  ").append(visibility(fieldDeclaration)).append(variableDeclarator.getNameAsString())
+                        .append(" : ").append(variableDeclarator.getTypeAsString()).append('\n');
+                }
+            }
+
+            builder.append("}\n");
+        }
+
+        builder.append('\n');
+        for(DiagramClass diagramClass : classes.values()) {
+            for(ClassOrInterfaceType type : diagramClass.declaration().getExtendedTypes()) {
+                final DiagramClass target = find(snapshot, type, diagramClass.file(), classes);
+                if(target != null) {
+                    builder.append(target.qualifiedName()).append(" <|-- ").append(diagramClass.qualifiedName()).append('\n');
+                }
+            }
+
+            for(ClassOrInterfaceType type : diagramClass.declaration().getImplementedTypes()) {
+                final DiagramClass target = find(snapshot, type, diagramClass.file(), classes);
+                if(target != null) {
+                    builder.append(target.qualifiedName()).append(" <|.. ").append(diagramClass.qualifiedName()).append('\n');
+                }
+            }
+
+            for(FieldDeclaration fieldDeclaration : diagramClass.declaration().getFields()) {
+                if(fieldDeclaration.isStatic()) continue;
+
+                for(VariableDeclarator variableDeclarator : fieldDeclaration.getVariables()) {
+                    final DiagramClass target = find(snapshot, variableDeclarator.getType(), diagramClass.file(), classes);
+                    if(target != null) {
+                        builder.append(diagramClass.qualifiedName())
+                            .append(GenericType.of(variableDeclarator.getType()).isArray() ? " --> \"*\" " : " --> ")
+                            .append(target.qualifiedName()).append(" : ").append(variableDeclarator.getNameAsString()).append('\n');
+                    }
+                }
+            }
+        }
+
+        builder.append("@enduml\n");
+        return FileUtils.writeIfChanged(this.getType().getTarget(output).toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void add(@NonNull Map<String, DiagramClass> classes, @NonNull LinkedList<DiagramClass> pending, @NonNull DiagramClass diagramClass) {
+        if(classes.putIfAbsent(diagramClass.qualifiedName(), diagramClass) == null) {
+            pending.addLast(diagramClass);
+        }
+    }
+
+    private static void addReferenced(@NonNull ExtractionSnapshot snapshot, @NonNull Type type, @NonNull JavaFile currentContainer, @NonNull Map<String, DiagramClass> classes, @NonNull LinkedList<DiagramClass> pending) {
+        final DiagramClass diagramClass = resolve(snapshot, type, currentContainer);
+        if(diagramClass != null) {
+            add(classes, pending, diagramClass);
+        }
+    }
+
+    private static DiagramClass find(@NonNull ExtractionSnapshot snapshot, @NonNull Type type, @NonNull JavaFile currentContainer, @NonNull Map<String, DiagramClass> classes) {
+        final DiagramClass diagramClass = resolve(snapshot, type, currentContainer);
+        return diagramClass == null ? null : classes.get(diagramClass.qualifiedName());
+    }
+
+    /**
+     * Resolve the model class of a type (e.g. "Foo" for {@code List<Foo>}) the same way as the schema generation:
+     * the current file, its imports and its package. Types that are not declared in the project are ignored.
+     */
+    private static DiagramClass resolve(@NonNull ExtractionSnapshot snapshot, @NonNull Type type, @NonNull JavaFile currentContainer) {
+        final GenericType genericType = GenericType.of(type).unwrap();
+        if(genericType.isVoid() || genericType.isSimple()) {
+            return null;
+        }
+
+        final String name = GenericType.of(type).getSchemaName();
+        JavaFile javaFile = currentContainer.declaresClass(name) ? currentContainer : null;
+
+        for(String importName : currentContainer.getSummary().imports()) {
+            if(javaFile != null) break;
+
+            if(importName.endsWith("." + name)) {
+                javaFile = snapshot.findClass(name, importName.substring(0, importName.length() - name.length() - 1));
+            } else if(importName.endsWith(".*")) {
+                javaFile = snapshot.findClass(name, importName.substring(0, importName.length() - 2));
+            }
+        }
+
+        if(javaFile == null && currentContainer.getPackage() != null) {
+            javaFile = snapshot.findClass(name, currentContainer.getPackage());
+        }
+
+        final ClassOrInterfaceDeclaration declaration = javaFile == null ? null : javaFile.getClassOrInterfaceDeclaration(name);
+        if(declaration == null) {
+            return null;
+        }
+
+        return new DiagramClass(qualifiedName(declaration), javaFile, declaration, declaration.getAnnotationByName(CommonAnnotationNameRegistry.ENTITY.toString()).isPresent());
+    }
+
+    private static String qualifiedName(@NonNull ClassOrInterfaceDeclaration declaration) {
+        return declaration.getFullyQualifiedName().orElse(declaration.getNameAsString());
+    }
+
+    private static String visibility(@NonNull FieldDeclaration fieldDeclaration) {
+        if(fieldDeclaration.hasModifier(Modifier.Keyword.PRIVATE)) return "-";
+        if(fieldDeclaration.hasModifier(Modifier.Keyword.PROTECTED)) return "#";
+        if(fieldDeclaration.hasModifier(Modifier.Keyword.PUBLIC)) return "+";
+        return "~";
+    }
+}
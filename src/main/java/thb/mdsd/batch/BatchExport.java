@@ -0,0 +1,194 @@
+package thb.mdsd.batch;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import thb.mdsd.artifact.*;
+import thb.mdsd.spring.SpringBootExtractor;
+import thb.mdsd.swagger.SwaggerAPIExport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Generates the Swagger documentation of many projects inside one JVM.
+ * Every project runs isolated: a failing project is reported in its {@link BatchResult} and does not abort the batch.
+ */
+public class BatchExport {
+
+    /**
+     * Read a job file. Every non-empty line that does not start with "#" has the format "project-path;output-file".
+     * @param jobFile Path to the job file
+     * @return A list of jobs in file order
+     * @throws IOException If the file could not be read
+     * @throws RuntimeException If a line does not match the expected format
+     */
+    public static List<BatchJob> readJobFile(@NonNull Path jobFile) throws IOException {
+        final List<BatchJob> jobs = new ArrayList<>();
+
+        for(String line : Files.readAllLines(jobFile, StandardCharsets.UTF_8)) {
+            final String trimmed = line.trim();
+            if(trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            final String[] parts = trimmed.split(";");
+            if(parts.length != 2) {
+                throw new RuntimeException("Invalid batch job, expected \"project-path;output-file\": " + line);
+            }
+
+            jobs.add(new BatchJob(parts[0].trim(), Path.of(parts[1].trim()).toFile()));
+        }
+
+        return jobs;
+    }
+
+    @Getter
+    private final int parallelism;
+    private final Consumer<SpringBootExtractor> extractorConfigurer;
+
+    /**
+     * Write every project as sharded documentation, see {@link SwaggerAPIExport#exportSharded(java.io.File)}.
+     * The output file of a job is then used as output directory.
+     */
+    @Getter
+    @Setter
+    private boolean sharded;
+
+    /**
+     * Threads per project for generating the documentation, see {@link SwaggerAPIExport#setParallelism(int)}. 0 uses the default.
+     */
+    @Getter
+    @Setter
+    private int exportParallelism;
+
+    /**
+     * Intern duplicate object schemas as components, see {@link SwaggerAPIExport#setDeduplicateSchemas(boolean)}.
+     */
+    @Getter
+    @Setter
+    private boolean deduplicateSchemas;
+
+    /**
+     * Merge the OpenAPI document into an existing output file, see {@link SwaggerAPIExport#setMerge(boolean)}.
+     */
+    @Getter
+    @Setter
+    private boolean merge;
+
+    /**
+     * Artifacts generated for every project from one extraction pass, see {@link ArtifactType#getTarget(java.io.File)}.
+     */
+    @Getter
+    @Setter
+    @NonNull
+    private Set<ArtifactType> artifacts = EnumSet.of(ArtifactType.OPENAPI);
+
+    public BatchExport(int parallelism) {
+        this(parallelism, _ -> {});
+    }
+
+    /**
+     * @param parallelism Maximum number of projects processed at the same time
+     * @param extractorConfigurer Applied to every {@link SpringBootExtractor} before its project is extracted
+     */
+    public BatchExport(int parallelism, @NonNull Consumer<SpringBootExtractor> extractorConfigurer) {
+        if(parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got: " + parallelism);
+        }
+
+        this.parallelism = parallelism;
+        this.extractorConfigurer = extractorConfigurer;
+    }
+
+    /**
+     * Run all jobs with at most {@link #getParallelism()} projects at the same time.
+     * @param jobs Jobs to run
+     * @return One result per job, in the same order as the given jobs
+     */
+    public List<BatchResult> run(@NonNull List<BatchJob> jobs) {
+        final List<Future<BatchResult>> futures = new ArrayList<>(jobs.size());
+
+        try (final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(this.parallelism, Math.max(1, jobs.size())))) {
+            for(BatchJob job : jobs) {
+                futures.add(executorService.submit(() -> runJob(job)));
+            }
+
+            final List<BatchResult> results = new ArrayList<>(jobs.size());
+            for(int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException exception) {
+                    results.add(new BatchResult(jobs.get(i), 0, exception.getCause(), null, List.of()));
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Batch export was interrupted.", exception);
+                }
+            }
+
+            return results;
+        }
+    }
+
+    /**
+     * Get the file the error report of a tolerant extraction is written to: "&lt;output&gt;.report.txt" next to the output.
+     * @param job The job
+     * @return The report file
+     */
+    public static Path getReportFile(@NonNull BatchJob job) {
+        return job.outputFile().toPath().resolveSibling(job.outputFile().getName() + ".report.txt");
+    }
+
+    private ArtifactGenerator createGenerator(@NonNull ArtifactType artifact) {
+        return switch (artifact) {
+            case OPENAPI -> new OpenApiArtifactGenerator(this.sharded, this.merge);
+            case PLANTUML -> new PlantUmlArtifactGenerator();
+            case ENDPOINTS -> new EndpointInventoryArtifactGenerator();
+            case MODEL -> new ApiModelArtifactGenerator();
+        };
+    }
+
+    private BatchResult runJob(@NonNull BatchJob job) {
+        final long start = System.nanoTime();
+        SpringBootExtractor extractor = null;
+
+        try {
+            extractor = new SpringBootExtractor(job.projectPath());
+            this.extractorConfigurer.accept(extractor);
+
+            // The document is built once, for the OpenAPI document and the artifacts derived from it
+            final SwaggerAPIExport export = new SwaggerAPIExport(extractor);
+            if(this.exportParallelism > 0) {
+                export.setParallelism(this.exportParallelism);
+            }
+            export.setDeduplicateSchemas(this.deduplicateSchemas);
+
+            final ArtifactContext context = ArtifactContext.of(export, this.artifacts.stream().anyMatch(ArtifactType::isDocumentBased));
+            for(ArtifactType artifact : this.artifacts) {
+                createGenerator(artifact).generate(context, job.outputFile());
+            }
+
+            if(extractor.isTolerant() && !extractor.getDiagnostics().isEmpty()) {
+                extractor.getDiagnostics().writeReport(getReportFile(job));
+            }
+
+            return new BatchResult(job, (System.nanoTime() - start) / 1_000_000, null, extractor.getUnitCacheStatistics(), extractor.getDiagnostics().getDiagnostics());
+        } catch (Exception | StackOverflowError exception) {
+            return new BatchResult(job, (System.nanoTime() - start) / 1_000_000, exception, extractor == null ? null : extractor.getUnitCacheStatistics(),
+                extractor == null ? List.of() : extractor.getDiagnostics().getDiagnostics());
+        } finally {
+            if(extractor != null) {
+                extractor.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package thb.mdsd.batch;
+
+import lombok.NonNull;
+
+import java.io.File;
+
+public record BatchJob(@NonNull String projectPath, @NonNull File outputFile) { }
@@ -0,0 +1,14 @@
+package thb.mdsd.batch;
+
+import lombok.NonNull;
+import thb.mdsd.spring.diagnostics.Diagnostic;
+import thb.mdsd.spring.extractor.CacheStatistics;
+
+import java.util.List;
+
+public record BatchResult(@NonNull BatchJob job, long durationMillis, Throwable error, CacheStatistics unitCacheStatistics, @NonNull List<Diagnostic> diagnostics) {
+
+    public boolean isSuccessful() {
+        return this.error == null;
+    }
+}
@@ -0,0 +1,60 @@
+package thb.mdsd.explorer;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import lombok.NonNull;
+import thb.mdsd.spring.extractor.container.SpringPathContainer;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Display data of one endpoint, detached from the AST so it can be searched and shown without touching JavaParser.
+ * @param method HTTP method in upper case
+ * @param consumes Media types of the request body, may be empty
+ * @param produces Media types of the response, may be empty
+ * @param source Source file, relative to the project if possible
+ * @param handler Handler method as "Class#method"
+ */
+public record EndpointEntry(@NonNull String path, @NonNull String method, int status, @NonNull List<String> consumes, @NonNull List<String> produces, @NonNull String source, @NonNull String handler) {
+
+    public static EndpointEntry of(@NonNull SpringPathContainer springPath, @NonNull File projectDirectory) {
+        // Not findAncestor, its varargs overload is an unchecked call and the other one is deprecated
+        final String className = springPath.methodDeclaration().stream(Node.TreeTraversal.PARENTS)
+            .filter(ClassOrInterfaceDeclaration.class::isInstance)
+            .map(ClassOrInterfaceDeclaration.class::cast)
+            .findFirst()
+            .map(ClassOrInterfaceDeclaration::getNameAsString)
+            .orElse("");
+
+        final File reference = springPath.javaFileContainer().getReference();
+        String source = reference.getPath();
+        try {
+            source = projectDirectory.getAbsoluteFile().toPath().relativize(reference.getAbsoluteFile().toPath()).toString();
+        } catch (IllegalArgumentException _) {
+            // Different root, keep the absolute path
+        }
+
+        return new EndpointEntry(
+            springPath.path(),
+            springPath.method().toUpperCase(),
+            springPath.responseStatus(),
+            mediaTypes(springPath.consumes()),
+            mediaTypes(springPath.produces()),
+            source,
+            className + "#" + springPath.methodDeclaration().getNameAsString()
+        );
+    }
+
+    private static List<String> mediaTypes(NodeList<Expression> expressions) {
+        if(expressions == null) {
+            return List.of();
+        }
+
+        return expressions.stream()
+            .map(expression -> expression.isStringLiteralExpr() ? expression.asStringLiteralExpr().getValue() : expression.toString())
+            .toList();
+    }
+}
@@ -0,0 +1,82 @@
+package thb.mdsd.explorer;
+
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.VBox;
+import lombok.NonNull;
+
+import java.util.List;
+
+/**
+ * Lists all detected endpoints with a filter-as-you-type search over an {@link EndpointIndex}.
+ * The {@link ListView} only creates cells for the visible rows, so large projects stay responsive.
+ */
+public final class EndpointExplorerPane extends BorderPane {
+
+    private final TextField filterField = new TextField();
+    private final ListView<EndpointEntry> endpointListView = new ListView<>();
+    private final Label countLabel = new Label("Keine Endpunkte geladen");
+    private EndpointIndex endpointIndex = new EndpointIndex(List.of());
+
+    public EndpointExplorerPane() {
+        filterField.setPromptText("Filter, z. B. \"/api get 200 application/json Hotel\"");
+        filterField.textProperty().addListener((_, _, _) -> applyFilter());
+
+        endpointListView.setCellFactory(_ -> new EndpointCell());
+        endpointListView.setStyle("-fx-font-family: monospace;");
+        endpointListView.setPlaceholder(new Label("Keine Endpunkte gefunden"));
+
+        final VBox header = new VBox(6, filterField, countLabel);
+        BorderPane.setMargin(header, new Insets(6));
+
+        setTop(header);
+        setCenter(endpointListView);
+    }
+
+    /**
+     * Show the endpoints of a project. Must be called on the JavaFX application thread.
+     * @param index Index of the endpoints
+     */
+    public void setEndpointIndex(@NonNull EndpointIndex index) {
+        this.endpointIndex = index;
+        applyFilter();
+    }
+
+    /**
+     * Show a message instead of endpoints, e.g. while the project is extracted. Must be called on the JavaFX application thread.
+     */
+    public void showMessage(@NonNull String message) {
+        this.endpointIndex = new EndpointIndex(List.of());
+        endpointListView.getItems().clear();
+        countLabel.setText(message);
+    }
+
+    private void applyFilter() {
+        final List<EndpointEntry> matches = this.endpointIndex.search(filterField.getText() == null ? "" : filterField.getText());
+        endpointListView.getItems().setAll(matches);
+        countLabel.setText(matches.size() + " von " + this.endpointIndex.size() + " Endpunkten");
+    }
+
+    private static final class EndpointCell extends ListCell<EndpointEntry> {
+
+        @Override
+        protected void updateItem(EndpointEntry entry, boolean empty) {
+            super.updateItem(entry, empty);
+
+            if(empty || entry == null) {
+                setText(null);
+                return;
+            }
+
+            setText(String.format("%-7s %s  [%d]%n        Konsumiert: %s  Produziert: %s%n        %s (%s)",
+                entry.method(), entry.path(), entry.status(),
+                entry.consumes().isEmpty() ? "-" : String.join(", ", entry.consumes()),
+                entry.produces().isEmpty() ? "-" : String.join(", ", entry.produces()),
+                entry.handler(), entry.source()));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package thb.mdsd.explorer;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.*;
+
+/**
+ * Search index over the endpoints of a project, built once per extraction so filtering while typing does not scan the AST.
+ * <p>
+ * A query consists of whitespace separated terms, all terms must match:
+ * <ul>
+ *     <li>"/..." - path prefix, answered by a prefix trie over the sorted paths</li>
+ *     <li>an HTTP method like "get" - exact method</li>
+ *     <li>three digits like "201" - response status</li>
+ *     <li>a term with "/" like "application/js" - prefix of a consumed or produced media type</li>
+ *     <li>anything else - case-insensitive substring of path, handler or source file</li>
+ * </ul>
+ */
+public final class EndpointIndex {
+
+    private static final Set<String> HTTP_METHODS = Set.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE");
+
+    /**
+     * Node of the path trie. Entries are sorted by path, so all entries below a node form the range [from, to).
+     */
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private int from;
+        private int to;
+    }
+
+    /**
+     * All entries, sorted by path and method
+     */
+    @Getter
+    private final List<EndpointEntry> entries;
+    private final TrieNode root = new TrieNode();
+    private final Map<String, BitSet> byMethod = new HashMap<>();
+    private final Map<Integer, BitSet> byStatus = new HashMap<>();
+    private final Map<String, BitSet> byMediaType = new TreeMap<>();
+    private final String[] searchText;
+
+    public EndpointIndex(@NonNull Collection<EndpointEntry> entries) {
+        this.entries = entries.stream()
+            .sorted(Comparator.comparing((EndpointEntry entry) -> entry.path().toLowerCase()).thenComparing(EndpointEntry::method))
+            .toList();
+        this.searchText = new String[this.entries.size()];
+
+        this.root.to = this.entries.size();
+        for(int i = 0; i < this.entries.size(); i++) {
+            final EndpointEntry entry = this.entries.get(i);
+            final int index = i;
+
+            TrieNode node = this.root;
+            for(char character : entry.path().toLowerCase().toCharArray()) {
+                node = node.children.computeIfAbsent(character, _ -> {
+                    final TrieNode child = new TrieNode();
+                    child.from = index;
+                    return child;
+                });
+                node.to = i + 1;
+            }
+
+            this.byMethod.computeIfAbsent(entry.method(), _ -> new BitSet()).set(i);
+            this.byStatus.computeIfAbsent(entry.status(), _ -> new BitSet()).set(i);
+            for(String mediaType : entry.consumes()) {
+                this.byMediaType.computeIfAbsent(mediaType.toLowerCase(), _ -> new BitSet()).set(i);
+            }
+            for(String mediaType : entry.produces()) {
+                this.byMediaType.computeIfAbsent(mediaType.toLowerCase(), _ -> new BitSet()).set(i);
+            }
+
+            this.searchText[i] = (entry.path() + " " + entry.handler() + " " + entry.source()).toLowerCase();
+        }
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Find all entries that match the query, see the class description for the syntax.
+     * @param query Query, empty matches everything
+     * @return Matching entries in index order
+     */
+    public List<EndpointEntry> search(@NonNull String query) {
+        final BitSet result = new BitSet();
+        result.set(0, this.entries.size());
+
+        for(String term : query.trim().toLowerCase().split("\\s+")) {
+            if(term.isEmpty()) continue;
+
+            if(term.startsWith("/")) {
+                result.and(this.withPathPrefix(term));
+            } else if(HTTP_METHODS.contains(term.toUpperCase())) {
+                result.and(this.byMethod.getOrDefault(term.toUpperCase(), new BitSet()));
+            } else if(term.length() == 3 && term.chars().allMatch(Character::isDigit)) {
+                result.and(this.byStatus.getOrDefault(Integer.parseInt(term), new BitSet()));
+            } else if(term.indexOf('/') != -1) {
+                result.and(this.withMediaTypePrefix(term));
+            } else {
+                for(int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                    if(!this.searchText[i].contains(term)) {
+                        result.clear(i);
+                    }
+                }
+            }
+
+            if(result.isEmpty()) break;
+        }
+
+        final List<EndpointEntry> matches = new ArrayList<>(result.cardinality());
+        for(int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+            matches.add(this.entries.get(i));
+        }
+
+        return matches;
+    }
+
+    private BitSet withPathPrefix(@NonNull String prefix) {
+        TrieNode node = this.root;
+        for(int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+
+        final BitSet bitSet = new BitSet();
+        if(node != null) {
+            bitSet.set(node.from, node.to);
+        }
+
+        return bitSet;
+    }
+
+    private BitSet withMediaTypePrefix(@NonNull String prefix) {
+        final BitSet bitSet = new BitSet();
+        this.byMediaType.forEach((mediaType, entries) -> {
+            if(mediaType.startsWith(prefix)) {
+                bitSet.or(entries);
+            }
+        });
+
+        return bitSet;
+    }
+}
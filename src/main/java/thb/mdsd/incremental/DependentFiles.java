@@ -0,0 +1,112 @@
+package thb.mdsd.incremental;
+
+import lombok.NonNull;
+import thb.mdsd.spring.extractor.JavaFileSummary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the files whose export may change because other files changed. A file depends on a type if it imports it
+ * (directly, by a static import or by a wildcard import of its package) or lies in the same package. Wildcard and
+ * same-package candidates are confirmed by searching the simple name of the type in the source.
+ */
+final class DependentFiles {
+
+    private record DeclaredType(String packageName, @NonNull String name) {
+        String qualifiedName() {
+            return this.packageName == null ? this.name : this.packageName + "." + this.name;
+        }
+    }
+
+    private final Path root;
+    private final Map<String, JavaFileSummary> previousFiles;
+    private final Map<String, JavaFileSummary> currentFiles;
+    private final Map<String, String> sources = new HashMap<>();
+
+    /**
+     * @param root Project directory
+     * @param previousFiles Summaries of the previous run, to find the dependents of deleted and changed types
+     * @param currentFiles Summaries of this run
+     */
+    DependentFiles(@NonNull Path root, @NonNull Map<String, JavaFileSummary> previousFiles, @NonNull Map<String, JavaFileSummary> currentFiles) {
+        this.root = root;
+        this.previousFiles = previousFiles;
+        this.currentFiles = currentFiles;
+    }
+
+    /**
+     * @param changedFiles Changed, added or deleted files relative to the project path, separated by "/"
+     * @return The changed files and all files that depend on them, directly or transitively
+     */
+    Set<String> closure(@NonNull Set<String> changedFiles) {
+        final Set<String> dirtyFiles = new LinkedHashSet<>(changedFiles);
+        final LinkedList<String> queue = new LinkedList<>(changedFiles);
+
+        while(!queue.isEmpty()) {
+            final List<DeclaredType> types = declaredTypes(queue.removeFirst());
+            if(types.isEmpty()) continue;
+
+            this.currentFiles.forEach((relativePath, summary) -> {
+                if(!dirtyFiles.contains(relativePath) && dependsOn(relativePath, summary, types)) {
+                    dirtyFiles.add(relativePath);
+                    queue.addLast(relativePath);
+                }
+            });
+        }
+
+        return dirtyFiles;
+    }
+
+    private List<DeclaredType> declaredTypes(@NonNull String relativePath) {
+        final List<DeclaredType> types = new LinkedList<>();
+        for(JavaFileSummary summary : new JavaFileSummary[] { this.previousFiles.get(relativePath), this.currentFiles.get(relativePath) }) {
+            if(summary != null) {
+                summary.classNames().forEach(name -> types.addLast(new DeclaredType(summary.packageName(), name)));
+            }
+        }
+
+        return types;
+    }
+
+    private boolean dependsOn(@NonNull String relativePath, @NonNull JavaFileSummary summary, @NonNull List<DeclaredType> types) {
+        for(DeclaredType type : types) {
+            final String qualifiedName = type.qualifiedName();
+            boolean candidate = Objects.equals(summary.packageName(), type.packageName());
+
+            for(String importName : summary.imports()) {
+                if(importName.equals(qualifiedName) || importName.startsWith(qualifiedName + ".")) {
+                    return true;
+                }
+
+                candidate |= type.packageName() != null && importName.equals(type.packageName() + ".*");
+            }
+
+            if(candidate) {
+                final String source = source(relativePath);
+                if(source == null || Pattern.compile("\\b" + Pattern.quote(type.name()) + "\\b").matcher(source).find()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The source or null if the file can not be read, it is then treated as if it referenced every type
+     */
+    private String source(@NonNull String relativePath) {
+        return this.sources.computeIfAbsent(relativePath, _ -> {
+            try {
+                return new String(Files.readAllBytes(this.root.resolve(relativePath)), StandardCharsets.UTF_8);
+            } catch (IOException exception) {
+                return null;
+            }
+        });
+    }
+}
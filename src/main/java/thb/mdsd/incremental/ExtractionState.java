@@ -0,0 +1,169 @@
+package thb.mdsd.incremental;
+
+import lombok.NonNull;
+import thb.mdsd.spring.extractor.JavaFileSummary;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Saved result of an extraction: the {@link JavaFileSummary} of every java file and the routes of every controller
+ * with their exported endpoints, keyed by the path of the file relative to the project.
+ * @param commit Commit the summaries belong to
+ * @param files Summaries by relative path (separated by "/"), in extraction order
+ * @param routes Routes by relative path of the controller, in declaration order
+ */
+public record ExtractionState(@NonNull String commit, @NonNull Map<String, JavaFileSummary> files, @NonNull Map<String, List<StoredRoute>> routes) {
+
+    private static final int MAGIC = 0x53574753;  // "SWGS"
+    private static final int VERSION = 4;  // 2: lexical flag, 3: routes, 4: lexical types
+
+    /**
+     * Load a state file written by {@link #save(Path)}.
+     * @param stateFile Path to the state file
+     * @return The state
+     * @throws IOException If the file could not be read or has an unknown format
+     */
+    public static ExtractionState load(@NonNull Path stateFile) throws IOException {
+        try(final DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+            final int magic = input.readInt();
+            final int version = input.readInt();
+            if(magic != MAGIC || version < 1 || version > VERSION) {
+                throw new IOException("Unsupported extraction state file: " + stateFile);
+            }
+
+            final String commit = input.readUTF();
+            final int size = input.readInt();
+            final Map<String, JavaFileSummary> files = new LinkedHashMap<>();
+
+            for(int i = 0; i < size; i++) {
+                final String relativePath = input.readUTF();
+                final String packageName = input.readBoolean() ? input.readUTF() : null;
+                final Set<String> classNames = Set.copyOf(readStrings(input));
+                final Set<String> classAnnotationNames = Set.copyOf(readStrings(input));
+                final List<String> imports = List.copyOf(readStrings(input));
+                final boolean lexical = version >= 2 && input.readBoolean();
+                final List<JavaFileSummary.LexicalType> lexicalTypes = new ArrayList<>();
+                final int lexicalTypeCount = version >= 4 ? input.readInt() : 0;
+                for(int j = 0; j < lexicalTypeCount; j++) {
+                    final JavaFileSummary.LexicalType.Kind kind = JavaFileSummary.LexicalType.Kind.valueOf(input.readUTF());
+                    lexicalTypes.add(new JavaFileSummary.LexicalType(input.readUTF(), kind));
+                }
+
+                files.put(relativePath, new JavaFileSummary(packageName, classNames, classAnnotationNames, imports, lexical, List.copyOf(lexicalTypes)));
+            }
+
+            final Map<String, List<StoredRoute>> routes = new LinkedHashMap<>();
+            final int controllers = version >= 3 ? input.readInt() : 0;
+            for(int i = 0; i < controllers; i++) {
+                final String relativePath = input.readUTF();
+                final int routeCount = input.readInt();
+                final List<StoredRoute> controllerRoutes = new ArrayList<>(routeCount);
+
+                for(int j = 0; j < routeCount; j++) {
+                    final String method = input.readUTF();
+                    final String location = input.readUTF();
+                    final String headerPath = input.readUTF();
+                    final String literal = input.readUTF();
+                    final String path = input.readBoolean() ? input.readUTF() : null;
+                    final int length = input.readInt();
+
+                    controllerRoutes.add(new StoredRoute(method, location, headerPath, literal, path, length < 0 ? null : input.readNBytes(length)));
+                }
+
+                routes.put(relativePath, List.copyOf(controllerRoutes));
+            }
+
+            return new ExtractionState(commit, files, routes);
+        }
+    }
+
+    /**
+     * @param routes Routes of the controllers
+     * @return A copy of this state with the given routes
+     */
+    public ExtractionState withRoutes(@NonNull Map<String, List<StoredRoute>> routes) {
+        return new ExtractionState(this.commit, this.files, routes);
+    }
+
+    /**
+     * Write the state to a file. The file is replaced atomically, so an interrupted run leaves the old state intact.
+     * @param stateFile Path to the state file
+     * @throws IOException If the file could not be written
+     */
+    public void save(@NonNull Path stateFile) throws IOException {
+        final Path temporaryFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+
+        try(final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeUTF(this.commit);
+            output.writeInt(this.files.size());
+
+            for(Map.Entry<String, JavaFileSummary> entry : this.files.entrySet()) {
+                final JavaFileSummary summary = entry.getValue();
+
+                output.writeUTF(entry.getKey());
+                output.writeBoolean(summary.packageName() != null);
+                if(summary.packageName() != null) {
+                    output.writeUTF(summary.packageName());
+                }
+
+                writeStrings(output, summary.classNames());
+                writeStrings(output, summary.classAnnotationNames());
+                writeStrings(output, summary.imports());
+                output.writeBoolean(summary.lexical());
+                output.writeInt(summary.lexicalTypes().size());
+                for(JavaFileSummary.LexicalType lexicalType : summary.lexicalTypes()) {
+                    output.writeUTF(lexicalType.kind().name());
+                    output.writeUTF(lexicalType.name());
+                }
+            }
+
+            output.writeInt(this.routes.size());
+            for(Map.Entry<String, List<StoredRoute>> entry : this.routes.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeInt(entry.getValue().size());
+
+                for(StoredRoute route : entry.getValue()) {
+                    output.writeUTF(route.method());
+                    output.writeUTF(route.location());
+                    output.writeUTF(route.headerPath());
+                    output.writeUTF(route.literal());
+                    output.writeBoolean(route.path() != null);
+                    if(route.path() != null) {
+                        output.writeUTF(route.path());
+                    }
+
+                    output.writeInt(route.fragment() == null ? -1 : route.fragment().length);
+                    if(route.fragment() != null) {
+                        output.write(route.fragment());
+                    }
+                }
+            }
+        }
+
+        Files.move(temporaryFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<String> readStrings(@NonNull DataInputStream input) throws IOException {
+        final int size = input.readInt();
+        final List<String> strings = new ArrayList<>(size);
+
+        for(int i = 0; i < size; i++) {
+            strings.add(input.readUTF());
+        }
+
+        return strings;
+    }
+
+    private static void writeStrings(@NonNull DataOutputStream output, @NonNull Collection<String> strings) throws IOException {
+        output.writeInt(strings.size());
+        for(String string : strings) {
+            output.writeUTF(string);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package thb.mdsd.incremental;
+
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Java files that differ between a base commit and the working tree of a local git repository.
+ * @param baseCommit Resolved commit id of the base ref
+ * @param headCommit Commit id of HEAD
+ * @param changedFiles Changed, added, deleted and untracked java files relative to the project path, separated by "/"
+ * @param clean True if the working tree has no uncommitted java changes, so the sources match {@code headCommit}
+ */
+public record GitChangeSet(@NonNull String baseCommit, @NonNull String headCommit, @NonNull Set<String> changedFiles, boolean clean) {
+
+    /**
+     * Ask git for all java files of the project that changed since the given ref.
+     * @param projectPath Project directory inside a git working tree
+     * @param baseRef Commit, branch or tag to compare with
+     * @return The change set
+     * @throws RuntimeException If git is not available or a git command fails
+     */
+    public static GitChangeSet since(@NonNull String projectPath, @NonNull String baseRef) {
+        final File directory = new File(projectPath);
+
+        final String baseCommit = git(directory, "rev-parse", "--verify", baseRef + "^{commit}").trim();
+        final String headCommit = git(directory, "rev-parse", "--verify", "HEAD").trim();
+
+        // Renames are reported as deletion plus addition, so the old path leaves the state as well
+        final Set<String> changedFiles = new LinkedHashSet<>(split(git(directory, "diff", "--name-only", "--relative", "--no-renames", "-z", baseCommit, "--", "*.java")));
+        final List<String> untrackedFiles = split(git(directory, "ls-files", "--others", "--exclude-standard", "-z", "--", "*.java"));
+        changedFiles.addAll(untrackedFiles);
+
+        final boolean clean = untrackedFiles.isEmpty() && git(directory, "diff", "--name-only", "--relative", "-z", "HEAD", "--", "*.java").isEmpty();
+
+        return new GitChangeSet(baseCommit, headCommit, changedFiles, clean);
+    }
+
+    private static List<String> split(@NonNull String output) {
+        final List<String> paths = new ArrayList<>();
+
+        for(String path : output.split("\0")) {
+            if(!path.isEmpty()) {
+                paths.add(path);
+            }
+        }
+
+        return paths;
+    }
+
+    private static String git(@NonNull File directory, @NonNull String... args) {
+        final List<String> command = new ArrayList<>(List.of("git", "-C", directory.getAbsolutePath()));
+        command.addAll(List.of(args));
+
+        try {
+            final Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+            final String output;
+            try(final InputStream inputStream = process.getInputStream()) {
+                output = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+
+            if(process.waitFor() != 0) {
+                throw new RuntimeException("git command failed: " + String.join(" ", command));
+            }
+
+            return output;
+        } catch (IOException exception) {
+            throw new RuntimeException("Could not run git: " + exception.getMessage(), exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("git command was interrupted: " + String.join(" ", command), exception);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package thb.mdsd.incremental;
+
+import lombok.Getter;
+import lombok.NonNull;
+import thb.mdsd.spring.ExtractionSnapshot;
+import thb.mdsd.spring.SpringBootExtractor;
+import thb.mdsd.spring.data.CommonAnnotationNameRegistry;
+import thb.mdsd.spring.extractor.JavaFile;
+import thb.mdsd.spring.extractor.JavaFileSummary;
+import thb.mdsd.spring.extractor.container.ControllerRoute;
+import thb.mdsd.spring.extractor.container.SpringPathContainer;
+import thb.mdsd.spring.mapping.RouteTrie;
+import thb.mdsd.swagger.SwaggerAPIExport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Regenerates the Swagger documentation of a project inside a git repository, only re-extracting the java files
+ * that changed since a base ref and only re-exporting the endpoints that depend on them. The files and endpoints of
+ * the base ref come from an {@link ExtractionState} saved by a previous run.
+ */
+@Getter
+public class IncrementalExport {
+
+    private final String projectPath;
+    private final Path stateFile;
+    private final Consumer<SpringBootExtractor> extractorConfigurer;
+
+    /**
+     * @param projectPath Project directory inside a git working tree
+     * @param stateFile File to load the previous state from and to save the new state to
+     * @param extractorConfigurer Applied to the {@link SpringBootExtractor} before the project is extracted
+     */
+    public IncrementalExport(@NonNull String projectPath, @NonNull Path stateFile, @NonNull Consumer<SpringBootExtractor> extractorConfigurer) {
+        this.projectPath = projectPath;
+        this.stateFile = stateFile;
+        this.extractorConfigurer = extractorConfigurer;
+    }
+
+    /**
+     * A route in the trie: either extracted from the sources or kept from the previous state.
+     * @param path Normalized path
+     */
+    private record Endpoint(@NonNull String relativePath, ControllerRoute route, StoredRoute stored, @NonNull String path) { }
+
+    /**
+     * Export the documentation. Falls back to a full extraction if no state exists or the state belongs to another commit than the base ref.
+     * Only the endpoints of controllers that changed or depend on a changed file are exported again, the others are spliced
+     * in from the fragments of the state. The new state is only saved if the working tree is clean, because otherwise it would not match any commit.
+     * @param baseRef Commit, branch or tag the saved state was created for
+     * @param outputFile Target file of the documentation
+     * @return The result
+     * @throws IOException If the state or the documentation could not be read or written
+     */
+    public IncrementalResult run(@NonNull String baseRef, @NonNull File outputFile) throws IOException {
+        final long start = System.nanoTime();
+        final GitChangeSet changeSet = GitChangeSet.since(this.projectPath, baseRef);
+        final ExtractionState previousState = Files.isRegularFile(this.stateFile) ? ExtractionState.load(this.stateFile) : null;
+        final boolean incremental = previousState != null && previousState.commit().equals(changeSet.baseCommit());
+
+        final SpringBootExtractor extractor = new SpringBootExtractor(this.projectPath);
+        try {
+            this.extractorConfigurer.accept(extractor);
+
+            int reusedFiles = 0;
+            if(incremental) {
+                extractor.startExtracting(previousState, changeSet.changedFiles());
+                reusedFiles = (int) previousState.files().keySet().stream().filter(relativePath -> !changeSet.changedFiles().contains(relativePath)).count();
+            } else {
+                extractor.startExtracting();
+            }
+
+            final ExtractionSnapshot snapshot = extractor.getSnapshot();
+            final ExtractionState state = extractor.getExtractionState(changeSet.headCommit());
+            Map<String, List<StoredRoute>> previousRoutes = Map.of();
+            if(incremental) {
+                final Set<String> dirtyFiles = new DependentFiles(Path.of(this.projectPath), previousState.files(), state.files()).closure(changeSet.changedFiles());
+
+                // The exception handlers of the advices apply to every controller
+                if(dirtyFiles.stream().noneMatch(relativePath -> isAdvice(previousState.files().get(relativePath)) || isAdvice(state.files().get(relativePath)))) {
+                    previousRoutes = new HashMap<>(previousState.routes());
+                    previousRoutes.keySet().removeAll(dirtyFiles);
+                }
+            }
+
+            final Map<String, JavaFile> controllerFiles = new LinkedHashMap<>();
+            for(JavaFile javaFileContainer : extractor.getControllerFiles(snapshot)) {
+                controllerFiles.put(extractor.getRelativePath(javaFileContainer), javaFileContainer);
+            }
+
+            // Kept routes without a fragment (they were dropped or failed before) or with another normalized path
+            // need their controller, which may change the trie again
+            final Map<String, List<ControllerRoute>> extractedRoutes = new HashMap<>();
+            Set<Integer> adviceErrorStatuses = null;
+            RouteTrie<Endpoint> routes;
+            while(true) {
+                routes = new RouteTrie<>();
+                for(Map.Entry<String, JavaFile> entry : controllerFiles.entrySet()) {
+                    final String relativePath = entry.getKey();
+                    final List<StoredRoute> storedRoutes = previousRoutes.get(relativePath);
+
+                    if(storedRoutes != null) {
+                        for(StoredRoute stored : storedRoutes) {
+                            routes.add(stored.method(), stored.location(), path -> new Endpoint(relativePath, null, stored, path), stored.headerPath(), stored.literal());
+                        }
+
+                        continue;
+                    }
+
+                    if(!extractedRoutes.containsKey(relativePath)) {
+                        if(adviceErrorStatuses == null) {
+                            adviceErrorStatuses = extractor.getAdviceErrorStatuses(snapshot);
+                        }
+
+                        extractedRoutes.put(relativePath, extractor.getControllerRoutes(snapshot, entry.getValue(), adviceErrorStatuses));
+                    }
+
+                    for(ControllerRoute route : extractedRoutes.get(relativePath)) {
+                        routes.add(route.method(), route.location(), path -> new Endpoint(relativePath, route, null, path), route.headerPath(), route.literal());
+                    }
+                }
+
+                final Set<String> staleFiles = new HashSet<>();
+                for(Endpoint endpoint : routes.getValues()) {
+                    if(endpoint.stored() != null && (endpoint.stored().fragment() == null || !endpoint.path().equals(endpoint.stored().path()))) {
+                        staleFiles.add(endpoint.relativePath());
+                    }
+                }
+
+                if(staleFiles.isEmpty()) {
+                    break;
+                }
+
+                previousRoutes = new HashMap<>(previousRoutes);
+                previousRoutes.keySet().removeAll(staleFiles);
+            }
+
+            extractor.reportRouteConflicts(snapshot, routes);
+
+            // Export the extracted endpoints and splice them in between the kept ones
+            final List<Endpoint> endpoints = routes.getValues();
+            final List<SpringPathContainer> extractedPaths = endpoints.stream().filter(endpoint -> endpoint.route() != null).map(endpoint -> endpoint.route().toContainer(endpoint.path())).toList();
+            final SwaggerAPIExport export = new SwaggerAPIExport(extractor, snapshot);
+            final Iterator<byte[]> extractedFragments = export.recordEndpoints(extractedPaths).iterator();
+
+            // New state of every route that is in the trie, dropped routes are stored without path and fragment
+            final Map<Object, StoredRoute> storedByRoute = new IdentityHashMap<>();
+            final List<byte[]> fragments = new ArrayList<>(endpoints.size());
+            for(Endpoint endpoint : endpoints) {
+                if(endpoint.route() == null) {
+                    fragments.add(endpoint.stored().fragment());
+                    storedByRoute.put(endpoint.stored(), endpoint.stored());
+                } else {
+                    final byte[] fragment = extractedFragments.next();
+                    fragments.add(fragment);
+                    storedByRoute.put(endpoint.route(), StoredRoute.of(endpoint.route(), endpoint.path(), fragment));
+                }
+            }
+
+            export.export(outputFile, export.assembleDocument(fragments));
+
+            if(changeSet.clean()) {
+                final Map<String, List<StoredRoute>> storedRoutes = new LinkedHashMap<>();
+                for(String relativePath : controllerFiles.keySet()) {
+                    final List<StoredRoute> controllerRoutes = new LinkedList<>();
+                    if(previousRoutes.containsKey(relativePath)) {
+                        for(StoredRoute stored : previousRoutes.get(relativePath)) {
+                            controllerRoutes.addLast(storedByRoute.getOrDefault(stored, stored.withExport(null, null)));
+                        }
+                    } else {
+                        for(ControllerRoute route : extractedRoutes.get(relativePath)) {
+                            controllerRoutes.addLast(storedByRoute.getOrDefault(route, StoredRoute.of(route, null, null)));
+                        }
+                    }
+
+                    storedRoutes.put(relativePath, List.copyOf(controllerRoutes));
+                }
+
+                state.withRoutes(storedRoutes).save(this.stateFile);
+            }
+
+            return new IncrementalResult(incremental, changeSet.changedFiles().size(), reusedFiles, endpoints.size() - extractedPaths.size(), extractedPaths.size(),
+                changeSet.clean(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            extractor.dispose();
+        }
+    }
+
+    private static boolean isAdvice(JavaFileSummary summary) {
+        return summary != null && (summary.classAnnotationNames().contains(CommonAnnotationNameRegistry.CONTROLLER_ADVICE.toString())
+            || summary.classAnnotationNames().contains(CommonAnnotationNameRegistry.REST_CONTROLLER_ADVICE.toString()));
+    }
+}
@@ -0,0 +1,14 @@
+package thb.mdsd.incremental;
+
+/**
+ * Outcome of an {@link IncrementalExport}.
+ * @param incremental True if the previous state was reused, false if the whole project was extracted
+ * @param changedFiles Number of java files git reported as changed
+ * @param reusedFiles Number of files taken from the previous state without parsing
+ * @param reusedEndpoints Number of endpoints taken from the previous state without exporting them again
+ * @param exportedEndpoints Number of endpoints that were exported again
+ * @param stateSaved True if the state of this run was saved for the next run
+ * @param durationMillis Duration of the run in milliseconds
+ */
+public record IncrementalResult(boolean incremental, int changedFiles, int reusedFiles, int reusedEndpoints, int exportedEndpoints, boolean stateSaved, long durationMillis) {
+}
@@ -0,0 +1,32 @@
+package thb.mdsd.incremental;
+
+import lombok.NonNull;
+import thb.mdsd.spring.extractor.container.ControllerRoute;
+
+/**
+ * Route of a controller method as saved in an {@link ExtractionState}, with the fragment of its endpoint.
+ * @param method HTTP method
+ * @param location Location of the handler method, e.g. "com.example#getUser"
+ * @param headerPath Path of the class-level mapping
+ * @param literal Path of the method-level mapping
+ * @param path Normalized path, null if the route was dropped as a duplicate
+ * @param fragment Endpoint from {@link thb.mdsd.swagger.SwaggerAPIExport#recordEndpoints(java.util.List)}, null if the route was dropped or its export failed
+ */
+public record StoredRoute(@NonNull String method, @NonNull String location, @NonNull String headerPath, @NonNull String literal, String path, byte[] fragment) {
+
+    /**
+     * @param route Route extracted from the sources
+     * @param path Normalized path, null if the route was dropped
+     * @param fragment Exported endpoint, null if the route was dropped or its export failed
+     */
+    public static StoredRoute of(@NonNull ControllerRoute route, String path, byte[] fragment) {
+        return new StoredRoute(route.method(), route.location(), route.headerPath(), route.literal(), path, fragment);
+    }
+
+    /**
+     * @return A copy of this route with another normalized path and fragment
+     */
+    public StoredRoute withExport(String path, byte[] fragment) {
+        return new StoredRoute(this.method, this.location, this.headerPath, this.literal, path, fragment);
+    }
+}
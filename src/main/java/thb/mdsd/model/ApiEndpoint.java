@@ -0,0 +1,61 @@
+package thb.mdsd.model;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import lombok.NonNull;
+import thb.mdsd.spring.extractor.container.SpringPathContainer;
+
+import java.util.List;
+
+/**
+ * Endpoint of the extracted API model, detached from the parsed sources.
+ * @param method HTTP method, e.g. "get"
+ * @param path Normalized path
+ * @param status Status code of the successful response
+ * @param consumes Media types of the request body
+ * @param produces Media types of the response
+ * @param controller Fully qualified name of the controller, empty if unknown
+ * @param handler Name of the handler method
+ * @param errorStatuses Status codes of the exception handlers, sorted
+ */
+public record ApiEndpoint(@NonNull String method, @NonNull String path, int status, @NonNull List<String> consumes, @NonNull List<String> produces,
+                          @NonNull String controller, @NonNull String handler, @NonNull List<Integer> errorStatuses) {
+
+    /**
+     * Detach an extracted endpoint from its sources.
+     * @param springPath Endpoint from {@link thb.mdsd.spring.SpringBootExtractor#getSpringAllPaths()}
+     * @return The endpoint
+     */
+    public static ApiEndpoint of(@NonNull SpringPathContainer springPath) {
+        // Not findAncestor, its varargs overload is an unchecked call and the other one is deprecated
+        final String controller = springPath.methodDeclaration().stream(Node.TreeTraversal.PARENTS)
+            .filter(ClassOrInterfaceDeclaration.class::isInstance)
+            .map(ClassOrInterfaceDeclaration.class::cast)
+            .findFirst()
+            .map(declaration -> declaration.getFullyQualifiedName().orElse(declaration.getNameAsString()))
+            .orElse("");
+
+        return new ApiEndpoint(
+            springPath.method(),
+            springPath.path(),
+            springPath.responseStatus(),
+            mediaTypes(springPath.consumes()),
+            mediaTypes(springPath.produces()),
+            controller,
+            springPath.methodDeclaration().getNameAsString(),
+            List.copyOf(springPath.errorStatuses())
+        );
+    }
+
+    private static List<String> mediaTypes(NodeList<Expression> expressions) {
+        if(expressions == null) {
+            return List.of();
+        }
+
+        return expressions.stream()
+            .map(expression -> expression.isStringLiteralExpr() ? expression.asStringLiteralExpr().getValue() : expression.toString())
+            .toList();
+    }
+}
@@ -0,0 +1,267 @@
+package thb.mdsd.model;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Reads a binary API model written by {@link ApiModelWriter}. The file is memory-mapped and read in place: opening it
+ * only checks the structure (header, string offsets, lists and the references of the endpoints and schemas), endpoints
+ * and schemas are decoded when they are accessed and strings are decoded at most once. Truncated or malformed files are
+ * rejected when they are opened.
+ * <p>
+ * Thread-safe. The mapping is released by {@link #close()}, the reader must not be used afterwards.
+ */
+public final class ApiModelReader implements AutoCloseable {
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final long stringOffsetsStart;
+    private final long stringDataStart;
+    private final long endpointsStart;
+    private final long schemasStart;
+    private final long listsStart;
+    private final String[] strings;
+
+    @Getter
+    private final int endpointCount;
+    @Getter
+    private final int schemaCount;
+
+    private ApiModelReader(@NonNull Path file, @NonNull Arena arena, @NonNull MemorySegment segment) throws IOException {
+        this.arena = arena;
+        this.segment = segment;
+
+        if(segment.byteSize() < ApiModelWriter.HEADER_SIZE || this.readInt(0) != ApiModelWriter.MAGIC || this.readInt(4) != ApiModelWriter.VERSION) {
+            throw new IOException("Unsupported API model file: " + file);
+        }
+
+        final int stringCount = this.readInt(8);
+        this.endpointCount = this.readInt(12);
+        this.schemaCount = this.readInt(16);
+        this.stringOffsetsStart = this.readInt(20);
+        this.stringDataStart = this.readInt(24);
+        this.endpointsStart = this.readInt(28);
+        this.schemasStart = this.readInt(32);
+        this.listsStart = this.readInt(36);
+
+        if(stringCount < 0 || this.endpointCount < 0 || this.schemaCount < 0
+            || this.stringOffsetsStart != ApiModelWriter.HEADER_SIZE
+            || this.stringDataStart != this.stringOffsetsStart + (stringCount + 1L) * 4
+            || this.endpointsStart < this.stringDataStart
+            || this.schemasStart != this.endpointsStart + (long) this.endpointCount * ApiModelWriter.ENDPOINT_SIZE
+            || this.listsStart != this.schemasStart + (long) this.schemaCount * ApiModelWriter.SCHEMA_SIZE
+            || this.listsStart > segment.byteSize()
+            || !this.hasValidSections(stringCount)) {
+            throw new IOException("Corrupt API model file: " + file);
+        }
+
+        this.strings = new String[stringCount];
+    }
+
+    /**
+     * Check that the string offsets stay inside the string data, the lists end with the file and the endpoints and
+     * schemas only reference existing strings and lists, so no access can read outside of the file.
+     */
+    private boolean hasValidSections(int stringCount) {
+        long previous = 0;
+        for(int i = 0; i <= stringCount; i++) {
+            final long offset = this.readInt(this.stringOffsetsStart + i * 4L);
+            if(offset < previous || (i == 0 && offset != 0) || this.stringDataStart + offset > this.endpointsStart) return false;
+            previous = offset;
+        }
+
+        final long listCount = (this.segment.byteSize() - this.listsStart) / 4;
+        final BitSet listStarts = new BitSet();
+        long index = 0;
+        while (index < listCount) {
+            final int size = this.readInt(this.listsStart + index * 4);
+            if(size < 0) return false;
+
+            listStarts.set((int) index);
+            index += 1 + size;
+        }
+
+        if(index != listCount || (this.segment.byteSize() - this.listsStart) % 4 != 0) return false;
+
+        for(int i = 0; i < this.endpointCount; i++) {
+            final long position = this.endpointsStart + (long) i * ApiModelWriter.ENDPOINT_SIZE;
+            for(int field : new int[] { 0, 4, 20, 24 }) {
+                if(!isIndex(this.readInt(position + field), stringCount)) return false;
+            }
+
+            for(int field : new int[] { 12, 16, 28 }) {
+                final int list = this.readInt(position + field);
+                if(list < 0 || !listStarts.get(list)) return false;
+            }
+
+            for(int field : new int[] { 12, 16 }) {
+                final long list = this.listsStart + this.readInt(position + field) * 4L;
+                for(int element = 0; element < this.readInt(list); element++) {
+                    if(!isIndex(this.readInt(list + 4 + element * 4L), stringCount)) return false;
+                }
+            }
+        }
+
+        for(int i = 0; i < this.schemaCount; i++) {
+            final long position = this.schemasStart + (long) i * ApiModelWriter.SCHEMA_SIZE;
+            if(!isIndex(this.readInt(position), stringCount) || !isIndex(this.readInt(position + 4), stringCount)) return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isIndex(int index, int size) {
+        return index >= 0 && index < size;
+    }
+
+    /**
+     * Map a model file.
+     * @param file File written by {@link ApiModelWriter}
+     * @return The reader
+     * @throws IOException If the file could not be mapped or has an unknown format
+     */
+    public static ApiModelReader open(@NonNull Path file) throws IOException {
+        final Arena arena = Arena.ofShared();
+        try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ApiModelReader(file, arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException exception) {
+            arena.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * @param index Index between 0 and {@link #getEndpointCount()} - 1, in the order of the writer
+     * @return The endpoint
+     */
+    public ApiEndpoint getEndpoint(int index) {
+        final long position = this.endpointsStart + (long) checkIndex(index, this.endpointCount) * ApiModelWriter.ENDPOINT_SIZE;
+
+        return new ApiEndpoint(
+            this.getString(this.readInt(position)),
+            this.getString(this.readInt(position + 4)),
+            this.readInt(position + 8),
+            this.readStrings(this.readInt(position + 12)),
+            this.readStrings(this.readInt(position + 16)),
+            this.getString(this.readInt(position + 20)),
+            this.getString(this.readInt(position + 24)),
+            this.readList(this.readInt(position + 28))
+        );
+    }
+
+    /**
+     * Decode all endpoints.
+     * @return The endpoints in the order of the writer
+     */
+    public List<ApiEndpoint> getEndpoints() {
+        final List<ApiEndpoint> endpoints = new ArrayList<>(this.endpointCount);
+        for(int i = 0; i < this.endpointCount; i++) {
+            endpoints.add(this.getEndpoint(i));
+        }
+
+        return endpoints;
+    }
+
+    /**
+     * @param index Index between 0 and {@link #getSchemaCount()} - 1, schemas are sorted by name
+     * @return The name of the component schema
+     */
+    public String getSchemaName(int index) {
+        return this.getString(this.readInt(this.schemasStart + (long) checkIndex(index, this.schemaCount) * ApiModelWriter.SCHEMA_SIZE));
+    }
+
+    /**
+     * @param index Index between 0 and {@link #getSchemaCount()} - 1, schemas are sorted by name
+     * @return The JSON of the component schema
+     */
+    public String getSchema(int index) {
+        return this.getString(this.readInt(this.schemasStart + (long) checkIndex(index, this.schemaCount) * ApiModelWriter.SCHEMA_SIZE + 4));
+    }
+
+    /**
+     * Find a component schema by its name with a binary search.
+     * @param name Name of the schema
+     * @return The JSON of the schema or null if there is no schema with this name
+     */
+    public String findSchema(@NonNull String name) {
+        int low = 0, high = this.schemaCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = this.getSchemaName(middle).compareTo(name);
+
+            if(comparison == 0) return this.getSchema(middle);
+            if(comparison < 0) low = middle + 1;
+            else high = middle - 1;
+        }
+
+        return null;
+    }
+
+    private String getString(int id) {
+        String string = this.strings[checkIndex(id, this.strings.length)];
+        if(string == null) {
+            final long start = this.readInt(this.stringOffsetsStart + id * 4L);
+            final long end = this.readInt(this.stringOffsetsStart + id * 4L + 4);
+
+            string = new String(this.segment.asSlice(this.stringDataStart + start, end - start).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+            this.strings[id] = string;  // Racing threads decode the same string
+        }
+
+        return string;
+    }
+
+    private List<String> readStrings(int index) {
+        final long position = this.listsStart + index * 4L;
+        final String[] values = new String[this.readInt(position)];
+
+        for(int i = 0; i < values.length; i++) {
+            values[i] = this.getString(this.readInt(position + 4 + i * 4L));
+        }
+
+        return List.of(values);
+    }
+
+    private List<Integer> readList(int index) {
+        final long position = this.listsStart + index * 4L;
+        final int size = this.readInt(position);
+        final Integer[] values = new Integer[size];
+
+        for(int i = 0; i < size; i++) {
+            values[i] = this.readInt(position + 4 + i * 4L);
+        }
+
+        return List.of(values);
+    }
+
+    private int readInt(long position) {
+        return this.segment.get(INT, position);
+    }
+
+    private static int checkIndex(int index, int size) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+
+        return index;
+    }
+
+    @Override
+    public void close() {
+        this.arena.close();
+    }
+}
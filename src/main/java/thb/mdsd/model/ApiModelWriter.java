@@ -0,0 +1,140 @@
+package thb.mdsd.model;
+
+import lombok.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes the binary API model read by {@link ApiModelReader}. All numbers are big-endian ints, all strings are stored
+ * once in a string table and referenced by their id. The sections can be read in place without parsing:
+ * <pre>
+ * header     magic "SWGM", version, string count, endpoint count, schema count,
+ *            offsets of the string offsets, string data, endpoints, schemas and lists (absolute positions in the file)
+ * strings    string count + 1 offsets into the string data, string i spans [offset i, offset i + 1)
+ *            followed by the UTF-8 data of all strings, padded to 4 bytes
+ * endpoints  8 ints per endpoint: method, path, status, consumes, produces, controller, handler, error statuses
+ * schemas    2 ints per schema sorted by name: name, JSON
+ * lists      ints: size followed by the elements, referenced by the index of their size
+ * </pre>
+ */
+public final class ApiModelWriter {
+
+    static final int MAGIC = 0x5357474D;  // "SWGM"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+    static final int ENDPOINT_SIZE = 32;
+    static final int SCHEMA_SIZE = 8;
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final List<Integer> lists = new ArrayList<>(List.of(0));  // 0 is the empty list
+    private final Map<List<Integer>, Integer> listIndexes = new HashMap<>(Map.of(List.of(), 0));
+
+    private ApiModelWriter() { }
+
+    /**
+     * Serialize an API model.
+     * @param endpoints Endpoints in the order they are read
+     * @param schemas JSON of the component schemas by name
+     * @return The model file
+     */
+    public static byte[] write(@NonNull List<ApiEndpoint> endpoints, @NonNull Map<String, String> schemas) {
+        try {
+            return new ApiModelWriter().serialize(endpoints, new TreeMap<>(schemas));
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);  // Not thrown by the in-memory stream
+        }
+    }
+
+    private byte[] serialize(@NonNull List<ApiEndpoint> endpoints, @NonNull SortedMap<String, String> schemas) throws IOException {
+        final int[] endpointData = new int[endpoints.size() * ENDPOINT_SIZE / 4];
+        int position = 0;
+
+        for(ApiEndpoint endpoint : endpoints) {
+            endpointData[position++] = this.string(endpoint.method());
+            endpointData[position++] = this.string(endpoint.path());
+            endpointData[position++] = endpoint.status();
+            endpointData[position++] = this.list(endpoint.consumes().stream().map(this::string).toList());
+            endpointData[position++] = this.list(endpoint.produces().stream().map(this::string).toList());
+            endpointData[position++] = this.string(endpoint.controller());
+            endpointData[position++] = this.string(endpoint.handler());
+            endpointData[position++] = this.list(endpoint.errorStatuses());
+        }
+
+        final int[] schemaData = new int[schemas.size() * SCHEMA_SIZE / 4];
+        position = 0;
+        for(Map.Entry<String, String> schema : schemas.entrySet()) {
+            schemaData[position++] = this.string(schema.getKey());
+            schemaData[position++] = this.string(schema.getValue());
+        }
+
+        final ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+        final int[] stringOffsets = new int[this.strings.size() + 1];
+        for(int i = 0; i < this.strings.size(); i++) {
+            stringData.writeBytes(this.strings.get(i).getBytes(StandardCharsets.UTF_8));
+            stringOffsets[i + 1] = stringData.size();
+        }
+        while (stringData.size() % 4 != 0) {
+            stringData.write(0);
+        }
+
+        final int stringOffsetsStart = HEADER_SIZE;
+        final int stringDataStart = stringOffsetsStart + stringOffsets.length * 4;
+        final int endpointsStart = stringDataStart + stringData.size();
+        final int schemasStart = endpointsStart + endpointData.length * 4;
+        final int listsStart = schemasStart + schemaData.length * 4;
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(listsStart + this.lists.size() * 4);
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(this.strings.size());
+        output.writeInt(endpoints.size());
+        output.writeInt(schemas.size());
+        output.writeInt(stringOffsetsStart);
+        output.writeInt(stringDataStart);
+        output.writeInt(endpointsStart);
+        output.writeInt(schemasStart);
+        output.writeInt(listsStart);
+
+        writeInts(output, stringOffsets);
+        stringData.writeTo(output);
+        writeInts(output, endpointData);
+        writeInts(output, schemaData);
+        for(int value : this.lists) {
+            output.writeInt(value);
+        }
+
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private int string(@NonNull String string) {
+        return this.stringIds.computeIfAbsent(string, _ -> {
+            this.strings.add(string);
+            return this.strings.size() - 1;
+        });
+    }
+
+    /**
+     * Add a list of ints, equal lists are only stored once.
+     * @return The index of the list
+     */
+    private int list(@NonNull List<Integer> values) {
+        return this.listIndexes.computeIfAbsent(List.copyOf(values), _ -> {
+            this.lists.add(values.size());
+            this.lists.addAll(values);
+            return this.lists.size() - values.size() - 1;
+        });
+    }
+
+    private static void writeInts(@NonNull DataOutputStream output, int @NonNull [] values) throws IOException {
+        for(int value : values) {
+            output.writeInt(value);
+        }
+    }
+}
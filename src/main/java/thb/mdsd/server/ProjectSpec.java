@@ -0,0 +1,88 @@
+package thb.mdsd.server;
+
+import lombok.Getter;
+import lombok.NonNull;
+import thb.mdsd.spring.SpringBootExtractor;
+import thb.mdsd.swagger.SwaggerAPIExport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a warm {@link SpringBootExtractor} for one project and the rendered documentation of its last extraction.
+ * The project is only extracted again after its sources changed.
+ */
+public class ProjectSpec implements Closeable {
+
+    @Getter
+    private final String name;
+    private final SpringBootExtractor extractor;
+    private final SourceWatcher sourceWatcher;
+
+    private volatile RenderedSpec renderedSpec;
+    private volatile boolean dirty = true;
+
+    public ProjectSpec(@NonNull String name, @NonNull String projectPath, @NonNull Consumer<SpringBootExtractor> extractorConfigurer) throws IOException {
+        this.name = name;
+        this.extractor = new SpringBootExtractor(projectPath);
+        extractorConfigurer.accept(this.extractor);
+        this.sourceWatcher = new SourceWatcher(Path.of(projectPath));
+    }
+
+    /**
+     * Get the rendered documentation, extracting the project again if its sources changed.
+     * If a re-extraction fails, the previous documentation is served until the sources change again.
+     * While a re-extraction is running, other requests get the previous documentation, before the first successful
+     * extraction they wait for it.
+     * @return The current documentation, never null
+     * @throws IOException If the sources could not be watched
+     * @throws RuntimeException If the project has never been extracted successfully
+     */
+    public RenderedSpec getSpec() throws IOException {
+        if(this.sourceWatcher.pollChanges()) {
+            this.dirty = true;
+        }
+
+        final RenderedSpec spec = this.renderedSpec;
+        if(this.dirty || spec == null) {
+            return this.refresh();
+        }
+
+        return spec;
+    }
+
+    private synchronized RenderedSpec refresh() {
+        if(!this.dirty && this.renderedSpec != null) {
+            return this.renderedSpec;
+        }
+
+        // Cleared before extracting, so changes during the extraction trigger another one
+        this.dirty = false;
+
+        try {
+            this.extractor.startExtracting();
+            this.renderedSpec = RenderedSpec.of(new SwaggerAPIExport(this.extractor).createDocument());
+
+            if(this.extractor.getUnitCacheStatistics() != null) {
+                System.out.println("Projekt " + this.name + " extrahiert, Cache: " + this.extractor.getUnitCacheStatistics());
+            }
+        } catch (RuntimeException exception) {
+            if(this.renderedSpec == null) {
+                this.dirty = true;
+                throw exception;
+            }
+
+            System.err.println("Could not extract project " + this.name + ", serving previous documentation: " + exception.getMessage());
+        }
+
+        return this.renderedSpec;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.sourceWatcher.close();
+        this.extractor.dispose();
+    }
+}
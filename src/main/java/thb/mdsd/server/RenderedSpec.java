@@ -0,0 +1,20 @@
+package thb.mdsd.server;
+
+import lombok.NonNull;
+import thb.mdsd.util.HashUtils;
+import thb.mdsd.util.JsonWriter;
+import thb.mdsd.util.YamlHelper;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pre-rendered representations of one Swagger document together with their strong ETags.
+ */
+public record RenderedSpec(byte @NonNull [] yaml, @NonNull String yamlETag, byte @NonNull [] json, @NonNull String jsonETag) {
+
+    public static RenderedSpec of(@NonNull YamlHelper document) {
+        final byte[] yaml = document.dump().getBytes(StandardCharsets.UTF_8);
+        final byte[] json = JsonWriter.write(document.getCanonicalData()).getBytes(StandardCharsets.UTF_8);
+        return new RenderedSpec(yaml, "\"" + HashUtils.sha256(yaml) + "\"", json, "\"" + HashUtils.sha256(json) + "\"");
+    }
+}
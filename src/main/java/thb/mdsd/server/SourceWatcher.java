@@ -0,0 +1,77 @@
+package thb.mdsd.server;
+
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a project directory recursively and reports whether any java source changed since the last poll.
+ */
+public class SourceWatcher implements Closeable {
+
+    private final WatchService watchService;
+
+    public SourceWatcher(@NonNull Path root) throws IOException {
+        this.watchService = root.getFileSystem().newWatchService();
+        this.registerAll(root);
+    }
+
+    private void registerAll(@NonNull Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                if(!directory.equals(start) && directory.getFileName().toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Drain all pending file system events without blocking.
+     * @return True if a java source (or a directory that may contain sources) was created, modified or deleted
+     * @throws IOException If a newly created directory could not be registered
+     */
+    public synchronized boolean pollChanges() throws IOException {
+        boolean changed = false;
+
+        WatchKey key;
+        while ((key = this.watchService.poll()) != null) {
+            final Path directory = (Path) key.watchable();
+
+            for(WatchEvent<?> event : key.pollEvents()) {
+                if(event.kind() == OVERFLOW) {
+                    changed = true;
+                    continue;
+                }
+
+                final Path child = directory.resolve((Path) event.context());
+                final String name = child.getFileName().toString();
+
+                if(event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                    this.registerAll(child);
+                    changed = true;
+                } else if(name.endsWith(".java") || (event.kind() == ENTRY_DELETE && !name.contains("."))) {
+                    changed = true;
+                }
+            }
+
+            key.reset();
+        }
+
+        return changed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.watchService.close();
+    }
+}
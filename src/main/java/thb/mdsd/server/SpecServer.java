@@ -0,0 +1,180 @@
+package thb.mdsd.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.NonNull;
+import thb.mdsd.spring.SpringBootExtractor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Small HTTP server that serves the Swagger documentation of one or more projects.
+ * <ul>
+ *     <li>{@code /<project>/openapi.yaml} and {@code /<project>/openapi.json}</li>
+ *     <li>{@code /openapi.yaml} and {@code /openapi.json} if exactly one project is configured</li>
+ * </ul>
+ * Responses carry a strong ETag and are answered with 304 if the client already has the current version.
+ */
+public class SpecServer implements Closeable {
+
+    private static final String YAML_FILE = "openapi.yaml";
+    private static final String JSON_FILE = "openapi.json";
+
+    private final Map<String, ProjectSpec> projects = new LinkedHashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Create the server and extract all projects once, so the first request is already served from memory.
+     * @param address Address to bind to
+     * @param projectPaths Project name mapped to the project directory
+     * @param extractorConfigurer Applied to the {@link SpringBootExtractor} of every project
+     * @throws IOException If the server could not be bound or a project could not be watched
+     */
+    public SpecServer(@NonNull InetSocketAddress address, @NonNull Map<String, String> projectPaths, @NonNull Consumer<SpringBootExtractor> extractorConfigurer) throws IOException {
+        for(Map.Entry<String, String> entry : projectPaths.entrySet()) {
+            final ProjectSpec projectSpec = new ProjectSpec(entry.getKey(), entry.getValue(), extractorConfigurer);
+            this.projects.put(entry.getKey(), projectSpec);
+
+            try {
+                projectSpec.getSpec();
+            } catch (RuntimeException exception) {
+                System.err.println("Could not extract project " + entry.getKey() + ": " + exception.getMessage());
+            }
+        }
+
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(this.executorService);
+    }
+
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Block the calling thread until {@link #close()} was called.
+     * @throws InterruptedException If the thread was interrupted while waiting
+     */
+    public void awaitTermination() throws InterruptedException {
+        this.stopped.await();
+    }
+
+    private void handle(@NonNull HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final String method = exchange.getRequestMethod();
+            if(!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendText(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            final String[] segments = exchange.getRequestURI().getPath().substring(1).split("/");
+            final ProjectSpec projectSpec;
+            final String fileName;
+
+            if(segments.length == 1 && this.projects.size() == 1) {
+                projectSpec = this.projects.values().iterator().next();
+                fileName = segments[0];
+            } else if(segments.length == 2) {
+                projectSpec = this.projects.get(segments[0]);
+                fileName = segments[1];
+            } else {
+                projectSpec = null;
+                fileName = null;
+            }
+
+            if(projectSpec == null || !(YAML_FILE.equals(fileName) || JSON_FILE.equals(fileName))) {
+                sendText(exchange, 404, "Not found");
+                return;
+            }
+
+            final RenderedSpec spec;
+            try {
+                spec = projectSpec.getSpec();
+            } catch (RuntimeException exception) {
+                sendText(exchange, 500, "Could not extract project " + projectSpec.getName() + ": " + exception.getMessage());
+                return;
+            }
+
+            final boolean json = fileName.equals(JSON_FILE);
+            final byte[] body = json ? spec.json() : spec.yaml();
+            final String eTag = json ? spec.jsonETag() : spec.yamlETag();
+
+            exchange.getResponseHeaders().set("Content-Type", json ? "application/json; charset=utf-8" : "application/yaml; charset=utf-8");
+            exchange.getResponseHeaders().set("ETag", eTag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+
+            if(matchesETag(exchange.getRequestHeaders().getFirst("If-None-Match"), eTag)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            if(method.equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        }
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, @NonNull String eTag) {
+        if(ifNoneMatch == null) {
+            return false;
+        }
+
+        for(String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if(value.equals("*")) {
+                return true;
+            }
+
+            if(value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+
+            if(value.equals(eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void sendText(@NonNull HttpExchange exchange, int status, @NonNull String message) throws IOException {
+        final byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (final OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.server.stop(0);
+        this.executorService.close();
+
+        for(ProjectSpec projectSpec : this.projects.values()) {
+            projectSpec.close();
+        }
+
+        this.stopped.countDown();
+    }
+}
@@ -0,0 +1,102 @@
+package thb.mdsd.spring;
+
+import javassist.bytecode.ClassFile;
+import lombok.Getter;
+import lombok.NonNull;
+import thb.mdsd.spring.classpath.ClassPathIndex;
+import thb.mdsd.spring.diagnostics.DiagnosticCollector;
+import thb.mdsd.spring.extractor.CacheStatistics;
+import thb.mdsd.spring.extractor.CompilationUnitCache;
+import thb.mdsd.spring.extractor.JavaFile;
+import thb.mdsd.spring.query.JavaFileIndex;
+import thb.mdsd.spring.query.JavaFileQuery;
+import thb.mdsd.spring.query.SymbolTable;
+
+import java.util.List;
+
+/**
+ * Immutable result of one extraction run. A snapshot is never changed after it was published by the
+ * {@link SpringBootExtractor}, so any number of threads (UI, exporters, server) can query it at the same time.
+ * A re-extraction publishes a new snapshot, readers that still hold the old one are not affected: the snapshot keeps
+ * the class path index and the type solvers of its run and collects the diagnostics of its readers separately.
+ * <p>
+ * Symbol resolution on the ASTs of the files is not thread-safe and is serialized by its callers.
+ */
+public final class ExtractionSnapshot {
+
+    /**
+     * Number of the extraction run of the extractor, starting with 1
+     */
+    @Getter
+    private final long version;
+
+    /**
+     * All extracted files in extraction order, unmodifiable
+     */
+    @Getter
+    private final List<JavaFile> files;
+    private final JavaFileIndex fileIndex;
+    private final CompilationUnitCache unitCache;
+
+    /**
+     * Index of compiled classes the run resolved types with, null if none was configured
+     */
+    @Getter
+    private final ClassPathIndex classPathIndex;
+
+    /**
+     * Problems of the extraction run and of everything derived from this snapshot (endpoints, exports)
+     */
+    @Getter
+    private final DiagnosticCollector diagnostics;
+
+    ExtractionSnapshot(long version, @NonNull List<JavaFile> files, CompilationUnitCache unitCache, @NonNull SymbolTable symbols, ClassPathIndex classPathIndex, @NonNull DiagnosticCollector diagnostics) {
+        this.version = version;
+        this.files = List.copyOf(files);
+        this.fileIndex = new JavaFileIndex(this.files, symbols);
+        this.unitCache = unitCache;
+        this.classPathIndex = classPathIndex;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Run a query against the files of this snapshot.
+     * @param query Query built from {@link JavaFileQuery} predicates
+     * @return A list of unique {@link JavaFile} references that match the query, in extraction order
+     */
+    public List<JavaFile> find(@NonNull JavaFileQuery query) {
+        return this.fileIndex.find(query);
+    }
+
+    /**
+     * Find a specific Class declaration by its name and package declaration.
+     * @param className Class name
+     * @param packageName Package name
+     * @return {@link JavaFile} if found, otherwise null.
+     */
+    public JavaFile findClass(@NonNull String className, @NonNull String packageName) {
+        return this.fileIndex.findClass(className, packageName);
+    }
+
+    /**
+     * Find a compiled class in the {@link ClassPathIndex} of this snapshot.
+     * @param className Class name
+     * @param packageName Package name
+     * @return The class file if the snapshot has a class path index that contains the class, otherwise null.
+     */
+    public ClassFile findClassFile(@NonNull String className, @NonNull String packageName) {
+        if(this.classPathIndex == null) {
+            return null;
+        }
+
+        return this.classPathIndex.readClassFile(packageName.isEmpty() ? className : packageName + "." + className);
+    }
+
+    /**
+     * Get the hit/miss/eviction counts of the compilation unit cache.
+     * @return The statistics or null if no cache size is configured
+     */
+    public CacheStatistics getUnitCacheStatistics() {
+        return this.unitCache == null ? null : this.unitCache.getStatistics();
+    }
+}
@@ -0,0 +1,136 @@
+package thb.mdsd.spring;
+
+import lombok.Getter;
+import lombok.NonNull;
+import thb.mdsd.spring.extractor.JavaFile;
+
+import java.io.File;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Per-file limits of one extraction run. Files above the size limit are not parsed at all, parses that exceed
+ * the time limit are abandoned: they run on a separate daemon thread, which is left behind on a timeout and
+ * replaced for the next file. JavaParser can not be interrupted, so an abandoned parse still finishes in the background.
+ * <p>
+ * The parse times of the largest completed parses are used to estimate what the files above the size limit would
+ * have cost. Small files are left out, their fixed overhead per parse would distort the estimate for large files.
+ */
+final class ParseBudget implements AutoCloseable {
+
+    enum Reason { SIZE, TIME }
+
+    record Skip(@NonNull Reason reason, long size) { }
+
+    private record Sample(long size, long nanos) { }
+
+    /**
+     * Number of completed parses the estimate is based on
+     */
+    private static final int SAMPLES = 8;
+
+    @Getter
+    private final long maxFileSize;
+    @Getter
+    private final long maxParseMillis;
+
+    /**
+     * Files that exceeded a limit, in extraction order
+     */
+    @Getter
+    private final Map<File, Skip> skippedFiles = new LinkedHashMap<>();
+    /**
+     * Largest completed parses, smallest first
+     */
+    private final PriorityQueue<Sample> samples = new PriorityQueue<>(Comparator.comparingLong(Sample::size));
+    private ExecutorService executor;
+
+    /**
+     * @param maxFileSize Maximum file size in bytes, 0 for no limit
+     * @param maxParseMillis Maximum parse time in milliseconds, 0 for no limit
+     */
+    ParseBudget(long maxFileSize, long maxParseMillis) {
+        this.maxFileSize = maxFileSize;
+        this.maxParseMillis = maxParseMillis;
+    }
+
+    boolean exceedsSize(@NonNull File file, long size) {
+        if(this.maxFileSize > 0 && size > this.maxFileSize) {
+            this.skippedFiles.put(file, new Skip(Reason.SIZE, size));
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Run a parse within the time limit.
+     * @param file Parsed file
+     * @param size Size of the file in bytes
+     * @param parser Parses the file
+     * @return The parsed file or null if the time limit was exceeded
+     */
+    JavaFile parse(@NonNull File file, long size, @NonNull Supplier<JavaFile> parser) {
+        final long start = System.nanoTime();
+        final JavaFile javaFile;
+
+        if(this.maxParseMillis <= 0) {
+            javaFile = parser.get();
+        } else {
+            if(this.executor == null) {
+                this.executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("parse-budget").factory());
+            }
+
+            final Future<JavaFile> future = this.executor.submit(parser::get);
+            try {
+                javaFile = future.get(this.maxParseMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException exception) {
+                future.cancel(true);
+                this.executor.shutdownNow();
+                this.executor = null;
+                this.skippedFiles.put(file, new Skip(Reason.TIME, size));
+                return null;
+            } catch (ExecutionException exception) {
+                if(exception.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+                if(exception.getCause() instanceof Error error) throw error;
+                throw new RuntimeException(exception.getCause());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(exception);
+            }
+        }
+
+        this.samples.add(new Sample(size, System.nanoTime() - start));
+        if(this.samples.size() > SAMPLES) {
+            this.samples.poll();
+        }
+
+        return javaFile;
+    }
+
+    /**
+     * Estimate the parse time of a file from the throughput of the largest files parsed so far.
+     * Only meaningful for files skipped because of their size, a file that exceeded the time limit is known to take longer.
+     */
+    String estimate(long size) {
+        long sampledBytes = 0;
+        long sampledNanos = 0;
+        for(Sample sample : this.samples) {
+            sampledBytes += sample.size();
+            sampledNanos += sample.nanos();
+        }
+
+        return sampledBytes == 0 ? "unknown" : "~" + Math.round((double) size * sampledNanos / sampledBytes / 1_000_000) + " ms";
+    }
+
+    @Override
+    public void close() {
+        if(this.executor != null) {
+            this.executor.shutdown();
+        }
+    }
+}
@@ -1,31 +1,106 @@
 package thb.mdsd.spring;
 
-import com.github.javaparser.ast.ImportDeclaration;
-import com.github.javaparser.ast.NodeList;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.expr.*;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
+import thb.mdsd.incremental.ExtractionState;
+import thb.mdsd.spring.classpath.ClassPathIndex;
 import thb.mdsd.spring.data.AnnotationRegistry;
-import thb.mdsd.spring.data.AnnotationValueRegistry;
 import thb.mdsd.spring.data.CommonAnnotationNameRegistry;
-import thb.mdsd.spring.data.HttpStatus;
+import thb.mdsd.spring.diagnostics.DiagnosticCollector;
+import thb.mdsd.spring.diagnostics.DiagnosticStage;
+import thb.mdsd.spring.extractor.container.ControllerRoute;
 import thb.mdsd.spring.extractor.container.JavaClassAnnotationContainer;
+import thb.mdsd.spring.extractor.CacheStatistics;
+import thb.mdsd.spring.extractor.CompilationUnitCache;
 import thb.mdsd.spring.extractor.JavaFile;
+import thb.mdsd.spring.extractor.JavaFileSummary;
+import thb.mdsd.spring.extractor.TypeSolverProvider;
 import thb.mdsd.spring.extractor.container.JavaMethodAnnotationContainer;
 import thb.mdsd.spring.extractor.container.SpringPathContainer;
+import thb.mdsd.spring.mapping.HttpStatusResolver;
+import thb.mdsd.spring.mapping.MappingAnnotation;
+import thb.mdsd.spring.mapping.RequestMappingInfo;
+import thb.mdsd.spring.mapping.RouteTrie;
+import thb.mdsd.spring.query.JavaFileQuery;
+import thb.mdsd.spring.query.SymbolTable;
 import thb.mdsd.util.PathUtils;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SpringBootExtractor {
 
     @Getter
     private final String path;
-    private List<JavaFile> containerList;
+
+    /**
+     * Result of the last extraction, replaced atomically by every extraction run. Readers that need a consistent view
+     * over several queries should use {@link #getSnapshot()} once instead of the query methods of the extractor.
+     */
+    private final AtomicReference<ExtractionSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong snapshotVersion = new AtomicLong();
+
+    /**
+     * Names of all extraction runs, so the indexes of consecutive snapshots share their symbol ids
+     */
+    private final SymbolTable symbolTable = new SymbolTable();
+
+    /**
+     * Optional index of compiled classes and dependency jars, used to resolve types that have no source in the project.
+     * Every snapshot keeps the index of its run. The extractor releases the index in {@link #dispose()}, snapshots that
+     * still use it then read the jar files without keeping them open.
+     */
+    @Getter
+    @Setter
+    private ClassPathIndex classPathIndex;
+
+    /**
+     * Maximum number of parsed {@link com.github.javaparser.ast.CompilationUnit}s kept in memory. 0 keeps all of them (default).
+     * With a limit only lightweight metadata stays resident and evicted units are parsed again on demand.
+     */
+    @Getter
+    @Setter
+    private int unitCacheSize;
+
+    /**
+     * Files larger than this many bytes are not parsed, they are only scanned lexically (see {@link JavaFileSummary#scan(String)})
+     * and reported in {@link #getDiagnostics()} with an estimate of their parse time. 0 disables the limit (default).
+     */
+    @Getter
+    @Setter
+    private long maxFileSize;
+
+    /**
+     * Files that take longer than this many milliseconds to parse are downgraded to a lexical scan, so neither the parse
+     * nor the symbol resolution on their AST holds up the run. 0 disables the limit (default).
+     */
+    @Getter
+    @Setter
+    private long maxParseMillis;
+
+    /**
+     * In tolerant mode files that can not be read or parsed and endpoints that can not be extracted are skipped
+     * and reported in {@link #getDiagnostics()} instead of aborting the whole run.
+     */
+    @Getter
+    @Setter
+    private boolean tolerant;
+
+    /**
+     * Problems of the last extraction run, also if it failed. Warnings (e.g. partially parsed files) are collected in both modes,
+     * errors only in tolerant mode. Every run starts a new collector, which is the one of its snapshot, see {@link ExtractionSnapshot#getDiagnostics()}.
+     */
+    @Getter
+    private volatile DiagnosticCollector diagnostics = new DiagnosticCollector();
 
     public SpringBootExtractor(@NonNull String path) {
         if(!PathUtils.isPath(path)) {
@@ -33,7 +108,6 @@ public class SpringBootExtractor {
         }
 
         this.path = path;
-        this.containerList = null;
     }
 
     /**
@@ -41,27 +115,168 @@ public class SpringBootExtractor {
      */
     public void startExtracting() {
         final List<JavaFile> containerList = new LinkedList<>();
+        final CompilationUnitCache unitCache = this.unitCacheSize > 0 ? new CompilationUnitCache(this.unitCacheSize) : null;
+        final ClassPathIndex classPathIndex = this.classPathIndex;
+        final TypeSolverProvider typeSolverProvider = new TypeSolverProvider(classPathIndex, this.unitCacheSize > 0 ? this.unitCacheSize : -1);
+        final DiagnosticCollector diagnostics = new DiagnosticCollector();
+
+        this.diagnostics = diagnostics;
+        try(final ParseBudget parseBudget = new ParseBudget(this.maxFileSize, this.maxParseMillis)) {
+            PathUtils.extractRecursively(this.path).forEach(file -> this.addFile(containerList, file, typeSolverProvider, unitCache, parseBudget, diagnostics));
+            reportSkippedFiles(parseBudget, diagnostics);
+        }
 
-        PathUtils.extractRecursively(this.path).forEach(file -> {
-            try(final FileInputStream fileInputStream = new FileInputStream(file)) {
-                final byte[] data = fileInputStream.readAllBytes();
-                final JavaFile container = new JavaFile(file, new String(data, StandardCharsets.UTF_8));
-                containerList.addLast(container);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+        this.publish(containerList, unitCache, classPathIndex, diagnostics);
+    }
+
+    /**
+     * Start an incremental extraction on top of a previous extraction of the same project.
+     * Files that are not listed as changed are taken from the state without being read or parsed,
+     * their {@link com.github.javaparser.ast.CompilationUnit} is only parsed if the export needs it.
+     * @param previousState State of the previous extraction, see {@link #getExtractionState(String)}
+     * @param changedFiles Changed, added or deleted files relative to the project path, separated by "/"
+     */
+    public void startExtracting(@NonNull ExtractionState previousState, @NonNull Set<String> changedFiles) {
+        final List<JavaFile> containerList = new LinkedList<>();
+        final CompilationUnitCache unitCache = this.unitCacheSize > 0 ? new CompilationUnitCache(this.unitCacheSize) : null;
+        final ClassPathIndex classPathIndex = this.classPathIndex;
+        final TypeSolverProvider typeSolverProvider = new TypeSolverProvider(classPathIndex, this.unitCacheSize > 0 ? this.unitCacheSize : -1);
+        final DiagnosticCollector diagnostics = new DiagnosticCollector();
+        final Path root = Path.of(this.path);
+
+        this.diagnostics = diagnostics;
+        previousState.files().forEach((relativePath, summary) -> {
+            if(changedFiles.contains(relativePath)) return;
+
+            final File file = root.resolve(relativePath).toFile();
+            containerList.addLast(new JavaFile(file, summary, typeSolverProvider.getTypeSolver(file), unitCache));
         });
 
-        this.containerList = containerList;
+        try(final ParseBudget parseBudget = new ParseBudget(this.maxFileSize, this.maxParseMillis)) {
+            for(String relativePath : changedFiles) {
+                final File file = root.resolve(relativePath).toFile();
+                if(!relativePath.endsWith(".java") || !file.isFile()) continue;  // Deleted files
+
+                this.addFile(containerList, file, typeSolverProvider, unitCache, parseBudget, diagnostics);
+            }
+
+            reportSkippedFiles(parseBudget, diagnostics);
+        }
+        this.publish(containerList, unitCache, classPathIndex, diagnostics);
+    }
+
+    /**
+     * Replace the current snapshot. Readers of the previous snapshot keep using it undisturbed.
+     */
+    private void publish(@NonNull List<JavaFile> containerList, CompilationUnitCache unitCache, ClassPathIndex classPathIndex, @NonNull DiagnosticCollector diagnostics) {
+        this.snapshot.set(new ExtractionSnapshot(this.snapshotVersion.incrementAndGet(), containerList, unitCache, this.symbolTable, classPathIndex, diagnostics));
     }
 
     /**
-     * Little helper method that checks if this instance has already extracted all data from target directory.
+     * Get the result of the last extraction. The snapshot is immutable and stays valid after a re-extraction or {@link #dispose()}.
+     * @return The current snapshot
+     * @throws RuntimeException If #startExtraction was not called before.
      */
-    private void checkExtracted() {
-        if(this.containerList == null) {
+    public ExtractionSnapshot getSnapshot() {
+        final ExtractionSnapshot snapshot = this.snapshot.get();
+        if(snapshot == null) {
             throw new RuntimeException("Extraction results not found. Please call #startExtracting() before using this method.");
         }
+
+        return snapshot;
+    }
+
+    /**
+     * Read and parse a file and append it to the container list. Files that exceed the parse budget are added with a
+     * lexical summary. In tolerant mode failures are reported as diagnostics.
+     * Stops the extraction if the extracting thread was interrupted, e.g. because the extraction was discarded.
+     */
+    private void addFile(@NonNull List<JavaFile> containerList, @NonNull File file, @NonNull TypeSolverProvider typeSolverProvider, CompilationUnitCache unitCache, @NonNull ParseBudget parseBudget, @NonNull DiagnosticCollector diagnostics) {
+        if(Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Extraction of " + this.path + " was interrupted");
+        }
+
+        final String data;
+        final long size;
+        try {
+            final byte[] bytes = Files.readAllBytes(file.toPath());
+            data = new String(bytes, StandardCharsets.UTF_8);
+            size = bytes.length;
+        } catch (IOException exception) {
+            if(!this.tolerant) {
+                throw new RuntimeException(exception);
+            }
+
+            diagnostics.error(DiagnosticStage.READ, file.getPath(), exception);
+            return;
+        }
+
+        try {
+            final JavaFile container = parseBudget.exceedsSize(file, size) ? null
+                : parseBudget.parse(file, size, () -> new JavaFile(file, data, typeSolverProvider.getTypeSolver(file), unitCache));
+
+            if(container == null) {
+                containerList.addLast(new JavaFile(file, JavaFileSummary.scan(data), typeSolverProvider.getTypeSolver(file), unitCache));
+                return;
+            }
+
+            if(!container.getParseProblems().isEmpty()) {
+                final String problem = container.getParseProblems().getFirst().lines().findFirst().orElse("");
+                diagnostics.warning(DiagnosticStage.PARSE, file.getPath(), container.getParseProblems().size() + " problem(s), using partial result: "
+                    + (problem.length() > 160 ? problem.substring(0, 160) + "..." : problem));
+            }
+
+            containerList.addLast(container);
+        } catch (RuntimeException | StackOverflowError exception) {
+            if(!this.tolerant) {
+                throw exception;
+            }
+
+            diagnostics.error(DiagnosticStage.PARSE, file.getPath(), exception);
+        }
+    }
+
+    /**
+     * Report the files that exceeded the parse budget, once the throughput of the run is known.
+     */
+    private static void reportSkippedFiles(@NonNull ParseBudget parseBudget, @NonNull DiagnosticCollector diagnostics) {
+        parseBudget.getSkippedFiles().forEach((file, skip) -> diagnostics.warning(DiagnosticStage.PARSE, file.getPath(), switch (skip.reason()) {
+            case SIZE -> "File size budget exceeded (" + skip.size() + " bytes > " + parseBudget.getMaxFileSize() + " bytes), using lexical scan, estimated parse time " + parseBudget.estimate(skip.size());
+            case TIME -> "Parse time budget exceeded (> " + parseBudget.getMaxParseMillis() + " ms), using lexical scan";
+        }));
+    }
+
+    /**
+     * Capture the summaries of all extracted files (without routes), so a later run can use {@link #startExtracting(ExtractionState, Set)}.
+     * @param commit Commit the extracted sources belong to
+     * @return The extraction state
+     * @throws RuntimeException If #startExtraction was not called before.
+     */
+    public ExtractionState getExtractionState(@NonNull String commit) {
+        final Map<String, JavaFileSummary> files = new LinkedHashMap<>();
+        for(JavaFile container : getSnapshot().getFiles()) {
+            files.put(getRelativePath(container), container.getSummary());
+        }
+
+        return new ExtractionState(commit, files, Map.of());
+    }
+
+    /**
+     * @param javaFileContainer An extracted file
+     * @return The path of the file relative to the project path, separated by "/"
+     */
+    public String getRelativePath(@NonNull JavaFile javaFileContainer) {
+        final Path root = Path.of(this.path).toAbsolutePath().normalize();
+        return root.relativize(javaFileContainer.getReference().toPath().toAbsolutePath().normalize()).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Get the hit/miss/eviction counts of the compilation unit cache.
+     * @return The statistics or null if no cache size is configured or nothing was extracted yet
+     */
+    public CacheStatistics getUnitCacheStatistics() {
+        final ExtractionSnapshot snapshot = this.snapshot.get();
+        return snapshot == null ? null : snapshot.getUnitCacheStatistics();
     }
 
     /**
@@ -69,7 +284,7 @@ public class SpringBootExtractor {
      * @return True if the instance has extracted all data, otherwise false.
      */
     public boolean hasExtracted() {
-        return this.containerList != null;
+        return this.snapshot.get() != null;
     }
 
     /**
@@ -77,40 +292,20 @@ public class SpringBootExtractor {
      * @param commonNames Required list of common annotation name to find.
      * @param importRegistry Optional list of import registry names. "null" disables this check.
      * @throws RuntimeException If #startExtraction was not called before.
-     * @return A list of {@link JavaFile} references that match all conditions
+     * @return A list of unique {@link JavaFile} references that match all conditions, in extraction order
      */
     public List<JavaFile> findSpecificAnnotation(@NonNull List<CommonAnnotationNameRegistry> commonNames, List<AnnotationRegistry> importRegistry) {
-        checkExtracted();
-
-        final List<JavaFile> entityContainerList = new LinkedList<>();
-        this.containerList.forEach(javaFileContainer -> {
-            final List<JavaClassAnnotationContainer> classAnnotations = javaFileContainer.findClassAnnotations();
-            for(JavaClassAnnotationContainer classAnnotation : classAnnotations) {
-                for(AnnotationExpr annotationExpr : classAnnotation.annotations()) {
-                    if(importRegistry != null) {
-                        final Optional<ImportDeclaration> optionalImportDeclaration = javaFileContainer.findAnnotationPackage(annotationExpr);
-                        if (optionalImportDeclaration.isEmpty()) {
-                            continue;
-                        }
-
-                        final ImportDeclaration importDeclaration = optionalImportDeclaration.get();
-                        if(commonNames.stream().noneMatch(commonAnnotationNameRegistry -> annotationExpr.getNameAsString().equals(commonAnnotationNameRegistry.toString()))) {
-                            continue;
-                        }
-
-                        if(importRegistry.stream().anyMatch(annotationRegistry -> importDeclaration.getNameAsString().equals(annotationRegistry.toString()))) {
-                            entityContainerList.addLast(javaFileContainer);
-                        }
-                    } else {
-                        if(commonNames.stream().anyMatch(commonAnnotationNameRegistry -> annotationExpr.getNameAsString().equals(commonAnnotationNameRegistry.toString()))) {
-                            entityContainerList.addLast(javaFileContainer);
-                        }
-                    }
-                }
-            }
-        });
+        return this.find(importRegistry == null ? JavaFileQuery.annotatedWith(commonNames) : JavaFileQuery.annotatedWith(commonNames, importRegistry));
+    }
 
-        return entityContainerList;
+    /**
+     * Run a query over all extracted files.
+     * @param query Query built from {@link JavaFileQuery} predicates
+     * @throws RuntimeException If #startExtraction was not called before.
+     * @return A list of unique {@link JavaFile} references that match the query, in extraction order
+     */
+    public List<JavaFile> find(@NonNull JavaFileQuery query) {
+        return getSnapshot().find(query);
     }
 
     /**
@@ -132,149 +327,259 @@ public class SpringBootExtractor {
     }
 
     /**
-     * Find a specific Class declaration by its name and package declaration.
+     * Find a specific Class declaration by its name and package declaration in the current snapshot.
+     * Exports should use {@link ExtractionSnapshot#findClass(String, String)} of the snapshot their endpoints come from.
      * @param className Class name
      * @param packageName Package name
      * @return {@link JavaFile} if found, otherwise null.
      */
     public JavaFile findClass(@NonNull String className, @NonNull String packageName) {
-        for(JavaFile container : this.containerList) {
-            final String localPackageName = container.getPackage();
-            if(!packageName.equals(localPackageName)) continue;
-
-            final List<ClassOrInterfaceDeclaration> classOrInterfaceDeclarations = container.getClassOrInterfaceDeclarations();
-            for(ClassOrInterfaceDeclaration declaration : classOrInterfaceDeclarations) {
-                if(declaration.getNameAsString().equals(className)) {
-                    return container;
-                }
-            }
-        }
-
-        return null;
+        return getSnapshot().findClass(className, packageName);
     }
 
     public boolean isSwaggerEnabled() {
         return !findSpecificAnnotation(List.of(CommonAnnotationNameRegistry.ENABLE_SWAGGER_2), List.of(AnnotationRegistry.SWAGGER_ENABLE)).isEmpty();
     }
 
-    private String getSpringHeaderRequestPath(@NonNull JavaFile javaFileContainer) {
+    private static List<String> getSpringHeaderRequestPaths(@NonNull JavaFile javaFileContainer, @NonNull DiagnosticCollector diagnostics) {
         final List<JavaClassAnnotationContainer> classAnnotations = javaFileContainer.findClassAnnotations();
 
         for(JavaClassAnnotationContainer classAnnotationContainer : classAnnotations) {
-            String path = null;
-            boolean hasRestController = false;
+            List<String> paths = List.of();
+            boolean hasController = false;
 
             for(AnnotationExpr annotationExpr : classAnnotationContainer.annotations()) {
-                if(annotationExpr.getNameAsString().equals(CommonAnnotationNameRegistry.REST_CONTROLLER.toString())) {
-                    hasRestController = true;
+                final String name = annotationExpr.getName().getIdentifier();
+                if(name.equals(CommonAnnotationNameRegistry.REST_CONTROLLER.toString()) || name.equals(CommonAnnotationNameRegistry.CONTROLLER.toString())) {
+                    hasController = true;
                 }
 
-                if(annotationExpr.getNameAsString().equals(CommonAnnotationNameRegistry.REQUEST_MAPPING.toString())) {
-                    final List<MemberValuePair> pairs = annotationExpr.asNormalAnnotationExpr().getPairs();
-                    for(final MemberValuePair pair : pairs) {
-                        final String key = pair.getNameAsString();
-                        final Expression expression = pair.getValue();
-
-                        if (key.equals(AnnotationValueRegistry.REQUEST_MAPPING_PATH.toString())) {
-                            if (expression instanceof StringLiteralExpr stringLiteralExpr) {
-                                path = stringLiteralExpr.getValue();
-                            } else {
-                                System.err.println("Can not extract value-path from RequestMapping: " + javaFileContainer.getPackage());
-                            }
-                        }
-                    }
+                if(MappingAnnotation.of(annotationExpr) == MappingAnnotation.REQUEST_MAPPING) {
+                    paths = MappingAnnotation.REQUEST_MAPPING.parse(annotationExpr, javaFileContainer.getPackage() + "." + classAnnotationContainer.declaration().getNameAsString(), diagnostics).paths();
                 }
             }
 
-            if(hasRestController) {
-                return path == null ? "" : path;
+            if(hasController) {
+                return paths.isEmpty() ? List.of("") : paths;
             }
         }
 
-        return "";
+        return List.of("");
     }
 
-    public List<SpringPathContainer> getSpringAllPaths() {
-        final List<JavaFile> containerList = findSpecificAnnotation(List.of(CommonAnnotationNameRegistry.REQUEST_MAPPING, CommonAnnotationNameRegistry.RESPONSE_STATUS), null);
-        final List<SpringPathContainer> output = new LinkedList<>();
-
-        for(JavaFile javaFileContainer : containerList) {
-            final String headerPath = getSpringHeaderRequestPath(javaFileContainer);
-            final List<JavaMethodAnnotationContainer> classAnnotations = javaFileContainer.findMethodAnnotations();
-            for(JavaMethodAnnotationContainer methodAnnotationContainer : classAnnotations) {
-                String value = null, method = null;
-                String responseStatus = null;
-                NodeList<Expression> consumes = null, produces = null;
-
-                for(AnnotationExpr annotationExpr : methodAnnotationContainer.annotations()) {
-                    if(annotationExpr.getNameAsString().equals(CommonAnnotationNameRegistry.REQUEST_MAPPING.toString())) {
-                        final List<MemberValuePair> pairs = annotationExpr.asNormalAnnotationExpr().getPairs();
-                        for(final MemberValuePair pair : pairs) {
-                            final String key = pair.getNameAsString();
-                            final Expression expression = pair.getValue();
-
-                            if(key.equals(AnnotationValueRegistry.REQUEST_MAPPING_PATH.toString())) {
-                                if (expression instanceof StringLiteralExpr stringLiteralExpr) {
-                                    final String literal = stringLiteralExpr.getValue();
-                                    value = headerPath + (literal.startsWith("/") ? literal : "/" + literal);
-                                } else {
-                                    throw new RuntimeException("Can not extract value-path from RequestMapping: " + javaFileContainer.getPackage());
-                                }
-                            } else if(key.equals(AnnotationValueRegistry.REQUEST_MAPPING_METHOD.toString())) {
-                                if (expression instanceof FieldAccessExpr fieldAccessExpr) {
-                                    method = fieldAccessExpr.getNameAsString();
-                                } else {
-                                    throw new RuntimeException("Can not extract method from RequestMapping: " + javaFileContainer.getPackage());
-                                }
-                            } else if(key.equals(AnnotationValueRegistry.REQUEST_MAPPING_CONSUMES.toString())) {
-                                if (expression instanceof ArrayInitializerExpr arrayInitializerExpr) {
-                                    consumes = arrayInitializerExpr.getValues();
-                                } else {
-                                    throw new RuntimeException("Can not extract consumes method from RequestMapping: " + javaFileContainer.getPackage());
-                                }
-                            } else if(key.equals(AnnotationValueRegistry.REQUEST_MAPPING_PRODUCES.toString())) {
-                                if (expression instanceof ArrayInitializerExpr arrayInitializerExpr) {
-                                    produces = arrayInitializerExpr.getValues();
-                                } else {
-                                    throw new RuntimeException("Can not extract produces method from RequestMapping: " + javaFileContainer.getPackage());
-                                }
-                            }
-                        }
-                    } else if(annotationExpr.getNameAsString().equals(CommonAnnotationNameRegistry.RESPONSE_STATUS.toString())) {
-                        responseStatus = annotationExpr.asSingleMemberAnnotationExpr().getMemberValue().toString();
+    /**
+     * Get the class-level {@code @ResponseStatus} of a controller, which applies to all of its endpoints.
+     * @return The status or empty if the controller has none
+     */
+    private static OptionalInt getSpringClassResponseStatus(@NonNull JavaFile javaFileContainer, @NonNull DiagnosticCollector diagnostics) {
+        for(JavaClassAnnotationContainer classAnnotationContainer : javaFileContainer.findClassAnnotations()) {
+            for(AnnotationExpr annotationExpr : classAnnotationContainer.annotations()) {
+                if(annotationExpr.getName().getIdentifier().equals(CommonAnnotationNameRegistry.RESPONSE_STATUS.toString())) {
+                    final OptionalInt status = HttpStatusResolver.resolve(annotationExpr);
+                    if(status.isEmpty()) {
+                        diagnostics.warning(DiagnosticStage.ENDPOINT, javaFileContainer.getReference().getPath(), "Can not resolve response status \"" + annotationExpr + "\"");
                     }
+
+                    return status;
                 }
+            }
+        }
+
+        return OptionalInt.empty();
+    }
 
-                if(value == null) {
-                    value = "";
+    /**
+     * Collect the statuses of all {@code @ExceptionHandler} methods that carry a {@code @ResponseStatus}.
+     */
+    private void addExceptionHandlerStatuses(@NonNull JavaFile javaFileContainer, @NonNull Set<Integer> statuses) {
+        for(JavaMethodAnnotationContainer methodAnnotationContainer : javaFileContainer.findMethodAnnotations()) {
+            boolean isExceptionHandler = false;
+            AnnotationExpr responseStatus = null;
+
+            for(AnnotationExpr annotationExpr : methodAnnotationContainer.annotations()) {
+                final String name = annotationExpr.getName().getIdentifier();
+                if(name.equals(CommonAnnotationNameRegistry.EXCEPTION_HANDLER.toString())) {
+                    isExceptionHandler = true;
+                } else if(name.equals(CommonAnnotationNameRegistry.RESPONSE_STATUS.toString())) {
+                    responseStatus = annotationExpr;
                 }
+            }
+
+            if(isExceptionHandler && responseStatus != null) {
+                HttpStatusResolver.resolve(responseStatus).ifPresent(statuses::add);
+            }
+        }
+    }
+
+    /**
+     * Collect all endpoints of the extracted controllers. The routes are normalized in a {@link RouteTrie}, duplicate routes
+     * and routes that only differ in the names of their path variables are reported as diagnostics.
+     * All of them are taken from the same snapshot, even if the project is extracted again in the meantime.
+     * @return One container per path and HTTP method, in trie order. In tolerant mode endpoints that could not be extracted are missing and reported as diagnostics.
+     */
+    public List<SpringPathContainer> getSpringAllPaths() {
+        return getSpringAllPaths(getSnapshot());
+    }
+
+    /**
+     * Like {@link #getSpringAllPaths()}, for a snapshot that was captured before.
+     * @param snapshot Snapshot from {@link #getSnapshot()}, diagnostics are reported to it
+     */
+    public List<SpringPathContainer> getSpringAllPaths(@NonNull ExtractionSnapshot snapshot) {
+        final Set<Integer> adviceErrorStatuses = getAdviceErrorStatuses(snapshot);
+        final RouteTrie<SpringPathContainer> routes = new RouteTrie<>();
+
+        for(JavaFile javaFileContainer : getControllerFiles(snapshot)) {
+            for(ControllerRoute route : getControllerRoutes(snapshot, javaFileContainer, adviceErrorStatuses)) {
+                routes.add(route.method(), route.location(), route::toContainer, route.headerPath(), route.literal());
+            }
+        }
+
+        reportRouteConflicts(snapshot, routes);
+        return routes.getValues();
+    }
 
-                if(method == null) {
-                    throw new RuntimeException("Invalid SpringBoot project. Found method with @RequestMapping without method.");
+    /**
+     * Get all files of a snapshot that may declare endpoints, in extraction order.
+     * @param snapshot Snapshot from {@link #getSnapshot()}
+     */
+    public List<JavaFile> getControllerFiles(@NonNull ExtractionSnapshot snapshot) {
+        return snapshot.find(JavaFileQuery.annotatedWith(List.of(CommonAnnotationNameRegistry.REQUEST_MAPPING, CommonAnnotationNameRegistry.RESPONSE_STATUS, CommonAnnotationNameRegistry.REST_CONTROLLER, CommonAnnotationNameRegistry.CONTROLLER)));
+    }
+
+    /**
+     * Collect the statuses of the exception handlers of all controller advices, they apply to every controller.
+     * @param snapshot Snapshot from {@link #getSnapshot()}, the same as for {@link #getControllerFiles(ExtractionSnapshot)}
+     * @return The statuses, sorted
+     */
+    public Set<Integer> getAdviceErrorStatuses(@NonNull ExtractionSnapshot snapshot) {
+        final Set<Integer> adviceErrorStatuses = new TreeSet<>();
+        for(JavaFile adviceContainer : snapshot.find(JavaFileQuery.annotatedWith(List.of(CommonAnnotationNameRegistry.CONTROLLER_ADVICE, CommonAnnotationNameRegistry.REST_CONTROLLER_ADVICE)))) {
+            try {
+                addExceptionHandlerStatuses(adviceContainer, adviceErrorStatuses);
+            } catch (RuntimeException | StackOverflowError exception) {
+                if(!this.tolerant) {
+                    throw exception;
                 }
 
-                int status;
-                if(responseStatus == null) {
-                    status = 200;
-                } else {
-                    try {
-                        status = HttpStatus.valueOf(responseStatus).getValue();
-                    } catch (IllegalArgumentException exception) {
-                        status = 200;
+                snapshot.getDiagnostics().error(DiagnosticStage.ENDPOINT, adviceContainer.getReference().getPath(), exception);
+            }
+        }
+
+        return adviceErrorStatuses;
+    }
+
+    /**
+     * Collect the routes of one controller, before they are normalized in a {@link RouteTrie}.
+     * @param snapshot Snapshot the file belongs to, diagnostics are reported to it
+     * @param javaFileContainer File from {@link #getControllerFiles(ExtractionSnapshot)}
+     * @param adviceErrorStatuses Statuses from {@link #getAdviceErrorStatuses(ExtractionSnapshot)}
+     * @return The routes in declaration order. In tolerant mode routes that could not be extracted are missing and reported as diagnostics.
+     */
+    public List<ControllerRoute> getControllerRoutes(@NonNull ExtractionSnapshot snapshot, @NonNull JavaFile javaFileContainer, @NonNull Set<Integer> adviceErrorStatuses) {
+        final DiagnosticCollector diagnostics = snapshot.getDiagnostics();
+        final List<ControllerRoute> routes = new LinkedList<>();
+        try {
+            final Set<Integer> errorStatuses = new TreeSet<>(adviceErrorStatuses);
+            addExceptionHandlerStatuses(javaFileContainer, errorStatuses);
+
+            final ControllerDefaults controllerDefaults = new ControllerDefaults(getSpringHeaderRequestPaths(javaFileContainer, diagnostics), getSpringClassResponseStatus(javaFileContainer, diagnostics), List.copyOf(errorStatuses));
+            for(JavaMethodAnnotationContainer methodAnnotationContainer : javaFileContainer.findMethodAnnotations()) {
+                final String location = javaFileContainer.getPackage() + "#" + methodAnnotationContainer.declaration().getNameAsString();
+
+                try {
+                    addSpringPaths(routes, javaFileContainer, controllerDefaults, methodAnnotationContainer, location, diagnostics);
+                } catch (RuntimeException | StackOverflowError exception) {
+                    if(!this.tolerant) {
+                        throw exception;
                     }
+
+                    diagnostics.error(DiagnosticStage.ENDPOINT, location, exception);
                 }
+            }
+        } catch (RuntimeException | StackOverflowError exception) {
+            if(!this.tolerant) {
+                throw exception;
+            }
 
-                output.addLast(new SpringPathContainer(javaFileContainer, methodAnnotationContainer.declaration(), value, method, status, consumes, produces));
+            diagnostics.error(DiagnosticStage.ENDPOINT, javaFileContainer.getReference().getPath(), exception);
+        }
+
+        return routes;
+    }
+
+    /**
+     * Report the conflicts of a route trie as diagnostics of the snapshot its routes come from.
+     */
+    public void reportRouteConflicts(@NonNull ExtractionSnapshot snapshot, @NonNull RouteTrie<?> routes) {
+        for(RouteTrie.Conflict conflict : routes.getConflicts()) {
+            snapshot.getDiagnostics().warning(DiagnosticStage.ENDPOINT, conflict.location(), conflict.toString());
+        }
+    }
+
+    /**
+     * Values of a controller class that apply to all of its endpoints.
+     * @param headerPaths Paths of the class-level mapping
+     * @param responseStatus Class-level response status
+     * @param errorStatuses Statuses of the exception handlers
+     */
+    private record ControllerDefaults(@NonNull List<String> headerPaths, @NonNull OptionalInt responseStatus, @NonNull List<Integer> errorStatuses) { }
+
+    private void addSpringPaths(@NonNull List<ControllerRoute> routes, @NonNull JavaFile javaFileContainer, @NonNull ControllerDefaults controllerDefaults, @NonNull JavaMethodAnnotationContainer methodAnnotationContainer, @NonNull String location, @NonNull DiagnosticCollector diagnostics) {
+        RequestMappingInfo mapping = null;
+        AnnotationExpr responseStatus = null;
+
+        for(AnnotationExpr annotationExpr : methodAnnotationContainer.annotations()) {
+            final MappingAnnotation mappingAnnotation = MappingAnnotation.of(annotationExpr);
+            if(mappingAnnotation != null) {
+                mapping = mappingAnnotation.parse(annotationExpr, location, diagnostics);
+            } else if(annotationExpr.getName().getIdentifier().equals(CommonAnnotationNameRegistry.RESPONSE_STATUS.toString())) {
+                responseStatus = annotationExpr;
             }
         }
 
-        return output;
+        if(mapping == null) {
+            return; // Not an endpoint
+        }
+
+        if(mapping.methods().isEmpty()) {
+            diagnostics.warning(DiagnosticStage.ENDPOINT, location, "Skipping mapping without HTTP method");
+            return;
+        }
+
+        // Method-level status, otherwise class-level status, otherwise 200
+        OptionalInt status = responseStatus == null ? OptionalInt.empty() : HttpStatusResolver.resolve(responseStatus);
+        if(responseStatus != null && status.isEmpty()) {
+            diagnostics.warning(DiagnosticStage.ENDPOINT, location, "Can not resolve response status \"" + responseStatus + "\"");
+        }
+
+        if(status.isEmpty()) {
+            status = controllerDefaults.responseStatus();
+        }
+
+        final int responseStatusCode = status.orElse(200);
+        final List<Integer> errorStatuses = controllerDefaults.errorStatuses().stream().filter(errorStatus -> errorStatus != responseStatusCode).toList();
+
+        final List<String> paths = mapping.paths().isEmpty() ? List.of("") : mapping.paths();
+        for(String headerPath : controllerDefaults.headerPaths()) {
+            for(String literal : paths) {
+                for(String method : mapping.methods()) {
+                    routes.addLast(new ControllerRoute(javaFileContainer, methodAnnotationContainer.declaration(), method, location, headerPath, literal,
+                        responseStatusCode, mapping.consumes(), mapping.produces(), errorStatuses));
+                }
+            }
+        }
     }
 
     /**
-     * Free memory but keep instance
+     * Free memory but keep instance. Snapshots that are still in use stay valid, they keep their files, type solvers
+     * and diagnostics, and the class path index reads the jar files of their lookups without keeping them open.
      */
     public void dispose() {
-        this.containerList = null;
+        this.snapshot.set(null);
+
+        if(this.classPathIndex != null) {
+            this.classPathIndex.close();
+        }
     }
 }
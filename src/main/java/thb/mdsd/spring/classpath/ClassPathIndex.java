@@ -0,0 +1,349 @@
+package thb.mdsd.spring.classpath;
+
+import javassist.bytecode.ClassFile;
+import lombok.Getter;
+import lombok.NonNull;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Index over compiled classes of a project: class directories (e.g. "target/classes") and jar files.
+ * The index is built lazily on the first lookup; jar files are read through the zip file system without extracting them.
+ * The jar files stay open until {@link #close()}, the index can still be used afterward (see there).
+ */
+public class ClassPathIndex implements Closeable {
+
+    /**
+     * Depth of "&lt;module&gt;/&lt;module&gt;/build/classes/java/main" below the project directory
+     */
+    private static final int CLASS_DIRECTORY_SEARCH_DEPTH = 6;
+
+    /**
+     * Collect the class path entries of a project:
+     * <ul>
+     *     <li>"target/classes" and "build/classes/java/main" directories (also in sub modules)</li>
+     *     <li>jar files in "target/dependency" (output of "mvn dependency:copy-dependencies")</li>
+     *     <li>direct dependencies declared in "pom.xml" that exist in the local maven repository</li>
+     * </ul>
+     * @param projectPath Project directory
+     * @return A new (not yet built) index
+     */
+    public static ClassPathIndex forProject(@NonNull String projectPath) {
+        final Path root = Path.of(projectPath);
+        final Set<Path> entries = new LinkedHashSet<>();
+
+        // Source folders, hidden directories and the class directories themselves are not searched further
+        try {
+            Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), CLASS_DIRECTORY_SEARCH_DEPTH, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                    if(isClassDirectory(directory)) {
+                        entries.add(directory);
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+
+                    final String name = directory.getFileName() == null ? "" : directory.getFileName().toString();
+                    final boolean skip = !directory.equals(root) && (name.equals("src") || name.equals("node_modules") || name.startsWith("."));
+                    return skip ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                // Directories at the maximum depth are visited as files
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if(attributes.isDirectory() && isClassDirectory(file)) {
+                        entries.add(file);
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exception) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException exception) {
+            System.err.println("Could not search class directories in " + projectPath + ": " + exception.getMessage());
+        }
+
+        final Path dependencyDirectory = root.resolve("target").resolve("dependency");
+        if(Files.isDirectory(dependencyDirectory)) {
+            try (final Stream<Path> stream = Files.list(dependencyDirectory)) {
+                stream.filter(path -> path.toString().endsWith(".jar")).sorted().forEach(entries::add);
+            } catch (IOException exception) {
+                System.err.println("Could not list " + dependencyDirectory + ": " + exception.getMessage());
+            }
+        }
+
+        final Path pom = root.resolve("pom.xml");
+        if(Files.isRegularFile(pom)) {
+            entries.addAll(findMavenDependencies(pom, Path.of(System.getProperty("user.home"), ".m2", "repository")));
+        }
+
+        return new ClassPathIndex(new ArrayList<>(entries));
+    }
+
+    private static boolean isClassDirectory(@NonNull Path directory) {
+        return directory.endsWith(Path.of("target", "classes")) || directory.endsWith(Path.of("build", "classes", "java", "main"));
+    }
+
+    private static List<Path> findMavenDependencies(@NonNull Path pom, @NonNull Path repository) {
+        final List<Path> jars = new LinkedList<>();
+
+        try {
+            final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(pom.toFile());
+            final Element project = document.getDocumentElement();
+
+            final Map<String, String> properties = new HashMap<>();
+            properties.put("project.version", childText(project, "version"));
+            final Element propertiesElement = firstChild(project, "properties");
+            if(propertiesElement != null) {
+                final NodeList children = propertiesElement.getChildNodes();
+                for(int i = 0; i < children.getLength(); i++) {
+                    if(children.item(i) instanceof Element property) {
+                        properties.put(property.getTagName(), property.getTextContent().trim());
+                    }
+                }
+            }
+
+            final Element dependencies = firstChild(project, "dependencies");
+            if(dependencies == null) {
+                return jars;
+            }
+
+            final NodeList children = dependencies.getChildNodes();
+            for(int i = 0; i < children.getLength(); i++) {
+                if(!(children.item(i) instanceof Element dependency)) continue;
+                if("test".equals(childText(dependency, "scope"))) continue;
+
+                final String groupId = resolveProperty(childText(dependency, "groupId"), properties);
+                final String artifactId = resolveProperty(childText(dependency, "artifactId"), properties);
+                final String version = resolveProperty(childText(dependency, "version"), properties);
+                if(groupId == null || artifactId == null || version == null) continue;
+
+                final Path jar = repository.resolve(groupId.replace('.', File.separatorChar)).resolve(artifactId).resolve(version).resolve(artifactId + "-" + version + ".jar");
+                if(Files.isRegularFile(jar)) {
+                    jars.addLast(jar);
+                }
+            }
+        } catch (Exception exception) {
+            System.err.println("Could not read dependencies from " + pom + ": " + exception.getMessage());
+        }
+
+        return jars;
+    }
+
+    private static Element firstChild(@NonNull Element parent, @NonNull String name) {
+        final NodeList children = parent.getChildNodes();
+        for(int i = 0; i < children.getLength(); i++) {
+            final Node child = children.item(i);
+            if(child instanceof Element element && element.getTagName().equals(name)) {
+                return element;
+            }
+        }
+
+        return null;
+    }
+
+    private static String childText(@NonNull Element parent, @NonNull String name) {
+        final Element child = firstChild(parent, name);
+        return child == null ? null : child.getTextContent().trim();
+    }
+
+    private static String resolveProperty(String value, @NonNull Map<String, String> properties) {
+        if(value != null && value.startsWith("${") && value.endsWith("}")) {
+            return properties.get(value.substring(2, value.length() - 1));
+        }
+
+        return value;
+    }
+
+    /**
+     * Location of a class file
+     * @param archive Jar file, null for a class directory
+     * @param entry Path of the class file, inside the jar file if there is one
+     */
+    private record ClassLocation(Path archive, @NonNull String entry) { }
+
+    @Getter
+    private final List<Path> entries;
+    private final Map<Path, FileSystem> openFileSystems = new HashMap<>();
+    private Map<String, ClassLocation> index;
+    private boolean closed;
+
+    public ClassPathIndex(@NonNull List<Path> entries) {
+        this.entries = List.copyOf(entries);
+    }
+
+    private synchronized Map<String, ClassLocation> getIndex() {
+        if(this.index != null) {
+            return this.index;
+        }
+
+        final Map<String, ClassLocation> index = new HashMap<>();
+        for(Path entry : this.entries) {
+            try {
+                if(Files.isDirectory(entry)) {
+                    indexDirectory(index, entry, null);
+                } else if(Files.isRegularFile(entry)) {
+                    final FileSystem fileSystem = FileSystems.newFileSystem(entry);
+                    for(Path root : fileSystem.getRootDirectories()) {
+                        indexDirectory(index, root, entry);
+                    }
+
+                    if(this.closed) {
+                        fileSystem.close();
+                    } else {
+                        this.openFileSystems.put(entry, fileSystem);
+                    }
+                }
+            } catch (IOException exception) {
+                System.err.println("Could not index class path entry " + entry + ": " + exception.getMessage());
+            }
+        }
+
+        this.index = index;
+        return index;
+    }
+
+    private static void indexDirectory(@NonNull Map<String, ClassLocation> index, @NonNull Path root, Path archive) throws IOException {
+        try (final Stream<Path> stream = Files.walk(root)) {
+            stream
+                .filter(path -> path.toString().endsWith(".class"))
+                .forEach(path -> {
+                    final String relative = root.relativize(path).toString();
+                    if(relative.startsWith("META-INF") || relative.endsWith("module-info.class") || relative.endsWith("package-info.class")) {
+                        return;
+                    }
+
+                    final String binaryName = relative.substring(0, relative.length() - ".class".length()).replace(path.getFileSystem().getSeparator(), ".");
+                    index.putIfAbsent(binaryName, new ClassLocation(archive, archive == null ? path.toString() : relative));
+                });
+        }
+    }
+
+    /**
+     * Find the binary name (nested classes separated by "$") of a class.
+     * @param name Canonical ("a.b.Outer.Inner") or binary ("a.b.Outer$Inner") class name
+     * @return The binary name if the class is part of the index, otherwise null
+     */
+    public String findBinaryName(@NonNull String name) {
+        final Map<String, ClassLocation> index = this.getIndex();
+
+        String candidate = name;
+        while (true) {
+            if(index.containsKey(candidate)) {
+                return candidate;
+            }
+
+            final int lastDot = candidate.lastIndexOf('.');
+            if(lastDot == -1) {
+                return null;
+            }
+
+            candidate = candidate.substring(0, lastDot) + "$" + candidate.substring(lastDot + 1);
+        }
+    }
+
+    /**
+     * Find the location of a class file.
+     * @param binaryName Binary class name
+     * @return URI of the class file ("jar:" URI inside a jar file) or null if the class is not part of the index
+     */
+    public URI findUri(@NonNull String binaryName) {
+        final ClassLocation location = this.getIndex().get(binaryName);
+        if(location == null) {
+            return null;
+        }
+
+        return location.archive() == null ? Path.of(location.entry()).toUri() : URI.create("jar:" + location.archive().toUri() + "!/" + location.entry());
+    }
+
+    /**
+     * Read the raw class file.
+     * @param binaryName Binary class name
+     * @return The class file content or null if the class is not part of the index
+     * @throws IOException If the class file could not be read
+     */
+    public byte[] read(@NonNull String binaryName) throws IOException {
+        final ClassLocation location = this.getIndex().get(binaryName);
+        if(location == null) {
+            return null;
+        }
+
+        if(location.archive() == null) {
+            return Files.readAllBytes(Path.of(location.entry()));
+        }
+
+        synchronized (this) {
+            final FileSystem fileSystem = this.openFileSystems.get(location.archive());
+            if(fileSystem != null) {
+                return Files.readAllBytes(fileSystem.getPath(location.entry()));
+            }
+        }
+
+        // Closed in the meantime, the jar file is only opened for this read
+        try(final FileSystem fileSystem = FileSystems.newFileSystem(location.archive())) {
+            return Files.readAllBytes(fileSystem.getPath(location.entry()));
+        }
+    }
+
+    /**
+     * Read and parse a class file.
+     * @param name Canonical or binary class name
+     * @return The parsed class file or null if the class is not part of the index or could not be read
+     */
+    public ClassFile readClassFile(@NonNull String name) {
+        final String binaryName = this.findBinaryName(name);
+        if(binaryName == null) {
+            return null;
+        }
+
+        try {
+            return new ClassFile(new DataInputStream(new ByteArrayInputStream(this.read(binaryName))));
+        } catch (IOException exception) {
+            System.err.println("Could not read class file of " + name + ": " + exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Get the number of indexed classes. Builds the index if necessary.
+     * @return Number of classes
+     */
+    public int size() {
+        return this.getIndex().size();
+    }
+
+    /**
+     * Release all opened jar files. The index is kept, so users that still hold it (e.g. an older snapshot of the extractor)
+     * can resolve classes: every later read opens its jar file only for the duration of the read.
+     */
+    @Override
+    public synchronized void close() {
+        for(FileSystem fileSystem : this.openFileSystems.values()) {
+            try {
+                fileSystem.close();
+            } catch (IOException exception) {
+                System.err.println("Could not close " + fileSystem + ": " + exception.getMessage());
+            }
+        }
+
+        this.openFileSystems.clear();
+        this.closed = true;
+    }
+}
@@ -0,0 +1,101 @@
+package thb.mdsd.spring.classpath;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javassistmodel.JavassistFactory;
+import javassist.ClassPath;
+import javassist.ClassPool;
+import javassist.NotFoundException;
+import lombok.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Type solver that resolves types from the compiled classes of a {@link ClassPathIndex}.
+ */
+public class ClassPathTypeSolver implements TypeSolver {
+
+    private final ClassPathIndex classPathIndex;
+    private final ClassPool classPool = new ClassPool(false);
+    private final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> cache = new ConcurrentHashMap<>();
+    private TypeSolver parent;
+
+    public ClassPathTypeSolver(@NonNull ClassPathIndex classPathIndex) {
+        this.classPathIndex = classPathIndex;
+        this.classPool.appendClassPath(new IndexClassPath(classPathIndex));
+        this.classPool.appendSystemPath();
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return this.parent;
+    }
+
+    @Override
+    public void setParent(@NonNull TypeSolver parent) {
+        if(this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent.");
+        }
+
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(@NonNull String name) {
+        return this.cache.computeIfAbsent(name, this::solve);
+    }
+
+    private SymbolReference<ResolvedReferenceTypeDeclaration> solve(@NonNull String name) {
+        final String binaryName = this.classPathIndex.findBinaryName(name);
+        if(binaryName == null) {
+            return SymbolReference.unsolved();
+        }
+
+        try {
+            synchronized (this.classPool) {
+                return SymbolReference.solved(JavassistFactory.toTypeDeclaration(this.classPool.get(binaryName), this.getRoot()));
+            }
+        } catch (NotFoundException exception) {
+            return SymbolReference.unsolved();
+        }
+    }
+
+    /**
+     * Javassist class path that reads class files through a {@link ClassPathIndex}.
+     */
+    private record IndexClassPath(@NonNull ClassPathIndex classPathIndex) implements ClassPath {
+
+        @Override
+        public InputStream openClassfile(String className) throws NotFoundException {
+            try {
+                final byte[] data = this.classPathIndex.read(className);
+                if(data == null) {
+                    throw new NotFoundException(className);
+                }
+
+                return new ByteArrayInputStream(data);
+            } catch (IOException exception) {
+                throw new NotFoundException(className, exception);
+            }
+        }
+
+        @Override
+        public URL find(String className) {
+            final URI uri = this.classPathIndex.findUri(className);
+
+            try {
+                return uri == null ? null : uri.toURL();
+            } catch (MalformedURLException exception) {
+                return null;
+            }
+        }
+    }
+}
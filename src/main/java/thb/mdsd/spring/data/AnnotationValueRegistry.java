@@ -6,6 +6,7 @@ import lombok.NonNull;
 public enum AnnotationValueRegistry {
 
     REQUEST_MAPPING_PATH("value"),
+    REQUEST_MAPPING_PATH_ALIAS("path"),
     REQUEST_MAPPING_METHOD("method"),
     REQUEST_MAPPING_CONSUMES("consumes"),
     REQUEST_MAPPING_PRODUCES("produces"),
@@ -11,7 +11,15 @@ public enum CommonAnnotationNameRegistry {
     CONTROLLER("Controller"),
     REST_CONTROLLER("RestController"),
     REQUEST_MAPPING("RequestMapping"),
+    GET_MAPPING("GetMapping"),
+    POST_MAPPING("PostMapping"),
+    PUT_MAPPING("PutMapping"),
+    DELETE_MAPPING("DeleteMapping"),
+    PATCH_MAPPING("PatchMapping"),
     RESPONSE_STATUS("ResponseStatus"),
+    EXCEPTION_HANDLER("ExceptionHandler"),
+    CONTROLLER_ADVICE("ControllerAdvice"),
+    REST_CONTROLLER_ADVICE("RestControllerAdvice"),
     ENABLE_SWAGGER_2("EnableSwagger2"),
     API_OPERATION("ApiOperation"),
     REQUEST_BODY("RequestBody");
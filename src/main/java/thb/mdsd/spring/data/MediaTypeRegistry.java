@@ -0,0 +1,64 @@
+package thb.mdsd.spring.data;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Values of the commonly used constants of Spring's MediaType class.
+ */
+@Getter
+public enum MediaTypeRegistry {
+
+    ALL("*/*"),
+    APPLICATION_JSON("application/json"),
+    APPLICATION_JSON_UTF8("application/json;charset=UTF-8"),
+    APPLICATION_PROBLEM_JSON("application/problem+json"),
+    APPLICATION_NDJSON("application/x-ndjson"),
+    APPLICATION_XML("application/xml"),
+    APPLICATION_PROBLEM_XML("application/problem+xml"),
+    APPLICATION_YAML("application/yaml"),
+    APPLICATION_PDF("application/pdf"),
+    APPLICATION_OCTET_STREAM("application/octet-stream"),
+    APPLICATION_FORM_URLENCODED("application/x-www-form-urlencoded"),
+    MULTIPART_FORM_DATA("multipart/form-data"),
+    TEXT_PLAIN("text/plain"),
+    TEXT_HTML("text/html"),
+    TEXT_XML("text/xml"),
+    TEXT_MARKDOWN("text/markdown"),
+    TEXT_EVENT_STREAM("text/event-stream"),
+    IMAGE_PNG("image/png"),
+    IMAGE_JPEG("image/jpeg"),
+    IMAGE_GIF("image/gif");
+
+    private static final Map<String, MediaTypeRegistry> BY_CONSTANT = new HashMap<>();
+
+    static {
+        for(MediaTypeRegistry mediaType : values()) {
+            BY_CONSTANT.put(mediaType.name(), mediaType);
+            BY_CONSTANT.put(mediaType.name() + "_VALUE", mediaType);
+        }
+    }
+
+    /**
+     * Find a media type by the name of its MediaType constant.
+     * @param constantName e.g. "APPLICATION_JSON_VALUE" or "APPLICATION_JSON"
+     * @return The media type or null if unknown
+     */
+    public static MediaTypeRegistry byConstantName(@NonNull String constantName) {
+        return BY_CONSTANT.get(constantName);
+    }
+
+    final String value;
+
+    MediaTypeRegistry(@NonNull String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return this.value;
+    }
+}
@@ -0,0 +1,18 @@
+package thb.mdsd.spring.diagnostics;
+
+import lombok.NonNull;
+
+/**
+ * A problem that was found during the extraction or export.
+ * @param severity Whether the affected element was skipped or used anyway
+ * @param stage Stage in which the problem occurred
+ * @param location File path or endpoint, e.g. "GET /cities (com.example.CityController#getCities)"
+ * @param message Description of the problem
+ */
+public record Diagnostic(@NonNull DiagnosticSeverity severity, @NonNull DiagnosticStage stage, @NonNull String location, @NonNull String message) {
+
+    @Override
+    public String toString() {
+        return String.format("%-7s [%s] %s: %s", this.severity, this.stage, this.location, this.message);
+    }
+}
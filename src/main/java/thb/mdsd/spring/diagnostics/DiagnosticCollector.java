@@ -0,0 +1,91 @@
+package thb.mdsd.spring.diagnostics;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Thread-safe collection of all {@link Diagnostic}s of one extraction. Equal diagnostics are only kept once,
+ * so stages that run more than once (e.g. collecting the endpoints for several exports) do not repeat them.
+ */
+public class DiagnosticCollector {
+
+    private final Set<Diagnostic> diagnostics = new LinkedHashSet<>();
+
+    public synchronized void add(@NonNull Diagnostic diagnostic) {
+        this.diagnostics.add(diagnostic);
+    }
+
+    public void error(@NonNull DiagnosticStage stage, @NonNull String location, @NonNull Throwable throwable) {
+        this.add(new Diagnostic(DiagnosticSeverity.ERROR, stage, location, describe(throwable)));
+    }
+
+    public void warning(@NonNull DiagnosticStage stage, @NonNull String location, @NonNull String message) {
+        this.add(new Diagnostic(DiagnosticSeverity.WARNING, stage, location, message));
+    }
+
+    /**
+     * @return A copy of all diagnostics in the order they were added
+     */
+    public synchronized List<Diagnostic> getDiagnostics() {
+        return List.copyOf(this.diagnostics);
+    }
+
+    public synchronized boolean isEmpty() {
+        return this.diagnostics.isEmpty();
+    }
+
+    public synchronized long count(@NonNull DiagnosticSeverity severity) {
+        return this.diagnostics.stream().filter(diagnostic -> diagnostic.severity() == severity).count();
+    }
+
+    public synchronized void clear() {
+        this.diagnostics.clear();
+    }
+
+    /**
+     * Write a plain text report with a summary line and one line per diagnostic.
+     * @param reportFile Target file
+     * @throws IOException If the file could not be written
+     */
+    public void writeReport(@NonNull Path reportFile) throws IOException {
+        final List<Diagnostic> diagnostics = this.getDiagnostics();
+        final List<String> lines = new ArrayList<>(diagnostics.size() + 2);
+
+        lines.add(this.count(DiagnosticSeverity.ERROR) + " errors, " + this.count(DiagnosticSeverity.WARNING) + " warnings");
+        lines.add("");
+        diagnostics.forEach(diagnostic -> lines.add(diagnostic.toString()));
+
+        Files.write(reportFile, lines, StandardCharsets.UTF_8);
+    }
+
+    private static String describe(@NonNull Throwable throwable) {
+        final StringBuilder builder = new StringBuilder(throwable.getClass().getSimpleName());
+        if(throwable.getMessage() != null) {
+            builder.append(": ").append(throwable.getMessage().lines().findFirst().orElse(""));
+        }
+
+        // The root cause is usually more helpful than the RuntimeException wrapping it
+        Throwable cause = throwable.getCause();
+        while (cause != null && cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+
+        if(cause != null && cause != throwable) {
+            builder.append(" (caused by ").append(cause.getClass().getSimpleName());
+            if(cause.getMessage() != null) {
+                builder.append(": ").append(cause.getMessage().lines().findFirst().orElse(""));
+            }
+            builder.append(')');
+        }
+
+        return builder.toString();
+    }
+}
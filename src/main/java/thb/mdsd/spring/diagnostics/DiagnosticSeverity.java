@@ -0,0 +1,14 @@
+package thb.mdsd.spring.diagnostics;
+
+public enum DiagnosticSeverity {
+
+    /**
+     * The file or endpoint was skipped.
+     */
+    ERROR,
+
+    /**
+     * The file or endpoint was used, but may be incomplete.
+     */
+    WARNING
+}
@@ -0,0 +1,8 @@
+package thb.mdsd.spring.diagnostics;
+
+public enum DiagnosticStage {
+    READ,
+    PARSE,
+    ENDPOINT,
+    EXPORT
+}
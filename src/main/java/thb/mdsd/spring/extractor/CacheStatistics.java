@@ -0,0 +1,9 @@
+package thb.mdsd.spring.extractor;
+
+public record CacheStatistics(long hits, long misses, long evictions, int size, int maximumSize) {
+
+    @Override
+    public String toString() {
+        return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size + "/" + maximumSize;
+    }
+}
@@ -0,0 +1,73 @@
+package thb.mdsd.spring.extractor;
+
+import com.github.javaparser.ast.CompilationUnit;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU cache of parsed {@link CompilationUnit}s. Evicted units are parsed again on their next access.
+ */
+public class CompilationUnitCache {
+
+    @Getter
+    private final int maximumSize;
+    private final LinkedHashMap<File, CompilationUnit> units;
+    private long hits, misses, evictions;
+
+    public CompilationUnitCache(int maximumSize) {
+        if(maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1, got: " + maximumSize);
+        }
+
+        this.maximumSize = maximumSize;
+        this.units = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<File, CompilationUnit> eldest) {
+                if(size() > CompilationUnitCache.this.maximumSize) {
+                    evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get a cached unit or load it. The loader runs outside the cache lock, so several files can be parsed at the same time.
+     * @param file Source file of the unit
+     * @param loader Parses the unit on a cache miss
+     * @return The compilation unit
+     */
+    public CompilationUnit get(@NonNull File file, @NonNull Supplier<CompilationUnit> loader) {
+        synchronized (this) {
+            final CompilationUnit unit = this.units.get(file);
+            if(unit != null) {
+                hits++;
+                return unit;
+            }
+
+            misses++;
+        }
+
+        final CompilationUnit unit = loader.get();
+        this.put(file, unit);
+        return unit;
+    }
+
+    /**
+     * Store a unit that was parsed outside the cache (e.g. during the initial extraction) without counting a miss.
+     */
+    public synchronized void put(@NonNull File file, @NonNull CompilationUnit unit) {
+        this.units.put(file, unit);
+    }
+
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits, misses, evictions, units.size(), maximumSize);
+    }
+}
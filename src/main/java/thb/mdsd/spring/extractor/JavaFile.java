@@ -3,16 +3,21 @@ package thb.mdsd.spring.extractor;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
 import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Problem;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.AnnotationDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 import lombok.Getter;
 import lombok.NonNull;
 import thb.mdsd.spring.extractor.container.JavaClassAnnotationContainer;
@@ -20,72 +25,209 @@ import thb.mdsd.spring.extractor.container.JavaMethodAnnotationContainer;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
-@Getter
 public class JavaFile {
 
-    private static File getSourceRoot(File javaFile) {
-        String path = javaFile.getAbsolutePath();
-        int srcIndex = path.indexOf(File.separator + "src" + File.separator);
+    @Getter
+    private final File reference;
+    @Getter
+    private final JavaFileSummary summary;
+    private final String data;
 
-        if (srcIndex != -1) {
-            String afterSrc = path.substring(srcIndex + 5);
-            String[] parts = afterSrc.split(Pattern.quote(File.separator));
+    /**
+     * Type solver used for symbol resolution on the AST of this file, shared by all files of its source root
+     */
+    @Getter
+    private final TypeSolver typeSolver;
+    private final CompilationUnitCache unitCache;
+    private volatile CompilationUnit unit;
 
-            if (parts.length >= 2) {
-                String rootPath = path.substring(0, srcIndex) + File.separator + "src" + File.separator + parts[0] + File.separator + parts[1];
-                return new File(rootPath);
-            }
-        }
+    /**
+     * Problems JavaParser reported for the last parse of this file. Not empty if only a partial (recovered) result was available.
+     */
+    @Getter
+    private volatile List<String> parseProblems = List.of();
 
-        return javaFile.getParentFile();
+    public JavaFile(@NonNull File reference, @NonNull String data) {
+        this(reference, data, new TypeSolverProvider().getTypeSolver(reference));
     }
 
-    private final File reference;
-    private final String data;
-    private final CompilationUnit unit;
+    public JavaFile(@NonNull File reference, @NonNull String data, @NonNull TypeSolver typeSolver) {
+        this(reference, data, typeSolver, null);
+    }
 
-    public JavaFile(@NonNull File reference, @NonNull String data) {
+    /**
+     * @param reference Source file
+     * @param data Content of the source file
+     * @param typeSolver Type solver used for symbol resolution
+     * @param unitCache Optional cache. If given, neither the content nor the {@link CompilationUnit} is kept by this instance,
+     *                  the unit lives in the cache and is parsed again after it was evicted.
+     */
+    public JavaFile(@NonNull File reference, @NonNull String data, @NonNull TypeSolver typeSolver, CompilationUnitCache unitCache) {
         this.reference = reference;
-        this.data = data;
+        this.typeSolver = typeSolver;
+        this.unitCache = unitCache;
 
-        try {
-            final CombinedTypeSolver typeSolver = new CombinedTypeSolver(
-                new ReflectionTypeSolver(),
-                new JavaParserTypeSolver(getSourceRoot(reference))
-            );
+        final CompilationUnit unit = this.parse();
+        this.summary = JavaFileSummary.of(unit);
+
+        if(unitCache == null) {
+            this.data = data;
+            this.unit = unit;
+        } else {
+            this.data = null;
+            this.unit = null;
+            unitCache.put(reference, unit);
+        }
+    }
 
-            final ParserConfiguration config = new ParserConfiguration().setSymbolResolver(new JavaSymbolSolver(typeSolver));
+    /**
+     * Create a file from the summary of a previous extraction without parsing it.
+     * The {@link CompilationUnit} is parsed on the first access. Files with a lexical summary are never parsed,
+     * their unit only contains the package, the imports and empty class declarations.
+     * @param reference Source file
+     * @param summary Summary of the unchanged file
+     * @param typeSolver Type solver used for symbol resolution
+     * @param unitCache Optional cache, see {@link #JavaFile(File, String, TypeSolver, CompilationUnitCache)}
+     */
+    public JavaFile(@NonNull File reference, @NonNull JavaFileSummary summary, @NonNull TypeSolver typeSolver, CompilationUnitCache unitCache) {
+        this.reference = reference;
+        this.summary = summary;
+        this.typeSolver = typeSolver;
+        this.unitCache = unitCache;
+        this.data = null;
+    }
+
+    private CompilationUnit parse() {
+        try {
+            final ParserConfiguration config = new ParserConfiguration().setSymbolResolver(new JavaSymbolSolver(this.typeSolver));
 
             final ParseResult<CompilationUnit> compilationUnit = new JavaParser(config).parse(this.reference);
+            this.parseProblems = compilationUnit.getProblems().stream().map(Problem::getVerboseMessage).toList();
 
             if(compilationUnit.getResult().isEmpty()) {
-                throw new RuntimeException("Could not parse java file: " + reference.getAbsolutePath());
+                throw new RuntimeException("Could not parse java file: " + reference.getAbsolutePath()
+                    + (this.parseProblems.isEmpty() ? "" : " (" + this.parseProblems.getFirst() + ")"));
             }
 
-            this.unit = compilationUnit.getResult().get();
+            return compilationUnit.getResult().get();
         } catch (FileNotFoundException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Get the parsed compilation unit. In bounded-memory mode the unit is taken from the cache or parsed again.
+     * @return The compilation unit
+     */
+    public CompilationUnit getUnit() {
+        final CompilationUnit unit = this.unit;
+        if(unit != null) {
+            return unit;
+        }
+
+        if(this.unitCache != null && !this.summary.lexical()) {
+            return this.unitCache.get(this.reference, this::parse);
+        }
+
+        synchronized (this) {
+            if(this.unit == null) {
+                this.unit = this.summary.lexical() ? this.createLexicalUnit() : this.parse();
+            }
+
+            return this.unit;
+        }
+    }
+
+    /**
+     * Build the stand-in unit of a file that was only scanned lexically.
+     */
+    private CompilationUnit createLexicalUnit() {
+        final CompilationUnit unit = new CompilationUnit();
+        if(this.summary.packageName() != null) {
+            unit.setPackageDeclaration(this.summary.packageName());
+        }
+
+        for(String importName : this.summary.imports()) {
+            final boolean asterisk = importName.endsWith(".*");
+            unit.addImport(asterisk ? importName.substring(0, importName.length() - 2) : importName, false, asterisk);
+        }
+
+        // Enclosing types are scanned before their members, so the parent is always known
+        final Map<String, TypeDeclaration<?>> declarations = new HashMap<>();
+        for(JavaFileSummary.LexicalType lexicalType : this.summary.lexicalTypes()) {
+            final NodeList<Modifier> modifiers = Modifier.createModifierList(Modifier.Keyword.PUBLIC);
+            final TypeDeclaration<?> declaration = switch (lexicalType.kind()) {
+                case CLASS -> new ClassOrInterfaceDeclaration(modifiers, false, lexicalType.simpleName());
+                case INTERFACE -> new ClassOrInterfaceDeclaration(modifiers, true, lexicalType.simpleName());
+                case ENUM -> new EnumDeclaration(modifiers, lexicalType.simpleName());
+                case RECORD -> new RecordDeclaration(modifiers, lexicalType.simpleName());
+                case ANNOTATION -> new AnnotationDeclaration(modifiers, lexicalType.simpleName());
+            };
+
+            final TypeDeclaration<?> enclosing = lexicalType.enclosingName() == null ? null : declarations.get(lexicalType.enclosingName());
+            if(enclosing != null) {
+                enclosing.addMember(declaration);
+            } else {
+                unit.addType(declaration);
+            }
+
+            declarations.put(lexicalType.name(), declaration);
+        }
+
+        new JavaSymbolSolver(this.typeSolver).inject(unit);
+        return unit;
+    }
+
+    /**
+     * Check if the file exceeded a parse budget and only its declarations are known, see {@link JavaFileSummary#scan(String)}.
+     * @return True if the file was not parsed
+     */
+    public boolean isLexical() {
+        return this.summary.lexical();
+    }
+
+    /**
+     * Get the content of the source file. In bounded-memory mode the file is read again.
+     * @return The source code
+     */
+    public String getData() {
+        if(this.data != null) {
+            return this.data;
+        }
+
+        try {
+            return Files.readString(this.reference.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
     public ClassOrInterfaceDeclaration getClassOrInterfaceDeclaration(@NonNull String name) {
-        return this.unit.getClassByName(name).orElse(null);
+        if(!this.summary.classNames().contains(name)) {
+            return null;
+        }
+
+        return this.getUnit().getClassByName(name).orElse(null);
     }
 
     public List<ClassOrInterfaceDeclaration> getClassOrInterfaceDeclarations() {
-        return this.unit.findAll(ClassOrInterfaceDeclaration.class);
+        return this.getUnit().findAll(ClassOrInterfaceDeclaration.class);
     }
 
     public List<MethodDeclaration> getMethodDeclarations() {
-        return this.unit.findAll(MethodDeclaration.class);
+        return this.getUnit().findAll(MethodDeclaration.class);
     }
 
     public List<FieldDeclaration> getFieldDeclarations() {
-        return this.unit.findAll(FieldDeclaration.class);
+        return this.getUnit().findAll(FieldDeclaration.class);
     }
 
     public List<JavaClassAnnotationContainer> findClassAnnotations() {
@@ -110,21 +252,23 @@ public class JavaFile {
     }
 
     public Optional<ImportDeclaration> findAnnotationPackage(@NonNull AnnotationExpr annotation) {
-        return unit.getImports().stream().filter(importDeclaration -> importDeclaration.getNameAsString().endsWith(annotation.getNameAsString())).findFirst();
+        return this.getUnit().getImports().stream().filter(importDeclaration -> importDeclaration.getNameAsString().endsWith(annotation.getNameAsString())).findFirst();
     }
 
     public String getPackage() {
-        if(this.unit.getPackageDeclaration().isPresent()) {
-            return this.unit.getPackageDeclaration().get().getNameAsString();
-        } else {
-            return null;
-        }
+        return this.summary.packageName();
+    }
+
+    /**
+     * Check if the file declares a class or interface with the given name. Does not need the {@link CompilationUnit}.
+     * @param className Simple class name
+     * @return True if the class is declared in this file
+     */
+    public boolean declaresClass(@NonNull String className) {
+        return this.summary.classNames().contains(className);
     }
 
     public boolean hasImport(@NonNull String importName) {
-        for(ImportDeclaration importDeclaration : this.unit.getImports()) {
-            if(importDeclaration.getNameAsString().equals(importName)) return true;
-        }
-        return false;
+        return this.summary.imports().contains(importName);
     }
-}
\ No newline at end of file
+}
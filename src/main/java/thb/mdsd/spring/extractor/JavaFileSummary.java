@@ -0,0 +1,187 @@
+package thb.mdsd.spring.extractor;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import lombok.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lightweight metadata of a java file that stays resident even if the {@link CompilationUnit} is evicted.
+ * @param packageName Package name or null for the default package
+ * @param classNames Names of all classes, interfaces, enums, records and annotation types declared in the file (including nested ones)
+ * @param classAnnotationNames Names of all annotations on these types
+ * @param imports Names of all import declarations, wildcard imports end with ".*"
+ * @param lexical True if the file exceeded a parse budget and the summary comes from {@link #scan(String)}
+ * @param lexicalTypes Member types found by {@link #scan(String)} in declaration order, empty if the file was parsed
+ */
+public record JavaFileSummary(String packageName, @NonNull Set<String> classNames, @NonNull Set<String> classAnnotationNames, @NonNull List<String> imports, boolean lexical,
+                              @NonNull List<LexicalType> lexicalTypes) {
+
+    /**
+     * Type declaration found by the lexical scan.
+     * @param name Name of the type, nested types are qualified by their enclosing types, e.g. "Outer.Inner"
+     * @param kind Kind of the declaration
+     */
+    public record LexicalType(@NonNull String name, @NonNull Kind kind) {
+
+        public enum Kind { CLASS, INTERFACE, ENUM, RECORD, ANNOTATION }
+
+        /**
+         * @return Qualified name of the enclosing type or null for a top level type
+         */
+        public String enclosingName() {
+            final int lastDot = this.name.lastIndexOf('.');
+            return lastDot < 0 ? null : this.name.substring(0, lastDot);
+        }
+
+        public String simpleName() {
+            return this.name.substring(this.name.lastIndexOf('.') + 1);
+        }
+    }
+
+    private static final Pattern PACKAGE = Pattern.compile("\\bpackage\\s+([\\w.\\s]+?)\\s*;");
+    private static final Pattern IMPORT = Pattern.compile("\\bimport\\s+(?:static\\s+)?([\\w.\\s]+?(?:\\.\\s*\\*)?)\\s*;");
+    private static final Pattern DECLARATION_TOKEN = Pattern.compile("(?<![\\w@.])(class|interface|enum|record)\\s+(\\w+)|@\\s*interface\\s+(\\w+)|@\\s*([A-Za-z_$][\\w$.]*)|[;{}()]");
+
+    public static JavaFileSummary of(@NonNull CompilationUnit unit) {
+        final Set<String> classNames = new LinkedHashSet<>();
+        final Set<String> classAnnotationNames = new LinkedHashSet<>();
+
+        for(TypeDeclaration<?> declaration : unit.findAll(TypeDeclaration.class)) {
+            classNames.add(declaration.getNameAsString());
+            for(AnnotationExpr annotationExpr : declaration.getAnnotations()) {
+                classAnnotationNames.add(annotationExpr.getNameAsString());
+            }
+        }
+
+        return new JavaFileSummary(
+            unit.getPackageDeclaration().map(packageDeclaration -> packageDeclaration.getNameAsString()).orElse(null),
+            Set.copyOf(classNames),
+            Set.copyOf(classAnnotationNames),
+            unit.getImports().stream().map(importDeclaration -> importDeclaration.isAsterisk() ? importDeclaration.getNameAsString() + ".*" : importDeclaration.getNameAsString()).toList(),
+            false,
+            List.of()
+        );
+    }
+
+    /**
+     * Create a summary from the source code without parsing it. Only the package, the imports and the names, kinds,
+     * nesting and annotations of the declared types are found, which is enough to resolve the types declared in the file.
+     * @param data Content of the source file
+     * @return The lexical summary
+     */
+    public static JavaFileSummary scan(@NonNull String data) {
+        final String code = stripCommentsAndLiterals(data);
+
+        final Matcher packageMatcher = PACKAGE.matcher(code);
+        final String packageName = packageMatcher.find() ? packageMatcher.group(1).replaceAll("\\s", "") : null;
+
+        final List<String> imports = new ArrayList<>();
+        final Matcher importMatcher = IMPORT.matcher(code);
+        while (importMatcher.find()) {
+            imports.add(importMatcher.group(1).replaceAll("\\s", ""));
+        }
+
+        // Annotations directly in front of a declaration belong to it, everything else is dropped at the next ; { or }
+        final Set<String> classNames = new LinkedHashSet<>();
+        final Set<String> classAnnotationNames = new LinkedHashSet<>();
+        final List<LexicalType> lexicalTypes = new ArrayList<>();
+        final List<String> pendingAnnotations = new ArrayList<>();
+        final Matcher tokenMatcher = DECLARATION_TOKEN.matcher(code);
+
+        // One entry per open brace: the qualified name of the type whose body it opens or "" for any other block
+        final Deque<String> blocks = new ArrayDeque<>();
+        String pendingType = null;
+        int depth = 0;
+
+        while (tokenMatcher.find()) {
+            final String name = tokenMatcher.group(2) != null ? tokenMatcher.group(2) : tokenMatcher.group(3);
+
+            if(name != null) {
+                classNames.add(name);
+                classAnnotationNames.addAll(pendingAnnotations);
+                pendingAnnotations.clear();
+
+                // Local and anonymous classes are no members, they are only listed by name
+                if(!blocks.contains("")) {
+                    pendingType = blocks.isEmpty() ? name : blocks.peek() + "." + name;
+                    final LexicalType.Kind kind = tokenMatcher.group(3) != null ? LexicalType.Kind.ANNOTATION : LexicalType.Kind.valueOf(tokenMatcher.group(1).toUpperCase());
+                    lexicalTypes.add(new LexicalType(pendingType, kind));
+                }
+            } else if(tokenMatcher.group(4) != null) {
+                if(depth == 0) {
+                    pendingAnnotations.add(tokenMatcher.group(4));
+                }
+            } else {
+                switch (tokenMatcher.group().charAt(0)) {
+                    case '(' -> depth++;
+                    case ')' -> depth = Math.max(0, depth - 1);
+                    case '{' -> {
+                        blocks.push(pendingType != null ? pendingType : "");
+                        pendingType = null;
+                        if(depth == 0) pendingAnnotations.clear();
+                    }
+                    case '}' -> {
+                        if(!blocks.isEmpty()) blocks.pop();
+                        if(depth == 0) pendingAnnotations.clear();
+                    }
+                    default -> {
+                        if(depth == 0) pendingAnnotations.clear();
+                    }
+                }
+            }
+        }
+
+        return new JavaFileSummary(packageName, Set.copyOf(classNames), Set.copyOf(classAnnotationNames), List.copyOf(imports), true, List.copyOf(lexicalTypes));
+    }
+
+    /**
+     * Replace comments, string, text block and character literals by spaces, so the patterns only match code.
+     */
+    private static String stripCommentsAndLiterals(@NonNull String data) {
+        final StringBuilder builder = new StringBuilder(data.length());
+        int i = 0;
+
+        while (i < data.length()) {
+            final char current = data.charAt(i);
+            final char next = i + 1 < data.length() ? data.charAt(i + 1) : 0;
+            int end;
+
+            if(current == '/' && next == '/') {
+                end = data.indexOf('\n', i);
+                end = end < 0 ? data.length() : end;
+            } else if(current == '/' && next == '*') {
+                end = data.indexOf("*/", i + 2);
+                end = end < 0 ? data.length() : end + 2;
+            } else if(data.startsWith("\"\"\"", i)) {
+                end = data.indexOf("\"\"\"", i + 3);
+                end = end < 0 ? data.length() : end + 3;
+            } else if(current == '"' || current == '\'') {
+                end = i + 1;
+                while (end < data.length() && data.charAt(end) != current && data.charAt(end) != '\n') {
+                    end += data.charAt(end) == '\\' ? 2 : 1;
+                }
+                end = Math.min(end + 1, data.length());
+            } else {
+                builder.append(current);
+                i++;
+                continue;
+            }
+
+            builder.append(" ".repeat(end - i));
+            i = end;
+        }
+
+        return builder.toString();
+    }
+}
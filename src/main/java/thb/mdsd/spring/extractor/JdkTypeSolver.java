@@ -0,0 +1,64 @@
+package thb.mdsd.spring.extractor;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Type solver for JDK classes that shares its lookups with every other instance in the JVM.
+ * JDK types only ever reference other JDK types, so a resolved declaration can be reused across projects.
+ * Only solved types are cached, names of project types (e.g. the implicit "java.lang.&lt;Name&gt;" probes) would let the cache grow with every project.
+ */
+public class JdkTypeSolver implements TypeSolver {
+
+    private static final ReflectionTypeSolver REFLECTION_TYPE_SOLVER = new ReflectionTypeSolver();
+    private static final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> CACHE = new ConcurrentHashMap<>();
+
+    private TypeSolver parent;
+
+    @Override
+    public TypeSolver getParent() {
+        return this.parent;
+    }
+
+    @Override
+    public void setParent(@NonNull TypeSolver parent) {
+        if(this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent.");
+        }
+
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(@NonNull String name) {
+        if(!name.startsWith("java.") && !name.startsWith("javax.")) {
+            return SymbolReference.unsolved();
+        }
+
+        final SymbolReference<ResolvedReferenceTypeDeclaration> cached = CACHE.get(name);
+        if(cached != null) {
+            return cached;
+        }
+
+        final SymbolReference<ResolvedReferenceTypeDeclaration> reference = REFLECTION_TYPE_SOLVER.tryToSolveType(name);
+        if(reference.isSolved()) {
+            CACHE.putIfAbsent(name, reference);
+        }
+
+        return reference;
+    }
+
+    /**
+     * Number of solved JDK types that are currently cached.
+     * @return Cache size
+     */
+    public static int getCacheSize() {
+        return CACHE.size();
+    }
+}
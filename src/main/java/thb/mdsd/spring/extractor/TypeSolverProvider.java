@@ -0,0 +1,77 @@
+package thb.mdsd.spring.extractor;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import lombok.NonNull;
+import thb.mdsd.spring.classpath.ClassPathIndex;
+import thb.mdsd.spring.classpath.ClassPathTypeSolver;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Hands out one type solver per source root, so all files of a project share the same symbol caches.
+ */
+public class TypeSolverProvider {
+
+    /**
+     * Find the source root (e.g. "src/main/java") of a java file.
+     * @param javaFile Java source file
+     * @return The source root or the parent directory if no "src" folder was found
+     */
+    public static File getSourceRoot(@NonNull File javaFile) {
+        String path = javaFile.getAbsolutePath();
+        int srcIndex = path.indexOf(File.separator + "src" + File.separator);
+
+        if (srcIndex != -1) {
+            String afterSrc = path.substring(srcIndex + 5);
+            String[] parts = afterSrc.split(Pattern.quote(File.separator));
+
+            if (parts.length >= 2) {
+                String rootPath = path.substring(0, srcIndex) + File.separator + "src" + File.separator + parts[0] + File.separator + parts[1];
+                return new File(rootPath);
+            }
+        }
+
+        return javaFile.getParentFile();
+    }
+
+    private final Map<File, TypeSolver> typeSolvers = new HashMap<>();
+    private final ClassPathIndex classPathIndex;
+    private final long sourceCacheSize;
+
+    public TypeSolverProvider() {
+        this(null, -1);
+    }
+
+    /**
+     * @param classPathIndex Optional index of compiled classes, used for types without sources in the source root (e.g. dependencies)
+     * @param sourceCacheSize Maximum number of parsed files the source type solver keeps per source root, -1 for no limit
+     */
+    public TypeSolverProvider(ClassPathIndex classPathIndex, long sourceCacheSize) {
+        this.classPathIndex = classPathIndex;
+        this.sourceCacheSize = sourceCacheSize;
+    }
+
+    /**
+     * Get the type solver responsible for the given java file.
+     * @param javaFile Java source file
+     * @return A type solver combining the shared {@link JdkTypeSolver}, the source root of the file and the compiled classes (if configured)
+     */
+    public synchronized TypeSolver getTypeSolver(@NonNull File javaFile) {
+        return this.typeSolvers.computeIfAbsent(getSourceRoot(javaFile), sourceRoot -> {
+            // Sources first, so compiled classes that are older than the sources do not shadow them
+            final CombinedTypeSolver typeSolver = new CombinedTypeSolver(new JdkTypeSolver());
+            typeSolver.add(new JavaParserTypeSolver(sourceRoot.toPath(), new ParserConfiguration(), this.sourceCacheSize));
+            if(this.classPathIndex != null) {
+                typeSolver.add(new ClassPathTypeSolver(this.classPathIndex));
+            }
+
+            return typeSolver;
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package thb.mdsd.spring.extractor.container;
+
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import lombok.NonNull;
+import thb.mdsd.spring.extractor.JavaFile;
+
+import java.util.List;
+
+/**
+ * Route of a controller method as declared, before it is normalized in a {@link thb.mdsd.spring.mapping.RouteTrie}.
+ * @param method HTTP method
+ * @param location Location of the handler method, e.g. "com.example#getUser"
+ * @param headerPath Path of the class-level mapping
+ * @param literal Path of the method-level mapping
+ * @param errorStatuses Status codes of the {@code @ExceptionHandler} methods of the controller and of all controller advices, sorted
+ */
+public record ControllerRoute(@NonNull JavaFile javaFileContainer, @NonNull MethodDeclaration methodDeclaration, @NonNull String method, @NonNull String location,
+                              @NonNull String headerPath, @NonNull String literal, int responseStatus, NodeList<Expression> consumes, NodeList<Expression> produces,
+                              @NonNull List<Integer> errorStatuses) {
+
+    /**
+     * @param path Normalized path of the route
+     * @return The endpoint of this route
+     */
+    public SpringPathContainer toContainer(@NonNull String path) {
+        return new SpringPathContainer(this.javaFileContainer, this.methodDeclaration, path, this.method, this.responseStatus, this.consumes, this.produces, this.errorStatuses);
+    }
+}
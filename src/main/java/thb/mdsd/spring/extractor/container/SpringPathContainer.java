@@ -6,4 +6,9 @@ import com.github.javaparser.ast.expr.Expression;
 import lombok.NonNull;
 import thb.mdsd.spring.extractor.JavaFile;
 
-public record SpringPathContainer(@NonNull JavaFile javaFileContainer, @NonNull MethodDeclaration methodDeclaration, @NonNull String path, @NonNull String method, int responseStatus, NodeList<Expression> consumes, NodeList<Expression> produces) { }
+import java.util.List;
+
+/**
+ * @param errorStatuses Status codes of the {@code @ExceptionHandler} methods of the controller and of all controller advices, sorted
+ */
+public record SpringPathContainer(@NonNull JavaFile javaFileContainer, @NonNull MethodDeclaration methodDeclaration, @NonNull String path, @NonNull String method, int responseStatus, NodeList<Expression> consumes, NodeList<Expression> produces, @NonNull List<Integer> errorStatuses) { }
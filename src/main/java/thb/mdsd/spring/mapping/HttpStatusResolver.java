@@ -0,0 +1,141 @@
+package thb.mdsd.spring.mapping;
+
+import com.github.javaparser.ast.expr.*;
+import lombok.NonNull;
+import thb.mdsd.spring.data.HttpStatus;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Resolves the status of {@code @ResponseStatus} annotations with lookup tables that are built once from {@link HttpStatus}.
+ * Supported values:
+ * <ul>
+ *     <li>{@code HttpStatus.NOT_FOUND}, {@code org.springframework.http.HttpStatus.NOT_FOUND}, {@code NOT_FOUND} (static import)</li>
+ *     <li>{@code 404}, {@code "404"}, {@code "NOT_FOUND"}, {@code "Not Found"}</li>
+ *     <li>{@code HttpStatus.valueOf(404)}, {@code HttpStatusCode.valueOf(404)}</li>
+ * </ul>
+ * in the single-member form as well as {@code value = ...} and {@code code = ...}.
+ */
+public final class HttpStatusResolver {
+
+    /**
+     * Status Spring uses if a {@code @ResponseStatus} has neither a value nor a code, e.g. {@code @ResponseStatus(reason = "...")}.
+     */
+    public static final int DEFAULT_ANNOTATION_STATUS = HttpStatus.INTERNAL_SERVER_ERROR.getValue();
+
+    private static final String[] STATUS_CLASS_PREFIXES = { "", "HttpStatus.", "org.springframework.http.HttpStatus." };
+
+    private static final Map<String, HttpStatus> BY_NAME = new HashMap<>();
+    private static final Map<Integer, HttpStatus> BY_VALUE = new HashMap<>();
+    private static final Map<String, HttpStatus> BY_REASON_PHRASE = new HashMap<>();
+
+    static {
+        for(HttpStatus httpStatus : HttpStatus.values()) {
+            for(String prefix : STATUS_CLASS_PREFIXES) {
+                BY_NAME.put(prefix + httpStatus.name(), httpStatus);
+            }
+
+            // Deprecated aliases share the value of the current constant, which is declared first
+            BY_VALUE.putIfAbsent(httpStatus.getValue(), httpStatus);
+            BY_REASON_PHRASE.putIfAbsent(httpStatus.getReasonPhrase().toLowerCase(Locale.ROOT), httpStatus);
+        }
+    }
+
+    private HttpStatusResolver() { }
+
+    /**
+     * Resolve the status of a {@code @ResponseStatus} annotation.
+     * @param annotationExpr The annotation
+     * @return The status code, {@link #DEFAULT_ANNOTATION_STATUS} if the annotation has neither value nor code,
+     *         or empty if the value can not be evaluated statically
+     */
+    public static OptionalInt resolve(@NonNull AnnotationExpr annotationExpr) {
+        if(annotationExpr instanceof SingleMemberAnnotationExpr singleMemberAnnotationExpr) {
+            return resolveValue(singleMemberAnnotationExpr.getMemberValue());
+        }
+
+        if(annotationExpr instanceof NormalAnnotationExpr normalAnnotationExpr) {
+            for(MemberValuePair pair : normalAnnotationExpr.getPairs()) {
+                if(pair.getNameAsString().equals("value") || pair.getNameAsString().equals("code")) {
+                    return resolveValue(pair.getValue());
+                }
+            }
+        }
+
+        return OptionalInt.of(DEFAULT_ANNOTATION_STATUS);
+    }
+
+    /**
+     * Resolve a status expression.
+     * @param expression Constant, number, string or {@code valueOf} call
+     * @return The status code or empty if the expression can not be evaluated statically
+     */
+    public static OptionalInt resolveValue(@NonNull Expression expression) {
+        if(expression instanceof FieldAccessExpr || expression instanceof NameExpr) {
+            return toCode(BY_NAME.get(expression.toString()));
+        }
+
+        if(expression instanceof IntegerLiteralExpr integerLiteralExpr) {
+            return code(integerLiteralExpr.getValue());
+        }
+
+        if(expression instanceof StringLiteralExpr stringLiteralExpr) {
+            final String value = stringLiteralExpr.getValue().trim();
+            final OptionalInt code = code(value);
+            if(code.isPresent()) {
+                return code;
+            }
+
+            final HttpStatus byName = BY_NAME.get(value.toUpperCase(Locale.ROOT));
+            return toCode(byName != null ? byName : BY_REASON_PHRASE.get(value.toLowerCase(Locale.ROOT)));
+        }
+
+        if(expression instanceof MethodCallExpr methodCallExpr && methodCallExpr.getNameAsString().equals("valueOf") && methodCallExpr.getArguments().size() == 1) {
+            return resolveValue(methodCallExpr.getArgument(0));
+        }
+
+        if(expression instanceof EnclosedExpr enclosedExpr) {
+            return resolveValue(enclosedExpr.getInner());
+        }
+
+        return OptionalInt.empty();
+    }
+
+    /**
+     * Get the reason phrase of a status code.
+     * @param code Status code
+     * @return The reason phrase or null if the code is not a known {@link HttpStatus}
+     */
+    public static String getReasonPhrase(int code) {
+        final HttpStatus httpStatus = BY_VALUE.get(code);
+        return httpStatus == null ? null : httpStatus.getReasonPhrase();
+    }
+
+    private static OptionalInt toCode(HttpStatus httpStatus) {
+        return httpStatus == null ? OptionalInt.empty() : OptionalInt.of(httpStatus.getValue());
+    }
+
+    /**
+     * Parse a three digit status code. Codes without constant (e.g. 299) are accepted as well.
+     */
+    private static OptionalInt code(@NonNull String value) {
+        if(value.length() != 3) {
+            return OptionalInt.empty();
+        }
+
+        int code = 0;
+        for(int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if(c < '0' || c > '9') {
+                return OptionalInt.empty();
+            }
+
+            code = code * 10 + (c - '0');
+        }
+
+        return code >= 100 && code <= 599 ? OptionalInt.of(code) : OptionalInt.empty();
+    }
+}
@@ -0,0 +1,187 @@
+package thb.mdsd.spring.mapping;
+
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.expr.*;
+import lombok.Getter;
+import lombok.NonNull;
+import thb.mdsd.spring.data.AnnotationValueRegistry;
+import thb.mdsd.spring.data.CommonAnnotationNameRegistry;
+import thb.mdsd.spring.data.MediaTypeRegistry;
+import thb.mdsd.spring.diagnostics.DiagnosticCollector;
+import thb.mdsd.spring.diagnostics.DiagnosticStage;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatch table of all Spring mapping annotations. An annotation is matched with a single hash lookup of its name,
+ * the shortcut annotations (e.g. @GetMapping) carry their fixed HTTP method.
+ */
+@Getter
+public enum MappingAnnotation {
+
+    REQUEST_MAPPING(CommonAnnotationNameRegistry.REQUEST_MAPPING, null),
+    GET_MAPPING(CommonAnnotationNameRegistry.GET_MAPPING, "GET"),
+    POST_MAPPING(CommonAnnotationNameRegistry.POST_MAPPING, "POST"),
+    PUT_MAPPING(CommonAnnotationNameRegistry.PUT_MAPPING, "PUT"),
+    DELETE_MAPPING(CommonAnnotationNameRegistry.DELETE_MAPPING, "DELETE"),
+    PATCH_MAPPING(CommonAnnotationNameRegistry.PATCH_MAPPING, "PATCH");
+
+    private static final Map<String, MappingAnnotation> BY_NAME = new HashMap<>();
+
+    /**
+     * Methods of a {@code @RequestMapping} without "method" attribute. Spring maps every method then, these are the ones
+     * with a shortcut annotation.
+     */
+    public static final List<String> ANY_METHOD;
+
+    static {
+        final List<String> anyMethod = new LinkedList<>();
+        for(MappingAnnotation mappingAnnotation : values()) {
+            BY_NAME.put(mappingAnnotation.annotationName.toString(), mappingAnnotation);
+            if(mappingAnnotation.fixedMethod != null) {
+                anyMethod.addLast(mappingAnnotation.fixedMethod);
+            }
+        }
+
+        ANY_METHOD = List.copyOf(anyMethod);
+    }
+
+    /**
+     * Find the mapping annotation for an annotation expression.
+     * @param annotationExpr Annotation, simple or fully qualified
+     * @return The mapping annotation or null if the annotation is not a Spring mapping annotation
+     */
+    public static MappingAnnotation of(@NonNull AnnotationExpr annotationExpr) {
+        return BY_NAME.get(annotationExpr.getName().getIdentifier());
+    }
+
+    private final CommonAnnotationNameRegistry annotationName;
+    private final String fixedMethod;
+
+    MappingAnnotation(@NonNull CommonAnnotationNameRegistry annotationName, String fixedMethod) {
+        this.annotationName = annotationName;
+        this.fixedMethod = fixedMethod;
+    }
+
+    /**
+     * Read paths, methods and media types of the annotation. Supports the marker, single-member and normal form,
+     * single values as well as arrays. Values that can not be evaluated statically are reported and skipped.
+     * A {@code @RequestMapping} without "method" attribute gets {@link #ANY_METHOD}.
+     * @param annotationExpr Annotation of this type
+     * @param location Description of the annotated element for warnings
+     * @param diagnostics Receives a warning for every skipped value
+     * @return The normalized mapping
+     */
+    public RequestMappingInfo parse(@NonNull AnnotationExpr annotationExpr, @NonNull String location, @NonNull DiagnosticCollector diagnostics) {
+        final List<String> paths = new LinkedList<>();
+        final List<String> methods = new LinkedList<>();
+        NodeList<Expression> consumes = null, produces = null;
+        boolean hasMethodAttribute = false;
+
+        if(this.fixedMethod != null) {
+            methods.addLast(this.fixedMethod);
+        }
+
+        if(annotationExpr instanceof SingleMemberAnnotationExpr singleMemberAnnotationExpr) {
+            addStrings(paths, singleMemberAnnotationExpr.getMemberValue(), "path", location, diagnostics);
+        } else if(annotationExpr instanceof NormalAnnotationExpr normalAnnotationExpr) {
+            for(MemberValuePair pair : normalAnnotationExpr.getPairs()) {
+                final String key = pair.getNameAsString();
+                final Expression expression = pair.getValue();
+
+                if(key.equals(AnnotationValueRegistry.REQUEST_MAPPING_PATH.toString()) || key.equals(AnnotationValueRegistry.REQUEST_MAPPING_PATH_ALIAS.toString())) {
+                    addStrings(paths, expression, "path", location, diagnostics);
+                } else if(key.equals(AnnotationValueRegistry.REQUEST_MAPPING_METHOD.toString()) && this.fixedMethod == null) {
+                    hasMethodAttribute = true;
+                    addMethods(methods, expression, location, diagnostics);
+                } else if(key.equals(AnnotationValueRegistry.REQUEST_MAPPING_CONSUMES.toString())) {
+                    consumes = mediaTypes(expression, location, diagnostics);
+                } else if(key.equals(AnnotationValueRegistry.REQUEST_MAPPING_PRODUCES.toString())) {
+                    produces = mediaTypes(expression, location, diagnostics);
+                }
+            }
+        }
+
+        if(this.fixedMethod == null && !hasMethodAttribute) {
+            methods.addAll(ANY_METHOD);
+        }
+
+        return new RequestMappingInfo(paths, methods, consumes, produces);
+    }
+
+    private static void addStrings(@NonNull List<String> output, @NonNull Expression expression, @NonNull String attribute, @NonNull String location, @NonNull DiagnosticCollector diagnostics) {
+        if(expression instanceof ArrayInitializerExpr arrayInitializerExpr) {
+            for(Expression value : arrayInitializerExpr.getValues()) {
+                addStrings(output, value, attribute, location, diagnostics);
+            }
+            return;
+        }
+
+        final String value = constantString(expression);
+        if(value == null) {
+            diagnostics.warning(DiagnosticStage.ENDPOINT, location, "Can not extract " + attribute + " \"" + expression + "\" from mapping annotation");
+        } else {
+            output.addLast(value);
+        }
+    }
+
+    private static String constantString(@NonNull Expression expression) {
+        if(expression instanceof StringLiteralExpr stringLiteralExpr) {
+            return stringLiteralExpr.getValue();
+        }
+
+        if(expression instanceof EnclosedExpr enclosedExpr) {
+            return constantString(enclosedExpr.getInner());
+        }
+
+        if(expression instanceof BinaryExpr binaryExpr && binaryExpr.getOperator() == BinaryExpr.Operator.PLUS) {
+            final String left = constantString(binaryExpr.getLeft());
+            final String right = constantString(binaryExpr.getRight());
+            return left == null || right == null ? null : left + right;
+        }
+
+        return null;
+    }
+
+    private static void addMethods(@NonNull List<String> output, @NonNull Expression expression, @NonNull String location, @NonNull DiagnosticCollector diagnostics) {
+        if(expression instanceof ArrayInitializerExpr arrayInitializerExpr) {
+            for(Expression value : arrayInitializerExpr.getValues()) {
+                addMethods(output, value, location, diagnostics);
+            }
+        } else if(expression instanceof FieldAccessExpr fieldAccessExpr) {
+            output.addLast(fieldAccessExpr.getNameAsString());
+        } else if(expression instanceof NameExpr nameExpr) { // Static import of RequestMethod
+            output.addLast(nameExpr.getNameAsString());
+        } else {
+            diagnostics.warning(DiagnosticStage.ENDPOINT, location, "Can not extract method \"" + expression + "\" from mapping annotation");
+        }
+    }
+
+    private static NodeList<Expression> mediaTypes(@NonNull Expression expression, @NonNull String location, @NonNull DiagnosticCollector diagnostics) {
+        final NodeList<Expression> output = new NodeList<>();
+        final List<Expression> values = expression instanceof ArrayInitializerExpr arrayInitializerExpr ? arrayInitializerExpr.getValues() : List.of(expression);
+
+        for(Expression value : values) {
+            final String constant = constantString(value);
+            if(constant != null) {
+                output.add(new StringLiteralExpr(constant));
+                continue;
+            }
+
+            final String constantName = value instanceof FieldAccessExpr fieldAccessExpr ? fieldAccessExpr.getNameAsString()
+                : value instanceof NameExpr nameExpr ? nameExpr.getNameAsString() : null;
+            final MediaTypeRegistry mediaType = constantName == null ? null : MediaTypeRegistry.byConstantName(constantName);
+
+            if(mediaType == null) {
+                diagnostics.warning(DiagnosticStage.ENDPOINT, location, "Can not extract media type \"" + value + "\" from mapping annotation");
+            } else {
+                output.add(new StringLiteralExpr(mediaType.toString()));
+            }
+        }
+
+        return output;
+    }
+}
@@ -0,0 +1,16 @@
+package thb.mdsd.spring.mapping;
+
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.expr.Expression;
+import lombok.NonNull;
+
+import java.util.List;
+
+/**
+ * Normalized content of a Spring mapping annotation.
+ * @param paths Declared paths, empty if the annotation does not declare a path
+ * @param methods HTTP methods (e.g. "GET"), empty if the annotation does not restrict the method
+ * @param consumes Consumed media types as string literals, null if not declared
+ * @param produces Produced media types as string literals, null if not declared
+ */
+public record RequestMappingInfo(@NonNull List<String> paths, @NonNull List<String> methods, NodeList<Expression> consumes, NodeList<Expression> produces) { }
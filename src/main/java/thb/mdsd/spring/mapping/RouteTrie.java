@@ -0,0 +1,205 @@
+package thb.mdsd.spring.mapping;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Segment trie of all routes of a project. Routes are normalized while they are inserted: empty segments (double and
+ * trailing slashes) are dropped and template variables are compared without their names and patterns, so
+ * {@code /users/{id}} and {@code /users/{userId:\d+}/} end in the same node. Conflicts are detected during the
+ * insertion, in time linear in the length of the route.
+ * @param <T> Value stored per route and HTTP method
+ */
+public class RouteTrie<T> {
+
+    public enum ConflictType {
+
+        /**
+         * The route and method are already mapped, the later route is dropped.
+         */
+        DUPLICATE,
+
+        /**
+         * The route only differs in the names of its template variables from a known route, the names of the known route are used.
+         */
+        VARIABLE_NAME
+    }
+
+    /**
+     * @param type Kind of conflict
+     * @param method HTTP method of the conflicting route
+     * @param route The conflicting route as declared
+     * @param path Normalized path the route was mapped to
+     * @param location Location of the conflicting route
+     * @param firstLocation Location of the known route
+     */
+    public record Conflict(@NonNull ConflictType type, @NonNull String method, @NonNull String route, @NonNull String path, @NonNull String location, @NonNull String firstLocation) {
+
+        @Override
+        public String toString() {
+            return switch (this.type) {
+                case DUPLICATE -> this.method + " " + this.path + " is already mapped by " + this.firstLocation + ", skipping " + this.route;
+                case VARIABLE_NAME -> "Path variables of " + this.route + " differ from " + this.firstLocation + ", using " + this.path;
+            };
+        }
+    }
+
+    /**
+     * @param key Segment with every template variable replaced by "{}"
+     * @param output Segment with the patterns of the variables removed (e.g. "{id:\d+}" becomes "{id}")
+     */
+    private record Segment(@NonNull String key, @NonNull String output) { }
+
+    private static final class Node<T> {
+        private final String segment;
+        private final String location;
+        private final Map<String, Node<T>> children = new HashMap<>();
+        private final Map<String, T> values = new LinkedHashMap<>();
+        private final Map<String, String> locations = new HashMap<>();
+
+        /**
+         * @param segment Output form of the segment, with the variable names of the first route
+         * @param location Location of the first route through this node
+         */
+        private Node(String segment, String location) {
+            this.segment = segment;
+            this.location = location;
+        }
+    }
+
+    private final Node<T> root = new Node<>("", "");
+
+    /**
+     * All conflicts in insertion order
+     */
+    @Getter
+    private final List<Conflict> conflicts = new LinkedList<>();
+
+    /**
+     * Add a route.
+     * @param method HTTP method
+     * @param location Location of the route for conflict reports, e.g. "com.example.UserController#getUser"
+     * @param valueFactory Creates the value from the normalized path, only called if the route is not a duplicate
+     * @param pathParts Parts of the route that are joined with "/", e.g. the class and the method mapping
+     * @return The value or null if the route and method are already mapped
+     */
+    public T add(@NonNull String method, @NonNull String location, @NonNull Function<String, T> valueFactory, @NonNull String... pathParts) {
+        final StringBuilder path = new StringBuilder();
+        Node<T> node = this.root;
+        Node<T> renamedNode = null;
+
+        for(String pathPart : pathParts) {
+            for(String segment : pathPart.split("/")) {
+                if(segment.isEmpty()) continue;
+
+                final Segment normalized = normalize(segment);
+                Node<T> child = node.children.get(normalized.key());
+                if(child == null) {
+                    child = new Node<>(normalized.output(), location);
+                    node.children.put(normalized.key(), child);
+                } else if(renamedNode == null && !child.segment.equals(normalized.output())) {
+                    renamedNode = child;
+                }
+
+                path.append('/').append(child.segment);
+                node = child;
+            }
+        }
+
+        final String normalizedPath = path.isEmpty() ? "/" : path.toString();
+        final String route = join(pathParts);
+        if(renamedNode != null) {
+            this.conflicts.addLast(new Conflict(ConflictType.VARIABLE_NAME, method, route, normalizedPath, location, renamedNode.location));
+        }
+
+        if(node.values.containsKey(method)) {
+            this.conflicts.addLast(new Conflict(ConflictType.DUPLICATE, method, route, normalizedPath, location, node.locations.get(method)));
+            return null;
+        }
+
+        final T value = valueFactory.apply(normalizedPath);
+        node.values.put(method, value);
+        node.locations.put(method, location);
+        return value;
+    }
+
+    /**
+     * Get all values in trie order: depth first, literal segments before template variables, siblings sorted by
+     * segment and methods of the same route in insertion order.
+     * @return The values
+     */
+    public List<T> getValues() {
+        final List<T> values = new ArrayList<>();
+        final Deque<Node<T>> pending = new ArrayDeque<>();
+        pending.push(this.root);
+
+        while (!pending.isEmpty()) {
+            final Node<T> node = pending.pop();
+            values.addAll(node.values.values());
+
+            final List<String> keys = new ArrayList<>(node.children.keySet());
+            keys.sort(Comparator.reverseOrder());  // Pushed in reverse, popped in order
+            keys.forEach(key -> pending.push(node.children.get(key)));
+        }
+
+        return values;
+    }
+
+    /**
+     * Join the parts of a route for reports, like Spring concatenates the class and the method mapping.
+     */
+    private static String join(@NonNull String... pathParts) {
+        final StringBuilder route = new StringBuilder();
+        for(String pathPart : pathParts) {
+            if(pathPart.isEmpty()) continue;
+
+            if(!route.isEmpty() && route.charAt(route.length() - 1) != '/' && !pathPart.startsWith("/")) {
+                route.append('/');
+            }
+            route.append(pathPart);
+        }
+
+        return route.isEmpty() ? "/" : route.toString();
+    }
+
+    private static Segment normalize(@NonNull String segment) {
+        if(segment.indexOf('{') < 0) {
+            return new Segment(segment, segment);
+        }
+
+        final StringBuilder key = new StringBuilder(segment.length());
+        final StringBuilder output = new StringBuilder(segment.length());
+        int i = 0;
+
+        while (i < segment.length()) {
+            final char character = segment.charAt(i);
+            if(character != '{') {
+                key.append(character);
+                output.append(character);
+                i++;
+                continue;
+            }
+
+            // Patterns may contain braces themselves, e.g. {id:\d{3}}
+            int depth = 0, end = i;
+            for(; end < segment.length(); end++) {
+                if(segment.charAt(end) == '{') depth++;
+                if(segment.charAt(end) == '}' && --depth == 0) break;
+            }
+
+            final String variable = segment.substring(i + 1, Math.min(end, segment.length()));
+            final int colon = variable.indexOf(':');
+            String name = colon < 0 ? variable : variable.substring(0, colon);
+            name = name.startsWith("*") ? name.substring(1) : name;  // Catch-all variable, e.g. {*path}
+
+            key.append("{}");
+            output.append('{').append(name.trim()).append('}');
+            i = end + 1;
+        }
+
+        return new Segment(key.toString(), output.toString());
+    }
+}
@@ -0,0 +1,215 @@
+package thb.mdsd.spring.query;
+
+import lombok.NonNull;
+import thb.mdsd.spring.extractor.JavaFile;
+import thb.mdsd.spring.extractor.JavaFileSummary;
+import thb.mdsd.util.LongIntMap;
+
+import java.util.*;
+
+/**
+ * Inverted indexes over the {@link JavaFileSummary} of all extracted files.
+ * Every file is identified by its position in the extraction order, so query results are {@link BitSet}s
+ * that can be combined with set operations and are free of duplicates by construction.
+ * Names are replaced by their id in the {@link SymbolTable} of the project, the indexes are arrays indexed by these ids.
+ */
+public class JavaFileIndex {
+
+    /**
+     * Bit sets of files by symbol id
+     */
+    private static final class SymbolBitSets {
+        private BitSet[] bitSets = new BitSet[64];
+
+        private void add(int id, int file) {
+            if(id >= this.bitSets.length) {
+                this.bitSets = Arrays.copyOf(this.bitSets, Math.max(id + 1, this.bitSets.length * 2));
+            }
+
+            if(this.bitSets[id] == null) {
+                this.bitSets[id] = new BitSet();
+            }
+
+            this.bitSets[id].set(file);
+        }
+
+        private BitSet get(int id) {
+            return id >= 0 && id < this.bitSets.length ? this.bitSets[id] : null;
+        }
+    }
+
+    private final List<JavaFile> files;
+    private final SymbolTable symbols;
+    private final SymbolBitSets byAnnotationName = new SymbolBitSets();
+    private final SymbolBitSets byQualifiedAnnotation = new SymbolBitSets();
+    private final SymbolBitSets byImport = new SymbolBitSets();
+    private final SymbolBitSets byPackage = new SymbolBitSets();
+    private final SymbolBitSets byPackagePrefix = new SymbolBitSets();
+
+    /**
+     * First file (in extraction order) declaring a class, by package and class name id, see {@link #classKey(int, int)}
+     */
+    private final LongIntMap byClass;
+
+    public JavaFileIndex(@NonNull Collection<JavaFile> files) {
+        this(files, new SymbolTable());
+    }
+
+    /**
+     * @param files Extracted files
+     * @param symbols Symbol table of the project, shared by the indexes of all extraction runs
+     */
+    public JavaFileIndex(@NonNull Collection<JavaFile> files, @NonNull SymbolTable symbols) {
+        this.files = List.copyOf(files);
+        this.symbols = symbols;
+        this.byClass = new LongIntMap(this.files.size());
+        final BitSet packageIds = new BitSet();
+
+        for(int i = 0; i < this.files.size(); i++) {
+            final JavaFileSummary summary = this.files.get(i).getSummary();
+
+            for(String importName : summary.imports()) {
+                this.byImport.add(symbols.intern(importName), i);
+            }
+
+            if(summary.packageName() != null) {
+                final int packageId = symbols.intern(summary.packageName());
+                this.byPackage.add(packageId, i);
+                packageIds.set(packageId);
+
+                for(String className : summary.classNames()) {
+                    this.byClass.putIfAbsent(classKey(packageId, symbols.intern(className)), i);
+                }
+            }
+
+            for(String annotationName : summary.classAnnotationNames()) {
+                final int lastDot = annotationName.lastIndexOf('.');
+                this.byAnnotationName.add(symbols.intern(annotationName.substring(lastDot + 1)), i);
+
+                for(String qualifiedName : qualify(annotationName, summary)) {
+                    this.byQualifiedAnnotation.add(symbols.intern(qualifiedName), i);
+                }
+            }
+        }
+
+        // A package matches its own prefix and the prefixes of its parents
+        for(int packageId = packageIds.nextSetBit(0); packageId >= 0; packageId = packageIds.nextSetBit(packageId + 1)) {
+            final BitSet packageFiles = this.byPackage.get(packageId);
+            String prefix = symbols.name(packageId);
+
+            while (true) {
+                final int prefixId = symbols.intern(prefix);
+                for(int file = packageFiles.nextSetBit(0); file >= 0; file = packageFiles.nextSetBit(file + 1)) {
+                    this.byPackagePrefix.add(prefixId, file);
+                }
+
+                final int lastDot = prefix.lastIndexOf('.');
+                if(lastDot < 0) break;
+                prefix = prefix.substring(0, lastDot);
+            }
+        }
+    }
+
+    private static long classKey(int packageId, int classNameId) {
+        return ((long) packageId << 32) | classNameId;
+    }
+
+    /**
+     * Find all fully qualified names an annotation can refer to in the given file:
+     * the name itself if it is qualified, otherwise the matching single-type import or, if there is none,
+     * the candidates of all wildcard imports and the own package.
+     */
+    private static List<String> qualify(@NonNull String annotationName, @NonNull JavaFileSummary summary) {
+        if(annotationName.indexOf('.') != -1) {
+            return List.of(annotationName);
+        }
+
+        final String suffix = "." + annotationName;
+        for(String importName : summary.imports()) {
+            if(importName.endsWith(suffix)) {
+                return List.of(importName);
+            }
+        }
+
+        final List<String> candidates = new LinkedList<>();
+        for(String importName : summary.imports()) {
+            if(importName.endsWith(".*")) {
+                candidates.addLast(importName.substring(0, importName.length() - 1) + annotationName);
+            }
+        }
+
+        if(summary.packageName() != null) {
+            candidates.addLast(summary.packageName() + suffix);
+        }
+
+        return candidates;
+    }
+
+    private BitSet lookup(@NonNull SymbolBitSets index, @NonNull String key) {
+        final BitSet bitSet = index.get(this.symbols.find(key));
+        return bitSet == null ? new BitSet() : (BitSet) bitSet.clone();
+    }
+
+    BitSet all() {
+        final BitSet bitSet = new BitSet(this.files.size());
+        bitSet.set(0, this.files.size());
+        return bitSet;
+    }
+
+    BitSet withAnnotationName(@NonNull String simpleName) {
+        return lookup(this.byAnnotationName, simpleName);
+    }
+
+    BitSet withQualifiedAnnotation(@NonNull String qualifiedName) {
+        return lookup(this.byQualifiedAnnotation, qualifiedName);
+    }
+
+    BitSet withImport(@NonNull String importName) {
+        return lookup(this.byImport, importName);
+    }
+
+    BitSet withPackage(@NonNull String packageName) {
+        return lookup(this.byPackage, packageName);
+    }
+
+    BitSet withPackagePrefix(@NonNull String packageName) {
+        return lookup(this.byPackagePrefix, packageName);
+    }
+
+    /**
+     * Find the first file (in extraction order) that declares a class in the given package.
+     * @param className Simple class name
+     * @param packageName Package name
+     * @return The file or null if no file declares the class
+     */
+    public JavaFile findClass(@NonNull String className, @NonNull String packageName) {
+        final int packageId = this.symbols.find(packageName);
+        final int classNameId = this.symbols.find(className);
+        if(packageId == SymbolTable.UNKNOWN || classNameId == SymbolTable.UNKNOWN) {
+            return null;
+        }
+
+        final int file = this.byClass.get(classKey(packageId, classNameId), -1);
+        return file < 0 ? null : this.files.get(file);
+    }
+
+    /**
+     * Run a query against this index.
+     * @param query Query to evaluate
+     * @return Matching files in extraction order, each file at most once
+     */
+    public List<JavaFile> find(@NonNull JavaFileQuery query) {
+        final BitSet result = query.evaluate(this);
+        final List<JavaFile> output = new ArrayList<>(result.cardinality());
+
+        for(int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+            output.add(this.files.get(i));
+        }
+
+        return output;
+    }
+
+    public int size() {
+        return this.files.size();
+    }
+}
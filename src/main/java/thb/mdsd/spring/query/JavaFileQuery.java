@@ -0,0 +1,105 @@
+package thb.mdsd.spring.query;
+
+import lombok.NonNull;
+import thb.mdsd.spring.data.AnnotationRegistry;
+import thb.mdsd.spring.data.CommonAnnotationNameRegistry;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Composable query over a {@link JavaFileIndex}. Queries are evaluated as set operations on the index,
+ * so a file matches at most once no matter how many of its annotations satisfy the query.
+ */
+@FunctionalInterface
+public interface JavaFileQuery {
+
+    /**
+     * Evaluate the query.
+     * @param index Index to query
+     * @return A new bit set of matching file positions that may be modified by the caller
+     */
+    BitSet evaluate(@NonNull JavaFileIndex index);
+
+    /**
+     * Files with a class or interface annotated with any of the given annotations.
+     */
+    static JavaFileQuery annotatedWith(@NonNull Collection<CommonAnnotationNameRegistry> commonNames) {
+        return index -> {
+            final BitSet result = new BitSet();
+            for(CommonAnnotationNameRegistry commonName : commonNames) {
+                result.or(index.withAnnotationName(commonName.toString()));
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Files with a class or interface annotated with any of the given annotations, where the annotation is imported
+     * from one of the given packages. Wildcard registry entries (e.g. "org.springframework.web.bind.annotation.*")
+     * match single-type and wildcard imports of that package.
+     */
+    static JavaFileQuery annotatedWith(@NonNull Collection<CommonAnnotationNameRegistry> commonNames, @NonNull Collection<AnnotationRegistry> importRegistry) {
+        return index -> {
+            final BitSet result = new BitSet();
+            for(CommonAnnotationNameRegistry commonName : commonNames) {
+                for(AnnotationRegistry annotationRegistry : importRegistry) {
+                    final String registryName = annotationRegistry.toString();
+
+                    if(registryName.endsWith(".*")) {
+                        result.or(index.withQualifiedAnnotation(registryName.substring(0, registryName.length() - 1) + commonName));
+                    } else if(registryName.endsWith("." + commonName)) {
+                        result.or(index.withQualifiedAnnotation(registryName));
+                    }
+                }
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Files with the given import declaration. Wildcard imports are written as "package.*".
+     */
+    static JavaFileQuery importing(@NonNull String importName) {
+        return index -> index.withImport(importName);
+    }
+
+    /**
+     * Files in the given package or one of its sub packages.
+     */
+    static JavaFileQuery inPackage(@NonNull String packageName) {
+        return index -> index.withPackagePrefix(packageName);
+    }
+
+    default JavaFileQuery and(@NonNull JavaFileQuery other) {
+        return index -> {
+            final BitSet result = this.evaluate(index);
+            result.and(other.evaluate(index));
+            return result;
+        };
+    }
+
+    default JavaFileQuery or(@NonNull JavaFileQuery other) {
+        return index -> {
+            final BitSet result = this.evaluate(index);
+            result.or(other.evaluate(index));
+            return result;
+        };
+    }
+
+    default JavaFileQuery andNot(@NonNull JavaFileQuery other) {
+        return index -> {
+            final BitSet result = this.evaluate(index);
+            result.andNot(other.evaluate(index));
+            return result;
+        };
+    }
+
+    default JavaFileQuery negate() {
+        return index -> {
+            final BitSet result = index.all();
+            result.andNot(this.evaluate(index));
+            return result;
+        };
+    }
+}
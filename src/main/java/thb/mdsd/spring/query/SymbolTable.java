@@ -0,0 +1,78 @@
+package thb.mdsd.spring.query;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Project-wide table of the names the indexes work with (annotation, import, package and class names). Every name
+ * gets a dense int id, so an index can be an array indexed by id and compares ids instead of characters.
+ * Ids are never reused, the table only grows and is shared by all extraction runs of a project.
+ * <p>
+ * Thread-safe, looking up a known name does not lock.
+ */
+public class SymbolTable {
+
+    /**
+     * Id returned by {@link #find(String)} for names that are not in the table
+     */
+    public static final int UNKNOWN = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[256];
+    private int size;
+
+    /**
+     * Get the id of a name, adding the name if it is not in the table yet.
+     * @param name Name
+     * @return The id, between 0 and {@link #size()} - 1
+     */
+    public int intern(@NonNull String name) {
+        final Integer id = this.ids.get(name);
+        if(id != null) {
+            return id;
+        }
+
+        synchronized (this) {
+            final Integer existing = this.ids.get(name);
+            if(existing != null) {
+                return existing;
+            }
+
+            if(this.size == this.names.length) {
+                this.names = Arrays.copyOf(this.names, this.size * 2);
+            }
+
+            this.names[this.size] = name;
+            this.ids.put(name, this.size);
+            return this.size++;
+        }
+    }
+
+    /**
+     * Get the id of a name without adding it. Names that were never interned can not be in an index.
+     * @param name Name
+     * @return The id or {@link #UNKNOWN}
+     */
+    public int find(@NonNull String name) {
+        final Integer id = this.ids.get(name);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * @param id Id returned by {@link #intern(String)}
+     * @return The name of the id
+     */
+    public String name(int id) {
+        if(id < 0 || id >= this.size()) {
+            throw new IllegalArgumentException("Unknown symbol id: " + id);
+        }
+
+        return this.names[id];
+    }
+
+    public synchronized int size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,39 @@
+package thb.mdsd.swagger;
+
+import lombok.NonNull;
+import thb.mdsd.util.YamlHelper;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Writes straight into the document. Used for sequential exports and to merge recorded endpoints.
+ */
+final class DirectDocumentWriter implements DocumentWriter {
+
+    private final YamlHelper yamlHelper;
+
+    DirectDocumentWriter(@NonNull YamlHelper yamlHelper) {
+        this.yamlHelper = yamlHelper;
+    }
+
+    @Override
+    public void set(@NonNull String key, Object value) {
+        this.yamlHelper.set(key, value);
+    }
+
+    @Override
+    public Object get(@NonNull String key) {
+        return this.yamlHelper.get(key);
+    }
+
+    @Override
+    public String addComponentSchema(@NonNull String schemaName, @NonNull Supplier<Map<String, Object>> schemaGenerator) {
+        final Object current = this.yamlHelper.get("components.schemas." + schemaName);
+        if(current == null || current.toString().equals("{type=object}")) {
+            this.yamlHelper.set("components.schemas." + schemaName, schemaGenerator.get());
+        }
+
+        return schemaName;
+    }
+}
@@ -0,0 +1,29 @@
+package thb.mdsd.swagger;
+
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Target of the endpoint and schema writers. Either writes straight into the document ({@link DirectDocumentWriter})
+ * or records the writes of one endpoint ({@link RecordingDocumentWriter}), so endpoints can be built concurrently and
+ * merged into the document in their original order.
+ */
+sealed interface DocumentWriter permits DirectDocumentWriter, RecordingDocumentWriter {
+
+    void set(@NonNull String key, Object value);
+
+    /**
+     * Read a value that was written for the current operation. Components must not be read, see {@link #addComponentSchema}.
+     */
+    Object get(@NonNull String key);
+
+    /**
+     * Add a schema to the components, unless a complete schema with this name already exists.
+     * @param schemaName Name of the component schema
+     * @param schemaGenerator Generates the schema, may write further components
+     * @return The schema name
+     */
+    String addComponentSchema(@NonNull String schemaName, @NonNull Supplier<Map<String, Object>> schemaGenerator);
+}
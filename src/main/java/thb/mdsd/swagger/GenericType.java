@@ -0,0 +1,236 @@
+package thb.mdsd.swagger;
+
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.type.*;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Structural model of a java type like {@code ResponseEntity<Page<List<Foo>>>}. The model is built from the JavaParser AST
+ * and the most recently used type strings are cached (see {@link #CACHE_SIZE}), it decides how the {@link SwaggerTypeGenerator} names schemas and
+ * detects arrays:
+ * <ul>
+ *     <li>Wrappers (e.g. {@code ResponseEntity}, {@code Optional}) are removed, the documented type is their first type argument.</li>
+ *     <li>Arrays and collections (e.g. {@code List}, {@code Set}, {@code Page}) are documented as array of their component.</li>
+ *     <li>The schema name is the simple name of the innermost type that is neither a wrapper nor an array.</li>
+ * </ul>
+ */
+@Getter
+public final class GenericType {
+
+    private static final Set<String> WRAPPER_TYPES = Set.of(
+        "ResponseEntity", "HttpEntity", "Optional", "Callable", "Future", "CompletableFuture", "CompletionStage",
+        "DeferredResult", "WebAsyncTask", "ListenableFuture", "Mono", "EntityModel"
+    );
+
+    private static final Set<String> COLLECTION_TYPES = Set.of(
+        "Iterable", "Collection", "List", "ArrayList", "LinkedList", "Set", "HashSet", "LinkedHashSet", "SortedSet", "NavigableSet", "TreeSet",
+        "Queue", "Deque", "ArrayDeque", "Stream", "Page", "Slice", "Flux", "CollectionModel", "PagedModel"
+    );
+
+    private static final Set<String> SIMPLE_TYPES = Set.of(
+        "String", "Object",
+        "boolean", "byte", "short", "int", "long", "float", "double",
+        "Boolean", "Byte", "Short", "Integer", "Long", "Float", "Double"
+    );
+
+    private static final Set<String> VOID_TYPES = Set.of("void", "Void");
+
+    private static final GenericType OBJECT = new GenericType("Object", List.of(), 0);
+
+    /**
+     * Maximum number of cached models. The cache is shared by all exports of the JVM, so it must not grow with every project.
+     */
+    private static final int CACHE_SIZE = 4096;
+
+    private static final Map<String, GenericType> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GenericType> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Simple name without package, type arguments and array brackets
+     */
+    private final String name;
+    private final List<GenericType> arguments;
+    private final int arrayDimensions;
+
+    private GenericType(@NonNull String name, @NonNull List<GenericType> arguments, int arrayDimensions) {
+        this.name = name;
+        this.arguments = arguments;
+        this.arrayDimensions = arrayDimensions;
+    }
+
+    /**
+     * Get the model of a type.
+     * @param type Type from the AST
+     * @return The cached model
+     */
+    public static GenericType of(@NonNull Type type) {
+        final String key = type.asString();
+        synchronized (CACHE) {
+            final GenericType genericType = CACHE.get(key);
+            if(genericType != null) {
+                return genericType;
+            }
+        }
+
+        // Built outside the lock, two threads may build the same model, both describe the same type
+        final GenericType genericType = build(type);
+        synchronized (CACHE) {
+            CACHE.putIfAbsent(key, genericType);
+        }
+
+        return genericType;
+    }
+
+    private static GenericType build(@NonNull Type type) {
+        return switch (type) {
+            case ArrayType arrayType -> {
+                final GenericType component = build(arrayType.getComponentType());
+                yield new GenericType(component.name, component.arguments, component.arrayDimensions + 1);
+            }
+            case ClassOrInterfaceType classOrInterfaceType -> new GenericType(
+                classOrInterfaceType.getNameAsString(),
+                classOrInterfaceType.getTypeArguments().map(arguments -> arguments.stream().map(GenericType::build).toList()).orElse(List.of()),
+                0
+            );
+            case WildcardType wildcardType -> wildcardType.getExtendedType().map(GenericType::build).orElse(OBJECT);
+            case VoidType _ -> new GenericType("void", List.of(), 0);
+            default -> new GenericType(type.asString(), List.of(), 0);
+        };
+    }
+
+    public boolean isVoid() {
+        return this.arrayDimensions == 0 && VOID_TYPES.contains(this.name);
+    }
+
+    /**
+     * @return True for strings, primitives, their boxes and Object, which are documented inline instead of as component
+     */
+    public boolean isSimple() {
+        return this.arrayDimensions == 0 && SIMPLE_TYPES.contains(this.name);
+    }
+
+    public boolean isWrapper() {
+        return this.arrayDimensions == 0 && WRAPPER_TYPES.contains(this.name);
+    }
+
+    /**
+     * @return True if the type is an array or a collection, after removing all wrappers
+     */
+    public boolean isArray() {
+        final GenericType type = this.unwrap();
+        return type.arrayDimensions > 0 || COLLECTION_TYPES.contains(type.name);
+    }
+
+    /**
+     * Remove all wrappers, e.g. {@code ResponseEntity<Optional<Foo>>} becomes {@code Foo}. A raw wrapper becomes {@code Object}.
+     * @return The wrapped type
+     */
+    public GenericType unwrap() {
+        GenericType type = this;
+        while (type.isWrapper()) {
+            type = type.arguments.isEmpty() ? OBJECT : type.arguments.getFirst();
+        }
+
+        return type;
+    }
+
+    /**
+     * Get the component of an array or collection, with its wrappers removed.
+     * @return The component or {@code Object} for raw collections
+     */
+    public GenericType component() {
+        final GenericType type = this.unwrap();
+        if(type.arrayDimensions > 0) {
+            return new GenericType(type.name, type.arguments, type.arrayDimensions - 1).unwrap();
+        }
+
+        return type.arguments.isEmpty() ? OBJECT : type.arguments.getFirst().unwrap();
+    }
+
+    /**
+     * @return Name of the component schema, e.g. "Foo" for {@code ResponseEntity<Page<List<Foo>>>} and {@code Foo[]}
+     */
+    public String getSchemaName() {
+        GenericType type = this.unwrap();
+        while (type.isArray()) {
+            type = type.component();
+        }
+
+        return type.name;
+    }
+
+    /**
+     * Apply {@link #unwrap()} to a type of the AST, so the result can still be resolved in the context of its file.
+     * @param type Type from the AST
+     * @return The wrapped type or the given type if it is no wrapper (or a raw one)
+     */
+    public static Type unwrap(@NonNull Type type) {
+        Type current = type;
+        while (current instanceof ClassOrInterfaceType classOrInterfaceType && of(classOrInterfaceType).isWrapper()) {
+            final Type argument = firstArgument(classOrInterfaceType);
+            if(argument == null) break;
+            current = argument;
+        }
+
+        return current;
+    }
+
+    /**
+     * Apply {@link #component()} to a type of the AST.
+     * @param type Array or collection type from the AST
+     * @return The component type or null if it is not declared (raw collection, unbounded wildcard)
+     */
+    public static Type component(@NonNull Type type) {
+        final Type unwrapped = unwrap(type);
+        if(unwrapped instanceof ArrayType arrayType) {
+            return unwrap(arrayType.getComponentType());
+        }
+
+        if(unwrapped instanceof ClassOrInterfaceType classOrInterfaceType) {
+            final Type argument = firstArgument(classOrInterfaceType);
+            return argument == null ? null : unwrap(argument);
+        }
+
+        return null;
+    }
+
+    private static Type firstArgument(@NonNull ClassOrInterfaceType type) {
+        final NodeList<Type> arguments = type.getTypeArguments().orElse(null);
+        if(arguments == null || arguments.isEmpty()) {
+            return null;
+        }
+
+        final Type argument = arguments.getFirst().orElseThrow();
+        if(argument instanceof WildcardType wildcardType) {
+            return wildcardType.getExtendedType().map(Type.class::cast).orElse(null);
+        }
+
+        return argument;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(this.name);
+        if(!this.arguments.isEmpty()) {
+            builder.append('<');
+            for(int i = 0; i < this.arguments.size(); i++) {
+                if(i > 0) builder.append(", ");
+                builder.append(this.arguments.get(i));
+            }
+            builder.append('>');
+        }
+
+        builder.append("[]".repeat(this.arrayDimensions));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,263 @@
+package thb.mdsd.swagger;
+
+import lombok.NonNull;
+import thb.mdsd.util.YamlHelper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Records the writes of endpoints instead of applying them, so endpoints can be built on worker threads.
+ * Component checks are recorded as well and only evaluated when the recording is applied, which makes applying the
+ * recordings in endpoint order equal to writing the endpoints sequentially.
+ * <p>
+ * Operation values are kept in a local document to answer {@link #get}. One instance must only be used by one thread,
+ * for all endpoints with the same path and method.
+ */
+final class RecordingDocumentWriter implements DocumentWriter {
+
+    /**
+     * A single recorded write
+     */
+    sealed interface Write {
+        void apply(@NonNull DirectDocumentWriter writer);
+    }
+
+    record SetValue(@NonNull String key, Object value) implements Write {
+        @Override
+        public void apply(@NonNull DirectDocumentWriter writer) {
+            writer.set(this.key, this.value);
+        }
+    }
+
+    /**
+     * @param writes Writes of the schema generation, only applied if the schema is added
+     */
+    record AddComponentSchema(@NonNull String schemaName, @NonNull List<Write> writes, Map<String, Object> schema) implements Write {
+        @Override
+        public void apply(@NonNull DirectDocumentWriter writer) {
+            writer.addComponentSchema(this.schemaName, () -> {
+                this.writes.forEach(write -> write.apply(writer));
+                return this.schema;
+            });
+        }
+    }
+
+    /**
+     * All writes of one endpoint, in order
+     */
+    record Recording(@NonNull List<Write> writes) {
+        public Recording {
+            writes = List.copyOf(writes);
+        }
+
+        public void apply(@NonNull DirectDocumentWriter writer) {
+            this.writes.forEach(write -> write.apply(writer));
+        }
+
+        /**
+         * Serialize the recording, so it can be applied in a later run. The values are deep-copied by a round trip,
+         * applying a deserialized recording never shares values with another document.
+         * @return The serialized recording, see {@link #deserialize(byte[])}
+         */
+        byte[] serialize() {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try(final DataOutputStream output = new DataOutputStream(bytes)) {
+                writeWrites(output, this.writes);
+            } catch (IOException exception) {
+                throw new RuntimeException(exception);
+            }
+
+            return bytes.toByteArray();
+        }
+
+        /**
+         * @param data Recording written by {@link #serialize()}
+         * @return The recording
+         * @throws RuntimeException If the data is malformed
+         */
+        static Recording deserialize(byte[] data) {
+            try(final DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+                return new Recording(readWrites(input));
+            } catch (IOException exception) {
+                throw new RuntimeException("Malformed recording", exception);
+            }
+        }
+    }
+
+    private static final byte SET_VALUE = 0;
+    private static final byte ADD_COMPONENT_SCHEMA = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte MAP = 6;
+    private static final byte LIST = 7;
+
+    private final YamlHelper local = new YamlHelper();
+    private final LinkedList<List<Write>> targets = new LinkedList<>();
+
+    /**
+     * Record everything the given action writes.
+     * @param action Writes one endpoint into this writer
+     * @return The immutable recording
+     */
+    public Recording record(@NonNull Runnable action) {
+        this.targets.clear();
+        this.targets.addLast(new ArrayList<>());
+        action.run();
+        return new Recording(this.targets.removeLast());
+    }
+
+    @Override
+    public void set(@NonNull String key, Object value) {
+        this.targets.getLast().add(new SetValue(key, value));
+        this.local.set(key, value);
+    }
+
+    @Override
+    public Object get(@NonNull String key) {
+        return this.local.get(key);
+    }
+
+    @Override
+    public String addComponentSchema(@NonNull String schemaName, @NonNull Supplier<Map<String, Object>> schemaGenerator) {
+        this.targets.addLast(new ArrayList<>());
+        final Map<String, Object> schema = schemaGenerator.get();
+        final List<Write> writes = this.targets.removeLast();
+        this.targets.getLast().add(new AddComponentSchema(schemaName, List.copyOf(writes), schema));
+        return schemaName;
+    }
+
+    private static void writeWrites(@NonNull DataOutputStream output, @NonNull List<Write> writes) throws IOException {
+        output.writeInt(writes.size());
+        for(Write write : writes) {
+            switch (write) {
+                case SetValue setValue -> {
+                    output.writeByte(SET_VALUE);
+                    writeString(output, setValue.key());
+                    writeValue(output, setValue.value());
+                }
+                case AddComponentSchema addComponentSchema -> {
+                    output.writeByte(ADD_COMPONENT_SCHEMA);
+                    writeString(output, addComponentSchema.schemaName());
+                    writeWrites(output, addComponentSchema.writes());
+                    writeValue(output, addComponentSchema.schema());
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Write> readWrites(@NonNull DataInputStream input) throws IOException {
+        final int size = input.readInt();
+        final List<Write> writes = new ArrayList<>();
+
+        for(int i = 0; i < size; i++) {
+            writes.add(switch (input.readByte()) {
+                case SET_VALUE -> new SetValue(readString(input), readValue(input));
+                case ADD_COMPONENT_SCHEMA -> {
+                    final String schemaName = readString(input);
+                    final List<Write> schemaWrites = readWrites(input);
+                    yield new AddComponentSchema(schemaName, List.copyOf(schemaWrites), (Map<String, Object>) readValue(input));
+                }
+                default -> throw new IOException("Unknown write");
+            });
+        }
+
+        return writes;
+    }
+
+    /**
+     * Maps are written in iteration order and read as {@link LinkedHashMap}, so they iterate like the recorded ones.
+     */
+    private static void writeValue(@NonNull DataOutputStream output, Object value) throws IOException {
+        switch (value) {
+            case null -> output.writeByte(NULL);
+            case String string -> {
+                output.writeByte(STRING);
+                writeString(output, string);
+            }
+            case Integer integer -> {
+                output.writeByte(INTEGER);
+                output.writeInt(integer);
+            }
+            case Long longValue -> {
+                output.writeByte(LONG);
+                output.writeLong(longValue);
+            }
+            case Double doubleValue -> {
+                output.writeByte(DOUBLE);
+                output.writeDouble(doubleValue);
+            }
+            case Boolean booleanValue -> {
+                output.writeByte(BOOLEAN);
+                output.writeBoolean(booleanValue);
+            }
+            case Map<?, ?> map -> {
+                output.writeByte(MAP);
+                output.writeInt(map.size());
+                for(Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(output, entry.getKey());
+                    writeValue(output, entry.getValue());
+                }
+            }
+            case List<?> list -> {
+                output.writeByte(LIST);
+                output.writeInt(list.size());
+                for(Object element : list) {
+                    writeValue(output, element);
+                }
+            }
+            default -> throw new IOException("Can not serialize " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(@NonNull DataInputStream input) throws IOException {
+        return switch (input.readByte()) {
+            case NULL -> null;
+            case STRING -> readString(input);
+            case INTEGER -> input.readInt();
+            case LONG -> input.readLong();
+            case DOUBLE -> input.readDouble();
+            case BOOLEAN -> input.readBoolean();
+            case MAP -> {
+                final int size = input.readInt();
+                final Map<Object, Object> map = new LinkedHashMap<>();
+                for(int i = 0; i < size; i++) {
+                    map.put(readValue(input), readValue(input));
+                }
+
+                yield map;
+            }
+            case LIST -> {
+                final int size = input.readInt();
+                final List<Object> list = new ArrayList<>();
+                for(int i = 0; i < size; i++) {
+                    list.add(readValue(input));
+                }
+
+                yield list;
+            }
+            default -> throw new IOException("Unknown value type");
+        };
+    }
+
+    /**
+     * Not {@link DataOutputStream#writeUTF}, which is limited to 64 KB.
+     */
+    private static void writeString(@NonNull DataOutputStream output, @NonNull String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(@NonNull DataInputStream input) throws IOException {
+        return new String(input.readNBytes(input.readInt()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,208 @@
+package thb.mdsd.swagger;
+
+import lombok.NonNull;
+import thb.mdsd.util.HashUtils;
+import thb.mdsd.util.YamlHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Structural deduplication of the generated object schemas. Every object schema generated for a java type carries
+ * the type name under {@link #TYPE_NAME_KEY} until the document is finished. The deduplication hashes all schemas
+ * structurally (ignoring that key) and replaces every inline object schema by a {@code $ref} if an equal component
+ * schema exists or the same schema occurs more than once, in which case a component named after the java type is added.
+ * The type name keys are always removed afterward.
+ */
+final class SchemaDeduplicator {
+
+    static final String TYPE_NAME_KEY = "x-java-type";
+    private static final String REF_PREFIX = "#/components/schemas/";
+
+    private final Map<Object, String> hashes = new IdentityHashMap<>();
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final Map<String, String> names = new HashMap<>();
+    private final YamlHelper yamlHelper;
+
+    private SchemaDeduplicator(@NonNull YamlHelper yamlHelper) {
+        this.yamlHelper = yamlHelper;
+    }
+
+    /**
+     * Finish the schemas of a document.
+     * @param yamlHelper Document
+     * @param deduplicate Deduplicate the schemas, otherwise only the type name keys are removed
+     */
+    static void apply(@NonNull YamlHelper yamlHelper, boolean deduplicate) {
+        if(deduplicate) {
+            new SchemaDeduplicator(yamlHelper).deduplicate(yamlHelper.getData());
+        }
+
+        removeTypeNames(yamlHelper.getData(), Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deduplicate(@NonNull Map<String, Object> root) {
+        this.hash(root);
+
+        // Existing components are the preferred targets, in name order for stable names
+        final Map<String, Object> components = new TreeMap<>(this.getSchemas());
+        components.forEach((name, schema) -> {
+            if(schema instanceof Map<?, ?>) {
+                this.names.putIfAbsent(this.hashes.get(schema), name);
+            }
+        });
+
+        for(String key : new TreeSet<>(root.keySet())) {
+            if(!key.equals("components")) {
+                this.replaceChildren(root, key);
+            }
+        }
+
+        components.forEach((_, schema) -> {
+            if(schema instanceof Map<?, ?>) {
+                this.replaceChildren((Map<String, Object>) schema);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getSchemas() {
+        final Object schemas = this.yamlHelper.get("components.schemas");
+        return schemas == null ? Map.of() : (Map<String, Object>) schemas;
+    }
+
+    /**
+     * Compute the structural hashes of a value and all of its children and count the object schemas.
+     * @return The hash, or the value itself for scalars
+     */
+    private String hash(Object value) {
+        if(!(value instanceof Map<?, ?>) && !(value instanceof List<?>)) {
+            return value == null ? "null" : value.getClass().getSimpleName() + ":" + value;
+        }
+
+        final String known = this.hashes.get(value);
+        if(known != null) {
+            if(isObjectSchema(value)) {
+                this.counts.merge(known, 1, Integer::sum);
+            }
+            return known;
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        if(value instanceof Map<?, ?> map) {
+            builder.append('{');
+            for(Object key : new TreeSet<>(map.keySet().stream().map(String::valueOf).toList())) {
+                if(key.equals(TYPE_NAME_KEY)) continue;
+                builder.append(key).append('=').append(this.hash(map.get(key))).append(';');
+            }
+            builder.append('}');
+        } else {
+            builder.append('[');
+            for(Object element : (List<?>) value) {
+                builder.append(this.hash(element)).append(';');
+            }
+            builder.append(']');
+        }
+
+        final String hash = HashUtils.sha256(builder.toString().getBytes(StandardCharsets.UTF_8));
+        this.hashes.put(value, hash);
+        if(isObjectSchema(value)) {
+            this.counts.merge(hash, 1, Integer::sum);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Generated object schema with content besides its type. Empty schemas of different types are equal
+     * structurally, but merging them would only hide the type names.
+     */
+    private static boolean isObjectSchema(Object value) {
+        return value instanceof Map<?, ?> map && map.containsKey(TYPE_NAME_KEY)
+            && map.entrySet().stream().anyMatch(entry -> !entry.getKey().equals(TYPE_NAME_KEY) && !entry.getKey().equals("type") && !isEmpty(entry.getValue()));
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value instanceof Map<?, ?> map ? map.isEmpty() : value instanceof List<?> list && list.isEmpty();
+    }
+
+    private void replaceChildren(@NonNull Map<String, Object> map) {
+        for(String key : new TreeSet<>(map.keySet())) {
+            this.replaceChildren(map, key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replaceChildren(@NonNull Map<String, Object> parent, @NonNull String key) {
+        final Object value = parent.get(key);
+        if(this.shouldReplace(value)) {
+            parent.put(key, reference(this.intern((Map<String, Object>) value)));
+        } else if(value instanceof Map<?, ?> map) {
+            this.replaceChildren((Map<String, Object>) map);
+        } else if(value instanceof List<?> list) {
+            final List<Object> elements = (List<Object>) list;
+            for(int i = 0; i < elements.size(); i++) {
+                final Object element = elements.get(i);
+                if(this.shouldReplace(element)) {
+                    elements.set(i, reference(this.intern((Map<String, Object>) element)));
+                } else if(element instanceof Map<?, ?> map) {
+                    this.replaceChildren((Map<String, Object>) map);
+                }
+            }
+        }
+    }
+
+    private boolean shouldReplace(Object value) {
+        if(!isObjectSchema(value)) {
+            return false;
+        }
+
+        final String hash = this.hashes.get(value);
+        return this.names.containsKey(hash) || this.counts.getOrDefault(hash, 0) > 1;
+    }
+
+    /**
+     * Get the component of a schema, adding it if it does not exist yet.
+     * @return The component name
+     */
+    private String intern(@NonNull Map<String, Object> schema) {
+        final String hash = this.hashes.get(schema);
+        final String known = this.names.get(hash);
+        if(known != null) {
+            return known;
+        }
+
+        final String baseName = String.valueOf(schema.get(TYPE_NAME_KEY));
+        String name = baseName;
+        for(int i = 2; this.getSchemas().containsKey(name); i++) {
+            name = baseName + i;
+        }
+
+        this.names.put(hash, name);
+        this.yamlHelper.set("components.schemas." + name, schema);
+        this.replaceChildren(schema);
+        return name;
+    }
+
+    private static Map<String, Object> reference(@NonNull String name) {
+        final Map<String, Object> reference = new HashMap<>();
+        reference.put("$ref", REF_PREFIX + name);
+        return reference;
+    }
+
+    private static void removeTypeNames(Object value, @NonNull Set<Object> visited) {
+        if(value instanceof Map<?, ?> map) {
+            if(!visited.add(map)) return;
+
+            if(map.containsKey(TYPE_NAME_KEY)) {
+                map.remove(TYPE_NAME_KEY);
+            }
+            map.values().forEach(child -> removeTypeNames(child, visited));
+        } else if(value instanceof List<?> list) {
+            if(!visited.add(list)) return;
+
+            list.forEach(child -> removeTypeNames(child, visited));
+        }
+    }
+}
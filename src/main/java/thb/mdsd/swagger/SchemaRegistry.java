@@ -0,0 +1,77 @@
+package thb.mdsd.swagger;
+
+import lombok.NonNull;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe store of the generated schema parts of all model types of one export.
+ * The parts are generated concurrently before the document is written (see {@link SwaggerTypeGenerator#prepareSchemas}),
+ * the document itself is still assembled sequentially in endpoint order, so the output does not depend on the thread count.
+ * Parts that were not prepared are generated on the first access.
+ */
+public final class SchemaRegistry {
+
+    /**
+     * A model type in the context of the file it is referenced from, which decides how the type name is resolved.
+     * @param file The referencing file
+     * @param type The type as written in the source
+     */
+    record Key(@NonNull File file, @NonNull String type) { }
+
+    /**
+     * Field types of a model type as found by the symbol solver.
+     * @param fieldTypes Swagger type by field name, null if the type could not be resolved
+     */
+    record ResolvedFields(Map<String, String> fieldTypes) { }
+
+    private final Map<Key, Map<String, Object>> properties = new ConcurrentHashMap<>();
+    private final Map<Key, ResolvedFields> resolvedFields = new ConcurrentHashMap<>();
+
+    /**
+     * Get the properties of a model type, generating them if necessary.
+     * @return A copy that the caller may modify
+     */
+    Map<String, Object> getProperties(@NonNull Key key, @NonNull Supplier<Map<String, Object>> generator) {
+        return deepCopy(get(this.properties, key, generator));
+    }
+
+    ResolvedFields getResolvedFields(@NonNull Key key, @NonNull Supplier<ResolvedFields> generator) {
+        return get(this.resolvedFields, key, generator);
+    }
+
+    public int size() {
+        return this.properties.size();
+    }
+
+    /**
+     * Not computeIfAbsent: generating a part may take long and must not block other keys of the same bin.
+     * Two threads generating the same key produce equal results, the first one wins.
+     */
+    private static <V> V get(@NonNull Map<Key, V> map, @NonNull Key key, @NonNull Supplier<V> generator) {
+        final V existing = map.get(key);
+        if(existing != null) {
+            return existing;
+        }
+
+        final V generated = generator.get();
+        final V previous = map.putIfAbsent(key, generated);
+        return previous == null ? generated : previous;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T deepCopy(T value) {
+        return switch (value) {
+            case Map<?, ?> map -> {
+                final HashMap<Object, Object> copy = new HashMap<>();
+                map.forEach((key, child) -> copy.put(key, deepCopy(child)));
+                yield (T) copy;
+            }
+            case List<?> list -> (T) new ArrayList<>(list.stream().map(SchemaRegistry::deepCopy).toList());
+            case null, default -> value;
+        };
+    }
+}
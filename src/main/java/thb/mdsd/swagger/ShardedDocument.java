@@ -0,0 +1,186 @@
+package thb.mdsd.swagger;
+
+import lombok.NonNull;
+import thb.mdsd.spring.extractor.JavaFile;
+import thb.mdsd.spring.extractor.container.SpringPathContainer;
+import thb.mdsd.util.FileUtils;
+import thb.mdsd.util.YamlHelper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Splits a complete Swagger document into a small root document, one fragment per controller and one per component schema.
+ * <ul>
+ *     <li>{@code openapi.yaml}: root document, every path item and schema is a {@code $ref} into a fragment</li>
+ *     <li>{@code paths/<controller>.yaml}: all path items of one controller, keyed by path</li>
+ *     <li>{@code schemas/<schema>.yaml}: one component schema</li>
+ * </ul>
+ */
+class ShardedDocument {
+
+    static final String ROOT_FILE = "openapi.yaml";
+    static final String PATHS_DIRECTORY = "paths";
+    static final String SCHEMAS_DIRECTORY = "schemas";
+
+    private static final String SCHEMA_REF_PREFIX = "#/components/schemas/";
+
+    /**
+     * File contents by path relative to the output directory.
+     */
+    private final Map<String, YamlHelper> files = new LinkedHashMap<>();
+
+    /**
+     * @param document Complete document as written by {@link SwaggerAPIExport}
+     * @param springPaths Endpoints of the document, used to find the controller of every path
+     */
+    @SuppressWarnings("unchecked")
+    ShardedDocument(@NonNull YamlHelper document, @NonNull List<SpringPathContainer> springPaths) {
+        // A path item can only be referenced as a whole, so a path that is shared by several controllers belongs to the first one
+        final Map<String, String> controllerByPath = new HashMap<>();
+        for(SpringPathContainer springPath : springPaths) {
+            controllerByPath.putIfAbsent(springPath.path(), fragmentName(springPath.javaFileContainer()));
+        }
+
+        final YamlHelper root = new YamlHelper();
+        document.getData().forEach((key, value) -> {
+            if(!key.equals("paths") && !key.equals("components")) {
+                root.getData().put(key, value);
+            }
+        });
+
+        final Map<String, Object> paths = (Map<String, Object>) document.getData().getOrDefault("paths", Map.of());
+        final Map<String, Object> rootPaths = new HashMap<>();
+        paths.forEach((path, pathItem) -> {
+            final String file = PATHS_DIRECTORY + "/" + controllerByPath.getOrDefault(path, "Unknown") + ".yaml";
+            this.files.computeIfAbsent(file, _ -> new YamlHelper()).getData().put(path, rewriteSchemaRefs(pathItem, "../" + SCHEMAS_DIRECTORY + "/"));
+            rootPaths.put(path, Map.of("$ref", file + "#/" + escapeJsonPointer(path)));
+        });
+        root.getData().put("paths", rootPaths);
+
+        final Map<String, Object> components = new HashMap<>((Map<String, Object>) document.getData().getOrDefault("components", Map.of()));
+        final Map<String, Object> schemas = (Map<String, Object>) components.remove("schemas");
+        if(schemas != null) {
+            final Map<String, Object> rootSchemas = new HashMap<>();
+            schemas.forEach((name, schema) -> {
+                final String file = SCHEMAS_DIRECTORY + "/" + fileName(name) + ".yaml";
+                final YamlHelper fragment = new YamlHelper();
+                if(schema instanceof Map<?, ?> schemaMap) {
+                    fragment.getData().putAll((Map<String, Object>) rewriteSchemaRefs(schemaMap, ""));
+                }
+
+                this.files.put(file, fragment);
+                rootSchemas.put(name, Map.of("$ref", file));
+            });
+            components.put("schemas", rootSchemas);
+        }
+
+        if(!components.isEmpty()) {
+            root.getData().put("components", components);
+        }
+
+        this.files.put(ROOT_FILE, root);
+    }
+
+    /**
+     * Write all files in parallel. Only files whose content changed are written, fragments that are no longer part
+     * of the document are deleted.
+     * @param directory Output directory
+     * @return Number of written files
+     * @throws IOException If a file could not be written
+     */
+    int write(@NonNull Path directory) throws IOException {
+        Files.createDirectories(directory.resolve(PATHS_DIRECTORY));
+        Files.createDirectories(directory.resolve(SCHEMAS_DIRECTORY));
+        deleteStaleFragments(directory.resolve(PATHS_DIRECTORY), PATHS_DIRECTORY);
+        deleteStaleFragments(directory.resolve(SCHEMAS_DIRECTORY), SCHEMAS_DIRECTORY);
+
+        final List<Future<Boolean>> futures = new ArrayList<>(this.files.size());
+        try (final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            this.files.forEach((file, content) -> futures.add(executorService.submit(() ->
+                FileUtils.writeIfChanged(directory.resolve(file), content.dump().getBytes(StandardCharsets.UTF_8))
+            )));
+
+            int written = 0;
+            for(Future<Boolean> future : futures) {
+                if(future.get()) written++;
+            }
+
+            return written;
+        } catch (ExecutionException exception) {
+            if(exception.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+
+            throw new RuntimeException(exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Sharded export was interrupted.", exception);
+        }
+    }
+
+    private void deleteStaleFragments(@NonNull Path fragmentDirectory, @NonNull String prefix) throws IOException {
+        try(final Stream<Path> stream = Files.list(fragmentDirectory)) {
+            for(Path fragment : stream.filter(file -> file.getFileName().toString().endsWith(".yaml")).toList()) {
+                if(!this.files.containsKey(prefix + "/" + fragment.getFileName())) {
+                    Files.delete(fragment);
+                }
+            }
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Copy a yaml structure and point all local schema references to the schema fragments.
+     * @param value Structure to copy
+     * @param schemaDirectory Location of the schema fragments relative to the fragment that contains the structure
+     * @return The copy
+     */
+    private static Object rewriteSchemaRefs(Object value, @NonNull String schemaDirectory) {
+        return switch (value) {
+            case Map<?, ?> map -> {
+                final Map<String, Object> copy = new HashMap<>();
+                map.forEach((key, child) -> {
+                    if("$ref".equals(key) && child instanceof String ref && ref.startsWith(SCHEMA_REF_PREFIX)) {
+                        copy.put("$ref", schemaDirectory + fileName(ref.substring(SCHEMA_REF_PREFIX.length())) + ".yaml");
+                    } else {
+                        copy.put(String.valueOf(key), rewriteSchemaRefs(child, schemaDirectory));
+                    }
+                });
+                yield copy;
+            }
+            case List<?> list -> list.stream().map(child -> rewriteSchemaRefs(child, schemaDirectory)).toList();
+            case null, default -> value;
+        };
+    }
+
+    /**
+     * Name of the fragment of a controller: the qualified class name of its file, unique within the project.
+     */
+    private static String fragmentName(@NonNull JavaFile javaFile) {
+        final String fileName = javaFile.getReference().getName();
+        final String className = fileName.endsWith(".java") ? fileName.substring(0, fileName.length() - 5) : fileName;
+        return fileName(javaFile.getPackage() == null ? className : javaFile.getPackage() + "." + className);
+    }
+
+    private static String fileName(@NonNull String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Escape a key for a JSON pointer inside a URI fragment, e.g. "/cities/{id}" becomes "~1cities~1%7Bid%7D".
+     */
+    private static String escapeJsonPointer(@NonNull String token) {
+        return token.replace("~", "~0").replace("/", "~1").replace("{", "%7B").replace("}", "%7D");
+    }
+}
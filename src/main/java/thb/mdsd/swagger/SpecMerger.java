@@ -0,0 +1,271 @@
+package thb.mdsd.swagger;
+
+import lombok.NonNull;
+import thb.mdsd.util.HashUtils;
+import thb.mdsd.util.JsonWriter;
+import thb.mdsd.util.YamlHelper;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Merges a generated document into an existing, hand-curated specification. Every generated operation and component
+ * schema carries the hash of its generated content under {@link #HASH_KEY}. The generated keys of each entry are kept
+ * in a sidecar document (see {@link #keysFile(File)}), so the specification itself only gets the hash.
+ * Subtrees whose hash did not change are not touched at all, changed subtrees are merged key by key:
+ * <ul>
+ *     <li>Generated values replace the existing ones, except empty placeholders (e.g. {@code description: ''}).</li>
+ *     <li>Generated keys of the previous merge that are no longer generated are removed (e.g. renamed properties).
+ *     Without the sidecar nothing is removed from changed entries.</li>
+ *     <li>Keys that were never generated (descriptions, examples, tags, ...) are kept.</li>
+ *     <li>Operations and schemas with a hash that are no longer generated are removed, those without a hash were written by hand and are kept.</li>
+ * </ul>
+ * Everything outside of the operations and component schemas (info, servers, security, ...) is only added if it is missing.
+ * Keys of the existing specification are converted to strings (e.g. an unquoted {@code 200:} status) in the maps the
+ * merge descends into, unchanged entries are not copied.
+ */
+final class SpecMerger {
+
+    static final String HASH_KEY = "x-generator-hash";
+
+    /**
+     * @param updated Operations and schemas that were added or merged
+     * @param unchanged Operations and schemas with an unchanged hash, left untouched
+     * @param removed Generated operations and schemas that are no longer generated
+     */
+    record Result(int updated, int unchanged, int removed) { }
+
+    private SpecMerger() { }
+
+    /**
+     * Get the sidecar of a merged specification: "&lt;spec&gt;.keys.yaml" next to it. It maps the JSON pointer of every
+     * generated entry (e.g. {@code /paths/~1users/get}) to the pointers of its generated leaves relative to the entry
+     * (e.g. {@code /responses/200/description}).
+     */
+    static File keysFile(@NonNull File specFile) {
+        return new File(specFile.getPath() + ".keys.yaml");
+    }
+
+    /**
+     * Merge the generated document into the existing one.
+     * @param existing Loaded specification, changed in place
+     * @param generated Freshly generated document
+     * @param keys Generated keys of the previous merge from {@link #keysFile(File)}, replaced by the keys of this merge
+     * @return Counts of the merge
+     */
+    @SuppressWarnings("unchecked")
+    static Result merge(@NonNull YamlHelper existing, @NonNull YamlHelper generated, @NonNull YamlHelper keys) {
+        final Map<String, Object> target = normalizeKeys(existing.getData());
+        final Map<String, Object> source = generated.getData();
+        final Map<String, Object> previousKeys = new HashMap<>(keys.getData());
+        final int[] counts = new int[3];
+        keys.getData().clear();
+
+        source.forEach((key, value) -> {
+            if(!key.equals("paths") && !key.equals("components")) {
+                target.putIfAbsent(key, YamlHelper.canonicalize(value));
+            }
+        });
+
+        // Operations: paths.<path>.<method>
+        final Map<String, Object> generatedPaths = source.get("paths") instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+        final Map<String, Object> paths = childMap(target, "paths");
+        generatedPaths.forEach((path, pathItem) -> {
+            final Map<String, Object> existingPathItem = childMap(paths, path);
+            ((Map<String, Object>) pathItem).forEach((method, operation) ->
+                mergeEntry(existingPathItem, method, operation, childPointer(childPointer("/paths", path), method), previousKeys, keys.getData(), counts)
+            );
+        });
+
+        paths.entrySet().removeIf(pathEntry -> {
+            if(!(pathEntry.getValue() instanceof Map<?, ?> pathItem)) return false;
+
+            final Map<?, ?> generatedPathItem = generatedPaths.get(pathEntry.getKey()) instanceof Map<?, ?> map ? map : Map.of();
+            counts[2] += removeStale(normalizeKeys(pathItem), generatedPathItem);
+            return pathItem.isEmpty();
+        });
+
+        // Schemas: components.schemas.<name>
+        final Map<String, Object> generatedSchemas = generated.get("components.schemas") instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+        if(!generatedSchemas.isEmpty() || target.get("components") instanceof Map<?, ?>) {
+            final Map<String, Object> schemas = childMap(childMap(target, "components"), "schemas");
+            generatedSchemas.forEach((name, schema) -> mergeEntry(schemas, name, schema, childPointer("/components/schemas", name), previousKeys, keys.getData(), counts));
+            counts[2] += removeStale(schemas, generatedSchemas);
+        }
+
+        return new Result(counts[0], counts[1], counts[2]);
+    }
+
+    /**
+     * @param entryPointer JSON pointer of the entry in the specification, the key in the sidecar
+     * @param previousKeys Sidecar of the previous merge
+     * @param keys Sidecar of this merge
+     */
+    @SuppressWarnings("unchecked")
+    private static void mergeEntry(@NonNull Map<String, Object> parent, @NonNull String key, Object generatedValue, @NonNull String entryPointer,
+                                   @NonNull Map<String, Object> previousKeys, @NonNull Map<String, Object> keys, int @NonNull [] counts) {
+        if(!(generatedValue instanceof Map<?, ?> generatedMap)) {
+            parent.put(key, generatedValue);
+            return;
+        }
+
+        final String hash = hash(generatedMap);
+        final Object current = parent.get(key);
+        final List<?> previousEntryKeys = previousKeys.get(entryPointer) instanceof List<?> list ? list : List.of();
+
+        if(current instanceof Map<?, ?> currentMap && hash.equals(currentMap.get(HASH_KEY))) {
+            if(previousKeys.containsKey(entryPointer)) {
+                keys.put(entryPointer, previousEntryKeys);
+            }
+
+            counts[1]++;
+            return;
+        }
+
+        final Map<String, Object> canonical = (Map<String, Object>) YamlHelper.canonicalize(generatedMap);
+        final Set<String> generatedKeys = new TreeSet<>();
+        final Set<String> handWrittenKeys = new HashSet<>();
+        final Map<String, Object> merged;
+        if(current instanceof Map<?, ?> currentMap) {
+            merged = normalizeKeys(currentMap);
+
+            mergeInto(merged, canonical, "", generatedKeys, handWrittenKeys);
+            for(Object pointer : previousEntryKeys) {
+                if(!generatedKeys.contains(String.valueOf(pointer)) && !handWrittenKeys.contains(String.valueOf(pointer))) {
+                    remove(merged, parsePointer(String.valueOf(pointer)), 0);
+                }
+            }
+        } else {
+            merged = canonical;
+            parent.put(key, merged);
+            collectKeys(canonical, "", generatedKeys);
+        }
+
+        merged.put(HASH_KEY, hash);
+        keys.put(entryPointer, List.copyOf(generatedKeys));
+        counts[0]++;
+    }
+
+    /**
+     * @param pointer JSON pointer of the target
+     * @param generatedKeys Collects the pointers of the generated leaves, without placeholders that kept a hand-written value
+     * @param handWrittenKeys Collects the pointers of the placeholders that kept a hand-written value, they are still generated and must not be removed
+     */
+    @SuppressWarnings("unchecked")
+    private static void mergeInto(@NonNull Map<String, Object> target, @NonNull Map<String, Object> generated, @NonNull String pointer,
+                                  @NonNull Set<String> generatedKeys, @NonNull Set<String> handWrittenKeys) {
+        generated.forEach((key, value) -> {
+            final Object current = target.get(key) instanceof Map<?, ?> currentMap ? normalizeKeys(currentMap) : target.get(key);
+            final String childPointer = childPointer(pointer, key);
+
+            if(value instanceof Map<?, ?> map && current instanceof Map<?, ?> currentMap) {
+                if(map.isEmpty()) {
+                    generatedKeys.add(childPointer);
+                }
+
+                mergeInto((Map<String, Object>) currentMap, (Map<String, Object>) map, childPointer, generatedKeys, handWrittenKeys);
+            } else if(!("".equals(value) && current != null)) {
+                target.put(key, value);
+                collectKeys(value, childPointer, generatedKeys);
+            } else if("".equals(current)) {
+                generatedKeys.add(childPointer);
+            } else {
+                handWrittenKeys.add(childPointer);
+            }
+        });
+    }
+
+    /**
+     * Add the pointers of all leaves of a generated value, empty maps and lists are leaves as well.
+     */
+    private static void collectKeys(Object value, @NonNull String pointer, @NonNull Set<String> generatedKeys) {
+        if(value instanceof Map<?, ?> map && !map.isEmpty()) {
+            map.forEach((key, child) -> collectKeys(child, childPointer(pointer, String.valueOf(key)), generatedKeys));
+        } else {
+            generatedKeys.add(pointer);
+        }
+    }
+
+    private static String childPointer(@NonNull String pointer, @NonNull String key) {
+        return pointer + "/" + key.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static List<String> parsePointer(@NonNull String pointer) {
+        final List<String> segments = new ArrayList<>();
+        for(String segment : pointer.substring(pointer.startsWith("/") ? 1 : 0).split("/", -1)) {
+            segments.add(segment.replace("~1", "/").replace("~0", "~"));
+        }
+
+        return segments;
+    }
+
+    /**
+     * Remove a key and the maps that become empty through it. Maps that still contain keys are kept, the keys were added by hand.
+     */
+    @SuppressWarnings("unchecked")
+    private static void remove(@NonNull Map<String, Object> map, @NonNull List<String> segments, int index) {
+        final String key = segments.get(index);
+        normalizeKeys(map);
+        if(index == segments.size() - 1) {
+            if(!(map.get(key) instanceof Map<?, ?> child && !child.isEmpty())) {
+                map.remove(key);
+            }
+        } else if(map.get(key) instanceof Map<?, ?> child) {
+            remove((Map<String, Object>) child, segments, index + 1);
+            if(child.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Convert the keys of a loaded yaml map to strings in place. Only this level is converted, nested maps are converted
+     * when the merge descends into them. Maps whose keys collide after the conversion (e.g. {@code 200} and {@code '200'})
+     * are merged, the first key wins for scalar values.
+     * @return The same map
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> normalizeKeys(@NonNull Map<?, ?> map) {
+        if(map.keySet().stream().allMatch(key -> key instanceof String)) {
+            return (Map<String, Object>) map;
+        }
+
+        final Map<String, Object> normalized = new LinkedHashMap<>();
+        map.forEach((key, child) -> {
+            if(normalized.get(String.valueOf(key)) instanceof Map<?, ?> existing && child instanceof Map<?, ?> childMap) {
+                ((Map<Object, Object>) childMap).forEach(((Map<Object, Object>) existing)::putIfAbsent);
+            } else {
+                normalized.putIfAbsent(String.valueOf(key), child);
+            }
+        });
+
+        final Map<Object, Object> target = (Map<Object, Object>) map;
+        target.clear();
+        target.putAll(normalized);
+        return (Map<String, Object>) map;
+    }
+
+    /**
+     * Remove the generated entries of a map that are no longer generated.
+     * @return Number of removed entries
+     */
+    private static int removeStale(@NonNull Map<String, Object> entries, @NonNull Map<?, ?> generatedEntries) {
+        final int size = entries.size();
+        entries.entrySet().removeIf(entry -> entry.getValue() instanceof Map<?, ?> map && map.containsKey(HASH_KEY) && !generatedEntries.containsKey(entry.getKey()));
+        return size - entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> childMap(@NonNull Map<String, Object> parent, @NonNull String key) {
+        if(!(parent.get(key) instanceof Map<?, ?>)) {
+            parent.put(key, new LinkedHashMap<>());
+        }
+
+        return normalizeKeys((Map<?, ?>) parent.get(key));
+    }
+
+    private static String hash(@NonNull Map<?, ?> generatedValue) {
+        return HashUtils.sha256(JsonWriter.write(YamlHelper.canonicalize(generatedValue)).getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+}
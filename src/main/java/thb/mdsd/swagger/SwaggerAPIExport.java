@@ -6,27 +6,76 @@ import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.type.Type;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
+import thb.mdsd.spring.ExtractionSnapshot;
 import thb.mdsd.spring.SpringBootExtractor;
 import thb.mdsd.spring.data.AnnotationRegistry;
 import thb.mdsd.spring.data.AnnotationValueRegistry;
 import thb.mdsd.spring.data.CommonAnnotationNameRegistry;
+import thb.mdsd.spring.diagnostics.DiagnosticStage;
+import thb.mdsd.spring.extractor.container.SpringPathContainer;
+import thb.mdsd.spring.mapping.HttpStatusResolver;
 import thb.mdsd.util.PathUtils;
 import thb.mdsd.util.YamlHelper;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 @Getter
 public class SwaggerAPIExport {
 
     private final SpringBootExtractor springBootExtractor;
+
+    /**
+     * Snapshot all types are resolved in and all diagnostics are reported to. Endpoints passed to the export must come from
+     * {@link SpringBootExtractor#getSpringAllPaths(ExtractionSnapshot)} of this snapshot.
+     */
+    private final ExtractionSnapshot snapshot;
+
+    /**
+     * Number of threads used to generate the component schemas and operations. 1 generates everything on the exporting thread.
+     */
+    @Setter
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Replace object schemas that occur more than once (or equal a component schema) by a {@code $ref} to a single component,
+     * see {@link SchemaDeduplicator}.
+     */
+    @Setter
+    private boolean deduplicateSchemas;
+
+    /**
+     * Merge into an existing file instead of replacing it, so manually added fields are kept, see {@link SpecMerger}.
+     * Only applies to {@link #export(File)}.
+     */
+    @Setter
+    private boolean merge;
+
+    /**
+     * Export the current snapshot of an extractor, the project is extracted first if that was not done yet.
+     */
     public SwaggerAPIExport(@NonNull SpringBootExtractor springBootExtractor) {
+        if(!springBootExtractor.hasExtracted()) {
+            springBootExtractor.startExtracting();
+        }
+
         this.springBootExtractor = springBootExtractor;
+        this.snapshot = springBootExtractor.getSnapshot();
+    }
 
-        if(!this.springBootExtractor.hasExtracted()) {
-            this.springBootExtractor.startExtracting();
-        }
+    /**
+     * Export a snapshot that was captured before, e.g. the one the endpoints were collected from.
+     * @param snapshot Snapshot from {@link SpringBootExtractor#getSnapshot()}
+     */
+    public SwaggerAPIExport(@NonNull SpringBootExtractor springBootExtractor, @NonNull ExtractionSnapshot snapshot) {
+        this.springBootExtractor = springBootExtractor;
+        this.snapshot = snapshot;
     }
 
     private void checkSwaggerEnabled() {
@@ -35,82 +84,300 @@ public class SwaggerAPIExport {
         }
     }
 
-    public void export(@NonNull File file) throws IOException {
-        if(!PathUtils.isPath(file.getParentFile().getPath())) {
+    /**
+     * Write the Swagger documentation into a file. The output is canonically ordered and the file is only replaced
+     * (atomically) if its content changed, so unchanged documentation keeps its modification time.
+     * In merge mode the existing file is loaded once and only the changed operations and schemas are updated.
+     * @param file Target file
+     * @return True if the file was written, false if it was already up to date
+     */
+    public boolean export(@NonNull File file) throws IOException {
+        return export(file, springBootExtractor.getSpringAllPaths(this.snapshot));
+    }
+
+    /**
+     * Like {@link #export(File)}, with endpoints that were already extracted.
+     */
+    public boolean export(@NonNull File file, @NonNull List<SpringPathContainer> springPaths) throws IOException {
+        return export(file, createDocument(springPaths));
+    }
+
+    /**
+     * Like {@link #export(File)}, with a document that was already built.
+     * @param document Document from {@link #createDocument(List)} or {@link #assembleDocument(List)}
+     */
+    public boolean export(@NonNull File file, @NonNull YamlHelper document) throws IOException {
+        if(!PathUtils.isPath(file.getAbsoluteFile().getParentFile().getPath())) {
             throw new RuntimeException("Invalid export path: " + file.getPath());
         }
 
-        if(file.exists()) {
-            if(!file.delete()) {
-                throw new RuntimeException("Could not delete file: " + file.getAbsolutePath());
+        if(!this.merge) {
+            return document.saveTo(file);
+        }
+
+        final YamlHelper existing = new YamlHelper(file);
+        final YamlHelper keys = new YamlHelper(SpecMerger.keysFile(file));
+        SpecMerger.merge(existing, document, keys);
+        final boolean written = existing.saveTo(file);
+        keys.saveTo(SpecMerger.keysFile(file));
+        return written;
+    }
+
+    /**
+     * Write the Swagger documentation as a root document ({@code openapi.yaml}) that references one fragment per controller
+     * ({@code paths/}) and one per component schema ({@code schemas/}). The files are written in parallel and only if
+     * their content changed, fragments that no longer exist are deleted.
+     * @param directory Output directory, created if necessary
+     * @return Number of written files
+     */
+    public int exportSharded(@NonNull File directory) throws IOException {
+        return exportSharded(directory, springBootExtractor.getSpringAllPaths(this.snapshot));
+    }
+
+    /**
+     * Like {@link #exportSharded(File)}, with endpoints that were already extracted.
+     */
+    public int exportSharded(@NonNull File directory, @NonNull List<SpringPathContainer> springPaths) throws IOException {
+        return exportSharded(directory, createDocument(springPaths), springPaths);
+    }
+
+    /**
+     * Like {@link #exportSharded(File)}, with a document that was already built.
+     * @param document Document from {@link #createDocument(List)} of the same endpoints
+     */
+    public int exportSharded(@NonNull File directory, @NonNull YamlHelper document, @NonNull List<SpringPathContainer> springPaths) throws IOException {
+        return new ShardedDocument(document, springPaths).write(directory.toPath());
+    }
+
+    /**
+     * Build the Swagger documentation in memory without touching the file system.
+     * @return An in-memory {@link YamlHelper} containing the whole document
+     */
+    public YamlHelper createDocument() {
+        return createDocument(springBootExtractor.getSpringAllPaths(this.snapshot));
+    }
+
+    /**
+     * Build the Swagger documentation of endpoints that were already extracted, e.g. to share them with other artifacts.
+     * @param springPaths Endpoints from {@link SpringBootExtractor#getSpringAllPaths(ExtractionSnapshot)}
+     * @return An in-memory {@link YamlHelper} containing the whole document
+     */
+    public YamlHelper createDocument(@NonNull List<SpringPathContainer> springPaths) {
+        final YamlHelper yamlHelper = new YamlHelper();
+        write(yamlHelper, springPaths);
+        SchemaDeduplicator.apply(yamlHelper, this.deduplicateSchemas);
+        return yamlHelper;
+    }
+
+    /**
+     * Record the operations and component schemas of every endpoint as a serialized fragment, e.g. to keep them for an
+     * incremental export. Assembling the fragments in endpoint order with {@link #assembleDocument(List)} gives the same
+     * document as {@link #createDocument(List)}.
+     * @param springPaths Endpoints from {@link SpringBootExtractor#getSpringAllPaths(ExtractionSnapshot)} or a subset of them
+     * @return One fragment per endpoint, in the same order. In tolerant mode endpoints that failed are null and reported as diagnostics
+     */
+    public List<byte[]> recordEndpoints(@NonNull List<SpringPathContainer> springPaths) {
+        final SchemaRegistry schemaRegistry = new SchemaRegistry();
+        SwaggerTypeGenerator.prepareSchemas(springPaths, this.snapshot, schemaRegistry, this.parallelism);
+
+        // Paths and methods are unique after the route normalization, so no endpoint reads the operation of another one
+        final List<byte[]> fragments = new ArrayList<>(springPaths.size());
+        for(SpringPathContainer springPath : springPaths) {
+            final RecordingDocumentWriter recorder = new RecordingDocumentWriter();
+            try {
+                fragments.add(recorder.record(() -> writeEndpoint(recorder, springPath, schemaRegistry)).serialize());
+            } catch (RuntimeException | StackOverflowError exception) {
+                if(!springBootExtractor.isTolerant()) {
+                    throw exception;
+                }
+
+                reportEndpointError(springPath, exception);
+                fragments.add(null);
             }
         }
 
-        if(!file.createNewFile()) {
-            throw new RuntimeException("Unable to create file: " + file.getAbsolutePath());
+        return fragments;
+    }
+
+    /**
+     * Build the Swagger documentation from fragments of {@link #recordEndpoints(List)}, which may come from several runs.
+     * @param fragments Fragments in endpoint order, null entries are skipped
+     * @return An in-memory {@link YamlHelper} containing the whole document
+     * @throws RuntimeException If a fragment is malformed
+     */
+    public YamlHelper assembleDocument(@NonNull List<byte[]> fragments) {
+        final YamlHelper yamlHelper = new YamlHelper();
+        writeInfo(yamlHelper);
+
+        final DirectDocumentWriter document = new DirectDocumentWriter(yamlHelper);
+        for(byte[] fragment : fragments) {
+            if(fragment != null) {
+                RecordingDocumentWriter.Recording.deserialize(fragment).apply(document);
+            }
         }
 
-        final YamlHelper yamlHelper = new YamlHelper(file);
+        SchemaDeduplicator.apply(yamlHelper, this.deduplicateSchemas);
+        return yamlHelper;
+    }
+
+    private void writeInfo(@NonNull YamlHelper yamlHelper) {
         yamlHelper.set("openapi", "3.0.4");
         yamlHelper.set("info.title", "Exported with THB Swagger Export Tool");
         yamlHelper.set("info.description", "Project directory: " + springBootExtractor.getPath());
         yamlHelper.set("info.version", "0.1.9");
+    }
+
+    private void reportEndpointError(@NonNull SpringPathContainer springPath, @NonNull Throwable exception) {
+        this.snapshot.getDiagnostics().error(DiagnosticStage.EXPORT, springPath.method() + " " + springPath.path()
+            + " (" + springPath.javaFileContainer().getPackage() + "#" + springPath.methodDeclaration().getNameAsString() + ")", exception);
+    }
 
-        springBootExtractor.getSpringAllPaths().forEach(springPath -> {
-            final String yamlPath = "paths." + springPath.path() + "." + springPath.method().toLowerCase();
+    private void write(@NonNull YamlHelper yamlHelper, @NonNull List<SpringPathContainer> springPaths) {
+        writeInfo(yamlHelper);
 
-            yamlHelper.set(yamlPath + ".summary", "");
-            yamlHelper.set(yamlPath + ".description", "");
+        final SchemaRegistry schemaRegistry = new SchemaRegistry();
+        SwaggerTypeGenerator.prepareSchemas(springPaths, this.snapshot, schemaRegistry, this.parallelism);
 
-            if(springPath.produces() != null) {
-                for(Expression expression : springPath.produces()) {
-                    final String outputFormat = expression.asStringLiteralExpr().getValue();
+        if(this.parallelism > 1 && springPaths.size() > 1 && writeConcurrently(yamlHelper, springPaths, schemaRegistry)) {
+            return;
+        }
 
-                    // Description & maybe summary
-                    x: for(AnnotationExpr annotationExpr : springPath.methodDeclaration().getAnnotations()) {
-                        if(annotationExpr.getNameAsString().equalsIgnoreCase(CommonAnnotationNameRegistry.API_OPERATION.toString()) && springPath.javaFileContainer().hasImport(AnnotationRegistry.SWAGGER_API_OPERATION.toString())) {
-                            for(MemberValuePair memberValuePair : annotationExpr.asNormalAnnotationExpr().getPairs()) {
-                                if(memberValuePair.getNameAsString().equals(AnnotationValueRegistry.API_OPERATION_VALUE.toString())) {
-                                    yamlHelper.set(yamlPath + ".responses." + springPath.responseStatus() + ".description", memberValuePair.getValue().asStringLiteralExpr().getValue());
-                                    break x;
-                                }
-                            }
-                        }
+        final DirectDocumentWriter document = new DirectDocumentWriter(yamlHelper);
+        if(!springBootExtractor.isTolerant()) {
+            for(SpringPathContainer springPath : springPaths) {
+                writeEndpoint(document, springPath, schemaRegistry);
+            }
+
+            return;
+        }
+
+        // Every endpoint is recorded first and only applied if it succeeded, so a failing endpoint leaves neither a
+        // half-written operation nor component schemas behind. Endpoints with the same path and method share a recorder.
+        final Map<String, RecordingDocumentWriter> recorders = new HashMap<>();
+        for(SpringPathContainer springPath : springPaths) {
+            final String operation = springPath.path() + " " + springPath.method().toLowerCase();
+            final RecordingDocumentWriter recorder = recorders.computeIfAbsent(operation, _ -> new RecordingDocumentWriter());
+            try {
+                recorder.record(() -> writeEndpoint(recorder, springPath, schemaRegistry)).apply(document);
+            } catch (RuntimeException | StackOverflowError exception) {
+                recorders.remove(operation);  // Its local copy still holds the partial writes
+                reportEndpointError(springPath, exception);
+            }
+        }
+    }
+
+    /**
+     * Build the operations on {@link #parallelism} threads. Every endpoint is recorded into an immutable
+     * {@link RecordingDocumentWriter.Recording}, endpoints with the same path and method share one recorder (and thread)
+     * because they read each other's operation. The recordings are applied in endpoint order afterward, which gives the
+     * same document as the sequential export.
+     * @return False if an endpoint failed, nothing was written then and the caller exports sequentially to report the error
+     */
+    private boolean writeConcurrently(@NonNull YamlHelper yamlHelper, @NonNull List<SpringPathContainer> springPaths, @NonNull SchemaRegistry schemaRegistry) {
+        final Map<String, List<Integer>> operations = new LinkedHashMap<>();
+        for(int i = 0; i < springPaths.size(); i++) {
+            final SpringPathContainer springPath = springPaths.get(i);
+            operations.computeIfAbsent(springPath.path() + " " + springPath.method().toLowerCase(), _ -> new LinkedList<>()).addLast(i);
+        }
+
+        final RecordingDocumentWriter.Recording[] recordings = new RecordingDocumentWriter.Recording[springPaths.size()];
+        final List<Callable<Boolean>> tasks = new ArrayList<>(operations.size());
+        for(List<Integer> indices : operations.values()) {
+            tasks.add(() -> {
+                final RecordingDocumentWriter recorder = new RecordingDocumentWriter();
+                for(int index : indices) {
+                    try {
+                        recordings[index] = recorder.record(() -> writeEndpoint(recorder, springPaths.get(index), schemaRegistry));
+                    } catch (RuntimeException | StackOverflowError _) {
+                        return false;
                     }
+                }
+
+                return true;
+            });
+        }
 
-                    // Response
-                    SwaggerTypeGenerator.processReturnType(springPath.methodDeclaration(), yamlHelper, springPath.responseStatus(), yamlPath, outputFormat, springBootExtractor, springPath.javaFileContainer());
+        try(final ForkJoinPool forkJoinPool = new ForkJoinPool(this.parallelism)) {
+            for(Future<Boolean> result : forkJoinPool.invokeAll(tasks)) {
+                if(!result.get()) {
+                    return false;
                 }
             }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(exception);
+        } catch (ExecutionException exception) {
+            return false;
+        }
 
-            // RequestBody
-            final MethodDeclaration methodDeclaration = springPath.methodDeclaration();
-            for(Parameter parameter : methodDeclaration.getParameters()) {
-                boolean isRequestBody = false;
-                for(AnnotationExpr annotationExpr : parameter.getAnnotations()) {
-                    if(annotationExpr instanceof MarkerAnnotationExpr markerAnnotationExpr) {
-                        if (markerAnnotationExpr.getNameAsString().equals(CommonAnnotationNameRegistry.REQUEST_BODY.toString())) {
-                            isRequestBody = true;
+        final DirectDocumentWriter document = new DirectDocumentWriter(yamlHelper);
+        for(RecordingDocumentWriter.Recording recording : recordings) {
+            recording.apply(document);
+        }
+
+        return true;
+    }
+
+    private void writeEndpoint(@NonNull DocumentWriter document, @NonNull SpringPathContainer springPath, @NonNull SchemaRegistry schemaRegistry) {
+        final String yamlPath = "paths." + springPath.path() + "." + springPath.method().toLowerCase();
+
+        document.set(yamlPath + ".summary", "");
+        document.set(yamlPath + ".description", "");
+
+        if(springPath.produces() != null) {
+            for(Expression expression : springPath.produces()) {
+                final String outputFormat = expression.asStringLiteralExpr().getValue();
+
+                // Description & maybe summary
+                x: for(AnnotationExpr annotationExpr : springPath.methodDeclaration().getAnnotations()) {
+                    if(annotationExpr.getNameAsString().equalsIgnoreCase(CommonAnnotationNameRegistry.API_OPERATION.toString()) && springPath.javaFileContainer().hasImport(AnnotationRegistry.SWAGGER_API_OPERATION.toString())) {
+                        for(MemberValuePair memberValuePair : annotationExpr.asNormalAnnotationExpr().getPairs()) {
+                            if(memberValuePair.getNameAsString().equals(AnnotationValueRegistry.API_OPERATION_VALUE.toString())) {
+                                document.set(yamlPath + ".responses." + springPath.responseStatus() + ".description", memberValuePair.getValue().asStringLiteralExpr().getValue());
+                                break x;
+                            }
                         }
                     }
                 }
 
-                if(!isRequestBody) {
-                    continue;
-                }
+                // Response
+                SwaggerTypeGenerator.processReturnType(springPath.methodDeclaration(), document, springPath.responseStatus(), yamlPath, outputFormat, this.snapshot, springPath.javaFileContainer(), schemaRegistry);
+            }
+        }
 
-                final Type type = parameter.getType();
-                final Map<String, Object> typeMap = SwaggerTypeGenerator.getSwaggerSchemaForReturnType(type, yamlHelper, springBootExtractor, springPath.javaFileContainer());
+        // Error responses of the exception handlers
+        for(int errorStatus : springPath.errorStatuses()) {
+            if(document.get(yamlPath + ".responses." + errorStatus) == null) {
+                final String reasonPhrase = HttpStatusResolver.getReasonPhrase(errorStatus);
+                document.set(yamlPath + ".responses." + errorStatus + ".description", reasonPhrase == null ? "" : reasonPhrase);
+            }
+        }
 
-                if(springPath.consumes() != null) {
-                    for(Expression expression : springPath.consumes()) {
-                        final String outputFormat = expression.asStringLiteralExpr().getValue();
-                        yamlHelper.set(yamlPath + ".requestBody.content." + outputFormat + ".schema", typeMap);
+        // RequestBody
+        final MethodDeclaration methodDeclaration = springPath.methodDeclaration();
+        for(Parameter parameter : methodDeclaration.getParameters()) {
+            boolean isRequestBody = false;
+            for(AnnotationExpr annotationExpr : parameter.getAnnotations()) {
+                if(annotationExpr instanceof MarkerAnnotationExpr markerAnnotationExpr) {
+                    if (markerAnnotationExpr.getNameAsString().equals(CommonAnnotationNameRegistry.REQUEST_BODY.toString())) {
+                        isRequestBody = true;
                     }
                 }
             }
-        });
 
-        yamlHelper.save();
+            if(!isRequestBody) {
+                continue;
+            }
+
+            final Type type = parameter.getType();
+            final Map<String, Object> typeMap = SwaggerTypeGenerator.getSwaggerSchemaForReturnType(type, document, this.snapshot, springPath.javaFileContainer(), schemaRegistry);
+
+            if(springPath.consumes() != null) {
+                for(Expression expression : springPath.consumes()) {
+                    final String outputFormat = expression.asStringLiteralExpr().getValue();
+                    document.set(yamlPath + ".requestBody.content." + outputFormat + ".schema", typeMap);
+                }
+            }
+        }
     }
 }
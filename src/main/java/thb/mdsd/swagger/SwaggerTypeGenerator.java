@@ -1,73 +1,133 @@
 package thb.mdsd.swagger;
 
-import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.body.VariableDeclarator;
-import com.github.javaparser.ast.type.ArrayType;
+import com.github.javaparser.ast.expr.MarkerAnnotationExpr;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.resolution.declarations.ResolvedFieldDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
 import com.github.javaparser.resolution.types.ResolvedType;
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.FieldInfo;
+import javassist.bytecode.SignatureAttribute;
 import lombok.NonNull;
-import thb.mdsd.spring.SpringBootExtractor;
+import thb.mdsd.spring.ExtractionSnapshot;
+import thb.mdsd.spring.classpath.ClassPathIndex;
+import thb.mdsd.spring.data.CommonAnnotationNameRegistry;
 import thb.mdsd.spring.extractor.JavaFile;
-import thb.mdsd.util.YamlHelper;
+import thb.mdsd.spring.extractor.container.SpringPathContainer;
 
-import java.lang.reflect.GenericArrayType;
-import java.lang.reflect.ParameterizedType;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 
 public class SwaggerTypeGenerator {
 
-    public static void processReturnType(@NonNull MethodDeclaration method, @NonNull YamlHelper yamlHelper, int response, @NonNull String path, @NonNull String outputFormat, @NonNull SpringBootExtractor springBootExtractor, @NonNull JavaFile currentContainer) {
-        final Type returnType = method.getType();
-        final Map<String, Object> schema = getSwaggerSchemaForReturnType(returnType, yamlHelper, springBootExtractor, currentContainer);
-        final String schemaName = extractGeneric(returnType.asString());
+    /**
+     * Generate the schema parts of all model types referenced by the given endpoints concurrently and store them in the registry.
+     * Must use the same types and referencing files as {@link #processReturnType} and {@link #getSwaggerSchemaForReturnType},
+     * types that are missed here are simply generated later on the exporting thread.
+     * @param springPaths Endpoints of the document
+     * @param parallelism Number of threads, 1 or less skips the stage
+     */
+    public static void prepareSchemas(@NonNull List<SpringPathContainer> springPaths, @NonNull ExtractionSnapshot snapshot, @NonNull SchemaRegistry schemaRegistry, int parallelism) {
+        final Map<SchemaRegistry.Key, Map.Entry<Type, JavaFile>> modelTypes = new LinkedHashMap<>();
+        for(SpringPathContainer springPath : springPaths) {
+            if(springPath.produces() != null && !springPath.produces().isEmpty()) {
+                collectModelTypes(springPath.methodDeclaration().getType(), springPath.javaFileContainer(), modelTypes);
+            }
 
-        if (!isSimpleType(returnType) && !isVoid(returnType)) {
-            final Object current = yamlHelper.get("components.schemas." + schemaName);
-            if(current == null || current.toString().equals("{type=object}")) {
-                yamlHelper.set("components.schemas." + schemaName, schema);
+            for(Parameter parameter : springPath.methodDeclaration().getParameters()) {
+                if(parameter.getAnnotations().stream().anyMatch(annotationExpr -> annotationExpr instanceof MarkerAnnotationExpr && annotationExpr.getNameAsString().equals(CommonAnnotationNameRegistry.REQUEST_BODY.toString()))) {
+                    collectModelTypes(parameter.getType(), springPath.javaFileContainer(), modelTypes);
+                }
             }
         }
 
-        final String responsePath = path + ".responses." + response + ".content." + outputFormat + ".schema";
-        if (isCollection(returnType) || isArray(returnType) || isGenericArrayType(returnType)) {
-            yamlHelper.set(responsePath + ".type", "array");
-            yamlHelper.set(responsePath + ".items.$ref", "#/components/schemas/" + schemaName);
-        } else {
-            yamlHelper.set(responsePath + ".$ref", "#/components/schemas/" + schemaName);
+        if(parallelism <= 1 || modelTypes.size() < 2) {
+            return;
+        }
+
+        final List<Callable<Void>> tasks = new ArrayList<>(modelTypes.size());
+        modelTypes.forEach((key, modelType) -> tasks.add(() -> {
+            final Type type = modelType.getKey();
+            schemaRegistry.getResolvedFields(key, () -> resolveFields(type, modelType.getValue()));
+            schemaRegistry.getProperties(key, () -> extractClassObject(type, snapshot, modelType.getValue(), new ArrayList<>()));
+            return null;
+        }));
+
+        // Failed tasks are ignored, the type is generated again on the exporting thread and reports its error there
+        try(final ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism)) {
+            forkJoinPool.invokeAll(tasks);
         }
     }
 
-    public static Map<String, Object> getSwaggerSchemaForReturnType(@NonNull Type returnType, @NonNull YamlHelper yamlHelper, @NonNull SpringBootExtractor springBootExtractor, @NonNull JavaFile currentContainer) {
-        final Map<String, Object> schema = new HashMap<>();
+    private static void collectModelTypes(@NonNull Type type, @NonNull JavaFile currentContainer, @NonNull Map<SchemaRegistry.Key, Map.Entry<Type, JavaFile>> modelTypes) {
+        final GenericType genericType = GenericType.of(type).unwrap();
+        if(genericType.isVoid() || genericType.isSimple()) {
+            return;
+        }
+
+        if(genericType.isArray()) {
+            final Type componentType = GenericType.component(type);
+            if(componentType != null) {
+                collectModelTypes(componentType, currentContainer, modelTypes);
+            }
+            return;
+        }
 
-        if (returnType instanceof ParameterizedType parameterizedType) {
-            final String baseType = parameterizedType.getTypeName();
+        final Type bodyType = GenericType.unwrap(type);
+        modelTypes.putIfAbsent(new SchemaRegistry.Key(currentContainer.getReference(), bodyType.asString()), Map.entry(bodyType, currentContainer));
+    }
+
+    static void processReturnType(@NonNull MethodDeclaration method, @NonNull DocumentWriter document, int response, @NonNull String path, @NonNull String outputFormat, @NonNull ExtractionSnapshot snapshot, @NonNull JavaFile currentContainer, @NonNull SchemaRegistry schemaRegistry) {
+        final Type returnType = method.getType();
+        final GenericType genericType = GenericType.of(returnType).unwrap();
+        final String responsePath = path + ".responses." + response;
 
-            if (baseType.equals("List") || baseType.equals("Set") || baseType.equals("Page")) {
-                final Type itemType = (Type) parameterizedType.getActualTypeArguments()[0];
-                parseItemType(yamlHelper, schema, itemType);
-                schema.put("type", "array");
-                final Map<String, Object> items = new HashMap<>();
-                items.put("$ref", "#/components/schemas/" + itemType.asString());
-                schema.put("items", items);
+        if (genericType.isVoid()) {
+            // No body, but the response itself is still documented
+            if (document.get(responsePath) == null) {
+                document.set(responsePath + ".description", "");
             }
+            return;
         }
 
-        if (returnType instanceof ArrayType arrayType) {
-            final Type elementType = arrayType.getComponentType();
-            parseItemType(yamlHelper, schema, elementType);
+        final String schemaPath = responsePath + ".content." + outputFormat + ".schema";
+        if (genericType.isArray() || genericType.isSimple()) {
+            document.set(schemaPath, getSwaggerSchemaForReturnType(returnType, document, snapshot, currentContainer, schemaRegistry));
+            return;
         }
 
-        if (returnType instanceof ClassOrInterfaceType classOrInterfaceType) {
-            final String typeName = classOrInterfaceType.getNameAsString();
+        document.set(schemaPath + ".$ref", "#/components/schemas/" + addComponentSchema(returnType, document, snapshot, currentContainer, schemaRegistry));
+    }
+
+    /**
+     * Add the schema of a custom type to the components, unless a complete schema already exists.
+     * @return The schema name
+     */
+    private static String addComponentSchema(@NonNull Type type, @NonNull DocumentWriter document, @NonNull ExtractionSnapshot snapshot, @NonNull JavaFile currentContainer, @NonNull SchemaRegistry schemaRegistry) {
+        return document.addComponentSchema(GenericType.of(type).getSchemaName(), () -> getSwaggerSchemaForReturnType(type, document, snapshot, currentContainer, schemaRegistry));
+    }
+
+    static Map<String, Object> getSwaggerSchemaForReturnType(@NonNull Type returnType, @NonNull DocumentWriter document, @NonNull ExtractionSnapshot snapshot, @NonNull JavaFile currentContainer, @NonNull SchemaRegistry schemaRegistry) {
+        final Map<String, Object> schema = new HashMap<>();
+        final GenericType genericType = GenericType.of(returnType).unwrap();
+
+        if (genericType.isArray()) {
+            final Type componentType = GenericType.component(returnType);
+            schema.put("type", "array");
+            schema.put("items", componentType == null ? new HashMap<>(Map.of("type", "object")) : getItemSchema(componentType, document, snapshot, currentContainer, schemaRegistry));
+            return schema;
+        }
+
+        if (!genericType.isVoid()) {
+            final String typeName = genericType.getName();
 
             switch (typeName) {
                 case "String" -> schema.put("type", "string");
@@ -96,11 +156,14 @@ public class SwaggerTypeGenerator {
                     schema.put("format", "float64");
                 }
                 case "boolean", "Boolean" -> schema.put("type", "boolean");
-                case "void" -> {}
+                case "Object" -> {}
                 default -> {
-                    addSchemaForCustomType(returnType, yamlHelper);
+                    final Type bodyType = GenericType.unwrap(returnType);
+                    final SchemaRegistry.Key key = new SchemaRegistry.Key(currentContainer.getReference(), bodyType.asString());
+                    addSchemaForCustomType(bodyType, currentContainer, key, document, schemaRegistry);
                     schema.put("type", "object");
-                    schema.put("properties", extractClassObject(returnType, springBootExtractor, currentContainer, new ArrayList<>()));
+                    schema.put(SchemaDeduplicator.TYPE_NAME_KEY, typeName);
+                    schema.put("properties", schemaRegistry.getProperties(key, () -> extractClassObject(bodyType, snapshot, currentContainer, new ArrayList<>())));
                 }
             }
         }
@@ -112,14 +175,14 @@ public class SwaggerTypeGenerator {
         return schema;
     }
 
-    private static HashMap<String, Object> extractClassObject(@NonNull Type type, @NonNull SpringBootExtractor springBootExtractor, @NonNull JavaFile currentContainer, @NonNull List<String> visited) {
+    private static HashMap<String, Object> extractClassObject(@NonNull Type type, @NonNull ExtractionSnapshot snapshot, @NonNull JavaFile currentContainer, @NonNull List<String> visited) {
         if(type instanceof ClassOrInterfaceType classOrInterfaceType) {
             visited.add(classOrInterfaceType.getNameAsString());
             final String name = classOrInterfaceType.getNameAsString();
 
-            ImportDeclaration importDeclaration = null;
-            for(ImportDeclaration declaration : currentContainer.getUnit().getImports()) {
-                if(declaration.getNameAsString().endsWith(name)) {
+            String importDeclaration = null;
+            for(String declaration : currentContainer.getSummary().imports()) {
+                if(declaration.endsWith(name)) {
                     importDeclaration = declaration;
                     break;
                 }
@@ -129,14 +192,19 @@ public class SwaggerTypeGenerator {
             if(importDeclaration == null) { // Multiple classes defined?
                 classOrInterfaceDeclaration = currentContainer.getClassOrInterfaceDeclaration(name);
             } else {
-                String formattedPackage = importDeclaration.getNameAsString().substring(0, importDeclaration.getNameAsString().length() - name.length());
+                String formattedPackage = importDeclaration.substring(0, importDeclaration.length() - name.length());
                 if(formattedPackage.endsWith(".")) {
                     formattedPackage = formattedPackage.substring(0, formattedPackage.length() - 1);
                 }
 
-                final JavaFile javaFileContainer = springBootExtractor.findClass(name, formattedPackage);
+                final JavaFile javaFileContainer = snapshot.findClass(name, formattedPackage);
                 if(javaFileContainer != null) {
                     classOrInterfaceDeclaration = javaFileContainer.getClassOrInterfaceDeclaration(name);
+                } else {
+                    final ClassFile classFile = snapshot.findClassFile(name, formattedPackage);
+                    if(classFile != null) {
+                        return extractClassFileObject(classFile, snapshot.getClassPathIndex(), visited);
+                    }
                 }
             }
 
@@ -151,13 +219,14 @@ public class SwaggerTypeGenerator {
                     final Type fieldType = variableDeclarator.getType();
 
                     final HashMap<String, Object> fieldMap = new HashMap<>();
-                    if(!isSimpleType(fieldType) && fieldType instanceof ClassOrInterfaceType reference) {
+                    if(!GenericType.of(fieldType).isSimple() && fieldType instanceof ClassOrInterfaceType reference) {
                         if(visited.contains(reference.getNameAsString())) {
                             continue;
                         }
 
                         fieldMap.put("type", "object");
-                        fieldMap.putAll(extractClassObject(fieldType, springBootExtractor, currentContainer, visited));
+                        fieldMap.put(SchemaDeduplicator.TYPE_NAME_KEY, reference.getNameAsString());
+                        fieldMap.putAll(extractClassObject(fieldType, snapshot, currentContainer, visited));
                     } else {
                         if(fieldType.isPrimitiveType()) {
                             final String fieldTypeName = fieldType.asString();
@@ -213,57 +282,152 @@ public class SwaggerTypeGenerator {
         }
     }
 
-    private static String extractGeneric(@NonNull String input) {
-        final String regex = "<(.*)>";
+    /**
+     * Build the properties of a compiled class (including the fields of compiled super classes).
+     */
+    private static HashMap<String, Object> extractClassFileObject(@NonNull ClassFile classFile, @NonNull ClassPathIndex classPathIndex, @NonNull List<String> visited) {
+        visited.add(simpleClassName(classFile.getName()));
+
+        final HashMap<String, Object> output = new HashMap<>();
+        ClassFile current = classFile;
+        while (current != null) {
+            for(FieldInfo fieldInfo : current.getFields()) {
+                if((fieldInfo.getAccessFlags() & (AccessFlag.STATIC | AccessFlag.SYNTHETIC)) != 0) continue;
+
+                final SignatureAttribute signatureAttribute = (SignatureAttribute) fieldInfo.getAttribute(SignatureAttribute.tag);
+                final Map<String, Object> fieldMap = classFileFieldSchema(fieldInfo.getDescriptor(), signatureAttribute == null ? null : signatureAttribute.getSignature(), classPathIndex, visited);
+                if(fieldMap != null) {
+                    output.putIfAbsent(fieldInfo.getName(), fieldMap);
+                }
+            }
 
-        final Pattern pattern = Pattern.compile(regex, Pattern.MULTILINE);
-        final Matcher matcher = pattern.matcher(input);
+            final String superclass = current.getSuperclass();
+            current = superclass == null || superclass.equals("java.lang.Object") ? null : classPathIndex.readClassFile(superclass);
+        }
 
-        if(matcher.find()) {
-            String match = matcher.group(1);
-            if(match.contains("<") && match.contains(">")) {
-                return extractGeneric(match);
-            } else {
-                return match;
+        return output;
+    }
+
+    private static Map<String, Object> classFileFieldSchema(@NonNull String descriptor, String signature, @NonNull ClassPathIndex classPathIndex, @NonNull List<String> visited) {
+        final Map<String, Object> fieldMap = new HashMap<>();
+
+        if(descriptor.startsWith("[")) {
+            final Map<String, Object> items = classFileFieldSchema(descriptor.substring(1), null, classPathIndex, visited);
+            fieldMap.put("type", "array");
+            fieldMap.put("items", items == null ? new HashMap<>(Map.of("type", "object")) : items);
+            return fieldMap;
+        }
+
+        final String className = descriptor.startsWith("L") && descriptor.endsWith(";") ? descriptor.substring(1, descriptor.length() - 1).replace('/', '.') : descriptor;
+        switch (className) {
+            case "J", "java.lang.Long" -> {
+                fieldMap.put("type", "integer");
+                fieldMap.put("format", "int64");
+            }
+            case "I", "java.lang.Integer" -> {
+                fieldMap.put("type", "integer");
+                fieldMap.put("format", "int32");
+            }
+            case "S", "C", "java.lang.Short", "java.lang.Character" -> {
+                fieldMap.put("type", "integer");
+                fieldMap.put("format", "int16");
+            }
+            case "B", "java.lang.Byte" -> {
+                fieldMap.put("type", "integer");
+                fieldMap.put("format", "int8");
+            }
+            case "F", "java.lang.Float" -> {
+                fieldMap.put("type", "number");
+                fieldMap.put("format", "float");
+            }
+            case "D", "java.lang.Double" -> {
+                fieldMap.put("type", "number");
+                fieldMap.put("format", "double");
+            }
+            case "Z", "java.lang.Boolean" -> fieldMap.put("type", "boolean");
+            case "java.lang.String" -> fieldMap.put("type", "string");
+            case "java.util.List", "java.util.Set", "java.util.Collection", "java.lang.Iterable" -> {
+                Map<String, Object> items = null;
+                if(signature != null && signature.indexOf('<') != -1) {
+                    final String argument = signature.substring(signature.indexOf('<') + 1, signature.lastIndexOf('>'));
+                    if(argument.startsWith("L") && argument.indexOf('<') == -1 && argument.endsWith(";")) {
+                        items = classFileFieldSchema(argument, null, classPathIndex, visited);
+                    }
+                }
+
+                fieldMap.put("type", "array");
+                fieldMap.put("items", items == null ? new HashMap<>(Map.of("type", "object")) : items);
+            }
+            default -> {
+                if(visited.contains(simpleClassName(className))) {
+                    return null;
+                }
+
+                fieldMap.put("type", "object");
+
+                final ClassFile reference = classPathIndex.readClassFile(className);
+                if(reference != null) {
+                    fieldMap.put(SchemaDeduplicator.TYPE_NAME_KEY, simpleClassName(className));
+                    fieldMap.put("properties", extractClassFileObject(reference, classPathIndex, visited));
+                }
             }
-        } else {
-            return input;
         }
+
+        return fieldMap;
     }
 
-    private static void parseItemType(@NonNull YamlHelper yamlHelper, @NonNull Map<String, Object> schema, @NonNull Type itemType) {
-        final String itemTypeName = extractGeneric(itemType.asString());
+    private static String simpleClassName(@NonNull String className) {
+        return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+    }
 
-        if (!isSimpleType(itemType)) {
-            addSchemaForCustomType(itemType, yamlHelper);
+    /**
+     * Schema of an array item: simple types and nested arrays inline, all other types as reference to their component schema.
+     */
+    private static Map<String, Object> getItemSchema(@NonNull Type itemType, @NonNull DocumentWriter document, @NonNull ExtractionSnapshot snapshot, @NonNull JavaFile currentContainer, @NonNull SchemaRegistry schemaRegistry) {
+        final GenericType genericType = GenericType.of(itemType).unwrap();
+        if (genericType.isArray() || genericType.isSimple()) {
+            return getSwaggerSchemaForReturnType(itemType, document, snapshot, currentContainer, schemaRegistry);
         }
 
-        schema.put("type", "array");
         final Map<String, Object> items = new HashMap<>();
-        items.put("$ref", "#/components/schemas/" + itemTypeName);
-        schema.put("items", items);
+        items.put("$ref", "#/components/schemas/" + addComponentSchema(itemType, document, snapshot, currentContainer, schemaRegistry));
+        return items;
     }
 
-    private static void addSchemaForCustomType(@NonNull Type type, @NonNull YamlHelper yamlHelper) {
-        final String typeName = extractGeneric(type.asString());
-        if (!isSimpleType(type)) {
-            final String name = extractGeneric(typeName);
-            yamlHelper.set("components.schemas." + name + ".type", "object");
+    private static void addSchemaForCustomType(@NonNull Type type, @NonNull JavaFile currentContainer, @NonNull SchemaRegistry.Key key, @NonNull DocumentWriter document, @NonNull SchemaRegistry schemaRegistry) {
+        final GenericType genericType = GenericType.of(type);
+        if (!genericType.isSimple()) {
+            final String name = genericType.getSchemaName();
+            document.set("components.schemas." + name + ".type", "object");
+
+            final Map<String, String> fieldTypes = schemaRegistry.getResolvedFields(key, () -> resolveFields(type, currentContainer)).fieldTypes();
+            if(fieldTypes == null) {
+                document.set("components.schemas." + name, null);
+            } else {
+                fieldTypes.forEach((fieldName, fieldType) -> document.set("components.schemas." + name + ".properties." + fieldName + ".type", fieldType));
+            }
+        }
+    }
 
-            boolean apply = true;
+    /**
+     * Resolve all fields of a type with the symbol solver. The solver is not thread-safe, so resolution is serialized per
+     * type solver: files of the same source root wait for each other, other source roots and other projects do not.
+     * @param currentContainer File the type is referenced from
+     */
+    private static SchemaRegistry.ResolvedFields resolveFields(@NonNull Type type, @NonNull JavaFile currentContainer) {
+        synchronized (currentContainer.getTypeSolver()) {
             try {
+                final Map<String, String> fieldTypes = new LinkedHashMap<>();
                 final ResolvedType resolvedType = type.resolve();
                 if (resolvedType.isReferenceType()) {
                     final ResolvedReferenceTypeDeclaration decl = resolvedType.asReferenceType().getTypeDeclaration().get();
                     final List<ResolvedFieldDeclaration> fields = decl.getAllFields();
-                    fields.forEach(field -> yamlHelper.set("components.schemas." + name + ".properties." + field.getName() + ".type", javaFieldTypeToSwagger(field.getType().describe())));
+                    fields.forEach(field -> fieldTypes.put(field.getName(), javaFieldTypeToSwagger(field.getType().describe())));
                 }
-            } catch (Exception _) {
-                apply = false;
-            }
 
-            if(!apply) {
-                yamlHelper.set("components.schemas." + name, null);
+                return new SchemaRegistry.ResolvedFields(Collections.unmodifiableMap(fieldTypes));
+            } catch (Exception _) {
+                return new SchemaRegistry.ResolvedFields(null);
             }
         }
     }
@@ -283,30 +447,4 @@ public class SwaggerTypeGenerator {
             default -> "object";
         };
     }
-
-    private static boolean isSimpleType(@NonNull Type type) {
-        if (type instanceof ClassOrInterfaceType classOrInterfaceType) {
-            final String name = classOrInterfaceType.getNameAsString();
-            return name.equals("String")
-                    || name.equals("short") || name.equals("int") || name.equals("float") || name.equals("long") || name.equals("double") || name.equals("boolean")
-                    || name.equals("Short") || name.equals("Integer") || name.equals("Float") || name.equals("Long") || name.equals("Double") || name.equals("Boolean");
-        }
-        return false;
-    }
-
-    private static boolean isCollection(@NonNull Type type) {
-        return type instanceof ParameterizedType || type instanceof ClassOrInterfaceType && (type.toString().contains("List") || type.toString().contains("Set") || type.toString().startsWith("Page"));
-    }
-
-    private static boolean isVoid(@NonNull Type type) {
-        return type instanceof ClassOrInterfaceType classOrInterfaceType && classOrInterfaceType.getNameAsString().equals("void");
-    }
-
-    private static boolean isArray(@NonNull Type type) {
-        return type instanceof ArrayType;
-    }
-
-    private static boolean isGenericArrayType(@NonNull Type type) {
-        return type instanceof GenericArrayType;
-    }
 }
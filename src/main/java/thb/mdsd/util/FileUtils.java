@@ -0,0 +1,40 @@
+package thb.mdsd.util;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+public class FileUtils {
+
+    /**
+     * Write a file only if its content changes. The content hash is compared with the existing file first,
+     * a changed file is written to a temporary file next to the target and then moved over the target atomically.
+     * Readers therefore never see a partially written file and unchanged files keep their modification time.
+     * @param target Target file
+     * @param data New content
+     * @return True if the file was written, false if it already had the given content
+     * @throws IOException If the file could not be read or written
+     */
+    public static boolean writeIfChanged(@NonNull Path target, byte @NonNull [] data) throws IOException {
+        if(Files.isRegularFile(target) && Files.size(target) == data.length
+            && HashUtils.sha256(Files.readAllBytes(target)).equals(HashUtils.sha256(data))) {
+            return false;
+        }
+
+        // Not Files.createTempFile: its owner-only permissions would be moved over the target
+        final Path temporaryFile = target.toAbsolutePath().resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+
+        try {
+            Files.write(temporaryFile, data);
+            Files.move(temporaryFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+
+        return true;
+    }
+}
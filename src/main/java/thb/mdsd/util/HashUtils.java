@@ -0,0 +1,23 @@
+package thb.mdsd.util;
+
+import lombok.NonNull;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class HashUtils {
+
+    /**
+     * Calculate the SHA-256 hash of the given data.
+     * @param data Data to hash
+     * @return Lowercase hex representation of the hash
+     */
+    public static String sha256(byte @NonNull [] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package thb.mdsd.util;
+
+import lombok.NonNull;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Minimal JSON serializer for the map/list structures produced by {@link YamlHelper}.
+ */
+public class JsonWriter {
+
+    /**
+     * Serialize a yaml structure (maps, collections, strings, numbers, booleans and null) into JSON.
+     * @param value Root value
+     * @return The JSON document
+     */
+    public static String write(Object value) {
+        final StringBuilder builder = new StringBuilder();
+        append(builder, value);
+        return builder.toString();
+    }
+
+    private static void append(@NonNull StringBuilder builder, Object value) {
+        switch (value) {
+            case null -> builder.append("null");
+            case Map<?, ?> map -> {
+                builder.append('{');
+                final Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final Map.Entry<?, ?> entry = iterator.next();
+                    appendString(builder, String.valueOf(entry.getKey()));
+                    builder.append(':');
+                    append(builder, entry.getValue());
+                    if(iterator.hasNext()) builder.append(',');
+                }
+                builder.append('}');
+            }
+            case Collection<?> collection -> {
+                builder.append('[');
+                final Iterator<?> iterator = collection.iterator();
+                while (iterator.hasNext()) {
+                    append(builder, iterator.next());
+                    if(iterator.hasNext()) builder.append(',');
+                }
+                builder.append(']');
+            }
+            case Number number -> builder.append(number);
+            case Boolean bool -> builder.append(bool);
+            default -> appendString(builder, value.toString());
+        }
+    }
+
+    private static void appendString(@NonNull StringBuilder builder, @NonNull String value) {
+        builder.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                case '\b' -> builder.append("\\b");
+                case '\f' -> builder.append("\\f");
+                default -> {
+                    if(c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        builder.append('"');
+    }
+}
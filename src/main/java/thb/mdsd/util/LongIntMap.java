@@ -0,0 +1,99 @@
+package thb.mdsd.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from {@code long} to {@code int} without boxing. Keys and values are stored in two
+ * parallel arrays, {@link Long#MIN_VALUE} marks an empty slot and can not be used as key. Not thread-safe,
+ * concurrent reads are safe once the map is no longer modified.
+ */
+public class LongIntMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * @param expectedSize Number of entries the map holds without growing
+     */
+    public LongIntMap(int expectedSize) {
+        final int capacity = Integer.highestOneBit(Math.max(8, expectedSize) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    /**
+     * @param key Key
+     * @param defaultValue Returned if the key is not mapped
+     * @return The value of the key or the default value
+     */
+    public int get(long key, int defaultValue) {
+        final int mask = this.keys.length - 1;
+        for(int slot = slot(key, mask); this.keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if(this.keys[slot] == key) {
+                return this.values[slot];
+            }
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * Map a key if it is not mapped yet.
+     * @return True if the key was added, false if it was already mapped (the value is not changed then)
+     */
+    public boolean putIfAbsent(long key, int value) {
+        if(key == EMPTY) {
+            throw new IllegalArgumentException("Long.MIN_VALUE can not be used as key");
+        }
+
+        final int mask = this.keys.length - 1;
+        int slot = slot(key, mask);
+        for(; this.keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if(this.keys[slot] == key) {
+                return false;
+            }
+        }
+
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        if(++this.size * 2 > this.keys.length) {
+            this.grow();
+        }
+
+        return true;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private void grow() {
+        final long[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+        final int mask = oldKeys.length * 2 - 1;
+
+        this.keys = new long[oldKeys.length * 2];
+        this.values = new int[oldKeys.length * 2];
+        Arrays.fill(this.keys, EMPTY);
+
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] == EMPTY) continue;
+
+            int slot = slot(oldKeys[i], mask);
+            while (this.keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+
+            this.keys[slot] = oldKeys[i];
+            this.values[slot] = oldValues[i];
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;  // Fibonacci hashing spreads the packed ids
+    }
+}
@@ -5,14 +5,20 @@ import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.*;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 /**
  * This is a simple Yaml helper that converts string-paths like: "foo.bar" into map structures that the org.yaml library can handle.
+ * The output is canonically ordered, so the same data always results in the same bytes.
  */
 public class YamlHelper {
 
+    /**
+     * Top-level keys in the order of the OpenAPI specification. All other keys are sorted by their name.
+     */
+    private static final List<String> ROOT_KEY_ORDER = List.of("openapi", "info", "servers", "paths", "components");
+
     private final File file;
     private final Map<String, Object> data;
 
@@ -21,6 +27,14 @@ public class YamlHelper {
         this.data = this.loadYamlData();
     }
 
+    /**
+     * Create an in-memory helper that is not backed by a file. {@link #save()} is not available for such instances.
+     */
+    public YamlHelper() {
+        this.file = null;
+        this.data = new HashMap<>();
+    }
+
     private Map<String, Object> loadYamlData() {
         try (final InputStream inputStream = new FileInputStream(this.file)) {
             final HashMap<String, Object> temp = new Yaml().load(inputStream);
@@ -60,16 +74,89 @@ public class YamlHelper {
         return currentMap;
     }
 
+    /**
+     * Get the root map of the yaml structure.
+     * @return The mutable root map
+     */
+    public Map<String, Object> getData() {
+        return this.data;
+    }
+
+    /**
+     * Get a canonically ordered copy of the yaml structure: root keys in {@link #ROOT_KEY_ORDER}, all other map keys sorted.
+     * @return The ordered copy
+     */
+    public Map<String, Object> getCanonicalData() {
+        final Map<String, Object> canonical = new LinkedHashMap<>();
+
+        for(String key : ROOT_KEY_ORDER) {
+            if(this.data.containsKey(key)) {
+                canonical.put(key, canonicalize(this.data.get(key)));
+            }
+        }
+
+        new TreeMap<>(this.data).forEach((key, value) -> canonical.putIfAbsent(key, canonicalize(value)));
+        return canonical;
+    }
+
+    /**
+     * Render the yaml structure into a string.
+     * @return The canonically ordered yaml document
+     */
+    public String dump() {
+        final StringWriter writer = new StringWriter();
+        createYaml().dump(this.getCanonicalData(), writer);
+        return writer.toString();
+    }
+
+    /**
+     * Write the document into the backing file, see {@link #saveTo(File)}.
+     */
     public void save() {
-        try (final FileWriter writer = new FileWriter(file)) {
-            final DumperOptions options = new DumperOptions();
-            options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-            options.setIndent(2);
+        if(this.file == null) {
+            throw new RuntimeException("This YamlHelper is not backed by a file.");
+        }
 
-            final Yaml yamlWithOptions = new Yaml(options);
-            yamlWithOptions.dump(data, writer);
+        this.saveTo(this.file);
+    }
+
+    /**
+     * Write the document into a file. The file is left untouched if it already has the same content,
+     * otherwise it is replaced atomically.
+     * @param target Target file
+     * @return True if the file was written, false if it was up to date
+     */
+    public boolean saveTo(@NonNull File target) {
+        try {
+            return FileUtils.writeIfChanged(target.toPath(), this.dump().getBytes(StandardCharsets.UTF_8));
         } catch (IOException exception) {
             throw new RuntimeException(exception);
         }
     }
+
+    /**
+     * Create a canonically ordered deep copy of a yaml value: map keys sorted, unordered collections sorted by their string value.
+     * @param value Map, collection or scalar
+     * @return The ordered copy, scalars are returned as they are
+     */
+    public static Object canonicalize(Object value) {
+        return switch (value) {
+            case Map<?, ?> map -> {
+                final Map<String, Object> sorted = new TreeMap<>();
+                map.forEach((key, child) -> sorted.put(String.valueOf(key), canonicalize(child)));
+                yield new LinkedHashMap<>(sorted);
+            }
+            case List<?> list -> list.stream().map(YamlHelper::canonicalize).toList();
+            case Collection<?> collection -> collection.stream().map(YamlHelper::canonicalize).sorted(Comparator.comparing(String::valueOf)).toList();
+            case null, default -> value;
+        };
+    }
+
+    private static Yaml createYaml() {
+        final DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setIndent(2);
+
+        return new Yaml(options);
+    }
 }
@@ -0,0 +1,110 @@
+package thb.mdsd.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiModelReaderTest {
+
+    private static final List<ApiEndpoint> ENDPOINTS = List.of(
+        new ApiEndpoint("get", "/users", 200, List.of(), List.of("application/json"), "com.example.UserController", "getUsers", List.of(404, 500)),
+        new ApiEndpoint("get", "/users/{id}", 200, List.of(), List.of("application/json"), "com.example.UserController", "getUser", List.of(404, 500)),
+        new ApiEndpoint("post", "/users", 201, List.of("application/json", "application/xml"), List.of(), "", "createUser", List.of()),
+        new ApiEndpoint("delete", "/ümläute/{id}", 204, List.of(), List.of(), "com.example.UserController", "delete", List.of(409))
+    );
+
+    private static final Map<String, String> SCHEMAS = Map.of(
+        "User", "{\"properties\":{\"name\":{\"type\":\"string\"}},\"type\":\"object\"}",
+        "Address", "{\"type\":\"object\"}",
+        "Page", "{\"properties\":{},\"type\":\"object\"}"
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsWrittenModel() throws IOException {
+        try(final ApiModelReader reader = ApiModelReader.open(write(ApiModelWriter.write(ENDPOINTS, SCHEMAS)))) {
+            assertEquals(ENDPOINTS, reader.getEndpoints());
+            assertEquals(ENDPOINTS.get(3), reader.getEndpoint(3));
+
+            assertEquals(3, reader.getSchemaCount());
+            assertEquals(List.of("Address", "Page", "User"), List.of(reader.getSchemaName(0), reader.getSchemaName(1), reader.getSchemaName(2)));
+            SCHEMAS.forEach((name, schema) -> assertEquals(schema, reader.findSchema(name)));
+            assertNull(reader.findSchema("Missing"));
+        }
+    }
+
+    @Test
+    void readsEmptyModel() throws IOException {
+        try(final ApiModelReader reader = ApiModelReader.open(write(ApiModelWriter.write(List.of(), Map.of())))) {
+            assertEquals(List.of(), reader.getEndpoints());
+            assertEquals(0, reader.getSchemaCount());
+            assertNull(reader.findSchema("User"));
+        }
+    }
+
+    @Test
+    void rejectsIndexOutOfBounds() throws IOException {
+        try(final ApiModelReader reader = ApiModelReader.open(write(ApiModelWriter.write(ENDPOINTS, SCHEMAS)))) {
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.getEndpoint(ENDPOINTS.size()));
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.getSchema(-1));
+        }
+    }
+
+    @Test
+    void rejectsOtherFormats() throws IOException {
+        final byte[] model = ApiModelWriter.write(ENDPOINTS, SCHEMAS);
+
+        final byte[] magic = model.clone();
+        magic[0] = 'X';
+        assertThrows(IOException.class, () -> ApiModelReader.open(write(magic)));
+
+        final byte[] version = model.clone();
+        ByteBuffer.wrap(version).putInt(4, ApiModelWriter.VERSION + 1);
+        assertThrows(IOException.class, () -> ApiModelReader.open(write(version)));
+
+        assertThrows(IOException.class, () -> ApiModelReader.open(write("openapi: 3.0.4\n".getBytes())));
+    }
+
+    @Test
+    void rejectsTruncatedFiles() throws IOException {
+        final byte[] model = ApiModelWriter.write(ENDPOINTS, SCHEMAS);
+
+        for(int length = 0; length < model.length; length++) {
+            final Path file = write(Arrays.copyOf(model, length));
+            assertThrows(IOException.class, () -> ApiModelReader.open(file), "Truncated to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void rejectsCorruptReferences() throws IOException {
+        final byte[] model = ApiModelWriter.write(ENDPOINTS, SCHEMAS);
+        final int endpointsStart = ByteBuffer.wrap(model).getInt(28);
+        final int schemasStart = ByteBuffer.wrap(model).getInt(32);
+
+        // Path of the first endpoint, consumes of the first endpoint and name of the first schema
+        for(int position : new int[] { endpointsStart + 4, endpointsStart + 12, schemasStart }) {
+            final byte[] corrupt = model.clone();
+            ByteBuffer.wrap(corrupt).putInt(position, Integer.MAX_VALUE);
+            assertThrows(IOException.class, () -> ApiModelReader.open(write(corrupt)), "Corrupt int at " + position);
+        }
+
+        final byte[] counts = model.clone();
+        ByteBuffer.wrap(counts).putInt(12, -1);
+        assertThrows(IOException.class, () -> ApiModelReader.open(write(counts)));
+    }
+
+    private Path write(byte[] data) throws IOException {
+        return Files.write(Files.createTempFile(this.directory, "model", ".bin"), data);
+    }
+}
@@ -0,0 +1,90 @@
+package thb.mdsd.spring.extractor;
+
+import org.junit.jupiter.api.Test;
+import thb.mdsd.spring.extractor.JavaFileSummary.LexicalType;
+import thb.mdsd.spring.extractor.JavaFileSummary.LexicalType.Kind;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaFileSummaryTest {
+
+    private static final String SOURCE = """
+        package com.example
+            .dto;
+
+        import java.util.List;
+        import com.example.common.*;
+        import static com.example.Util.helper;
+
+        /** A class Comment in a comment */
+        @XmlRootElement(name = "order")
+        @Deprecated
+        public class Order {
+            private final String text = "class Fake {";
+            private final char brace = '{';
+
+            @XmlEnum
+            public enum Status { OPEN, CLOSED { @Override public String toString() { return "closed"; } } }
+
+            public record Line(@NonNull String sku, int amount) {
+                public interface Visitor { }
+            }
+
+            static class Builder {
+                void build() {
+                    class Local { }
+                    final Runnable runnable = new Runnable() { public void run() { } };
+                }
+            }
+        }
+
+        @Retention(RetentionPolicy.RUNTIME)
+        @interface Marker { }
+        """;
+
+    @Test
+    void scansPackageAndImports() {
+        final JavaFileSummary summary = JavaFileSummary.scan(SOURCE);
+
+        assertTrue(summary.lexical());
+        assertEquals("com.example.dto", summary.packageName());
+        assertEquals(List.of("java.util.List", "com.example.common.*", "com.example.Util.helper"), summary.imports());
+    }
+
+    @Test
+    void scansAllKindsWithNesting() {
+        final JavaFileSummary summary = JavaFileSummary.scan(SOURCE);
+
+        assertEquals(List.of(
+            new LexicalType("Order", Kind.CLASS),
+            new LexicalType("Order.Status", Kind.ENUM),
+            new LexicalType("Order.Line", Kind.RECORD),
+            new LexicalType("Order.Line.Visitor", Kind.INTERFACE),
+            new LexicalType("Order.Builder", Kind.CLASS),
+            new LexicalType("Marker", Kind.ANNOTATION)
+        ), summary.lexicalTypes());
+        assertEquals("Order.Line", summary.lexicalTypes().get(3).enclosingName());
+        assertEquals("Visitor", summary.lexicalTypes().get(3).simpleName());
+        assertNull(summary.lexicalTypes().get(0).enclosingName());
+    }
+
+    @Test
+    void listsLocalClassesOnlyByName() {
+        final JavaFileSummary summary = JavaFileSummary.scan(SOURCE);
+
+        assertEquals(Set.of("Order", "Status", "Line", "Visitor", "Builder", "Local", "Marker"), summary.classNames());
+        assertTrue(summary.lexicalTypes().stream().noneMatch(lexicalType -> lexicalType.simpleName().equals("Local")));
+    }
+
+    @Test
+    void ignoresCommentsLiteralsAndMemberAnnotations() {
+        final JavaFileSummary summary = JavaFileSummary.scan(SOURCE);
+
+        assertFalse(summary.classNames().contains("Comment"));
+        assertFalse(summary.classNames().contains("Fake"));
+        assertEquals(Set.of("XmlRootElement", "Deprecated", "XmlEnum", "Retention"), summary.classAnnotationNames());
+    }
+}
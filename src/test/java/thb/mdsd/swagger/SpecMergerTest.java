@@ -0,0 +1,149 @@
+package thb.mdsd.swagger;
+
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+import thb.mdsd.util.YamlHelper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpecMergerTest {
+
+    private static final String USERS = """
+        openapi: 3.0.1
+        paths:
+          /users:
+            get:
+              description: ''
+              responses:
+                '200':
+                  description: ''
+                  content:
+                    application/json:
+                      schema:
+                        $ref: '#/components/schemas/User'
+            post:
+              description: ''
+              responses:
+                '201':
+                  description: Created
+        components:
+          schemas:
+            User:
+              type: object
+              properties:
+                name:
+                  type: string
+        """;
+
+    private final YamlHelper keys = new YamlHelper();
+
+    @Test
+    void leavesEntryWithUnchangedHashUntouched() {
+        final YamlHelper existing = new YamlHelper();
+        SpecMerger.merge(existing, yaml(USERS), this.keys);
+
+        operation(existing, "/users", "post").put("summary", "Edited by hand");
+        response(existing, "/users", "post", "201").put("description", "Edited by hand");
+
+        assertEquals(new SpecMerger.Result(0, 3, 0), SpecMerger.merge(existing, yaml(USERS), this.keys));
+        assertEquals("Edited by hand", operation(existing, "/users", "post").get("summary"));
+        assertEquals("Edited by hand", response(existing, "/users", "post", "201").get("description"));
+        assertTrue(this.keys.getData().containsKey("/paths/~1users/post"));
+    }
+
+    @Test
+    void removesRenamedProperty() {
+        final YamlHelper existing = new YamlHelper();
+        SpecMerger.merge(existing, yaml(USERS), this.keys);
+        schema(existing, "User").put("example", Map.of("name", "Alice"));
+
+        SpecMerger.merge(existing, yaml(USERS.replace("name:\n", "fullName:\n")), this.keys);
+
+        assertEquals(Set.of("fullName"), ((Map<?, ?>) schema(existing, "User").get("properties")).keySet());
+        assertEquals(Map.of("name", "Alice"), schema(existing, "User").get("example"));
+    }
+
+    @Test
+    void keepsHandWrittenValueNextToPlaceholder() {
+        final YamlHelper existing = new YamlHelper();
+        SpecMerger.merge(existing, yaml(USERS), this.keys);
+        operation(existing, "/users", "get").put("description", "Lists all users");
+
+        SpecMerger.merge(existing, yaml(USERS.replace("'200'", "'206'")), this.keys);
+
+        assertEquals("Lists all users", operation(existing, "/users", "get").get("description"));
+        assertEquals("", response(existing, "/users", "get", "206").get("description"));
+    }
+
+    @Test
+    void removesOperationThatIsNoLongerGenerated() {
+        final YamlHelper existing = new YamlHelper();
+        SpecMerger.merge(existing, yaml(USERS), this.keys);
+        pathItem(existing, "/users").put("delete", new LinkedHashMap<>(Map.of("description", "Written by hand")));
+
+        final SpecMerger.Result result = SpecMerger.merge(existing, yaml(USERS.replace("    post:\n      description: ''\n      responses:\n        '201':\n          description: Created\n", "")), this.keys);
+
+        assertEquals(1, result.removed());
+        assertEquals(Set.of("get", "delete"), pathItem(existing, "/users").keySet());
+        assertFalse(this.keys.getData().containsKey("/paths/~1users/post"));
+    }
+
+    @Test
+    void mergesUnquotedStatus() {
+        final YamlHelper existing = yaml("""
+            paths:
+              /users:
+                get:
+                  responses:
+                    200:
+                      description: The users
+            """);
+
+        SpecMerger.merge(existing, yaml(USERS), this.keys);
+
+        final Map<?, ?> responses = (Map<?, ?>) operation(existing, "/users", "get").get("responses");
+        assertEquals(Set.of("200"), responses.keySet());
+        assertEquals("The users", response(existing, "/users", "get", "200").get("description"));
+        assertNotNull(response(existing, "/users", "get", "200").get("content"));
+    }
+
+    @Test
+    void keepsBookkeepingOutOfTheSpecification() {
+        final YamlHelper existing = new YamlHelper();
+        SpecMerger.merge(existing, yaml(USERS), this.keys);
+
+        assertFalse(existing.dump().contains("x-generator-keys"));
+        assertEquals(List.of("/properties/name/type", "/type"), this.keys.getData().get("/components/schemas/User"));
+    }
+
+    private static YamlHelper yaml(String content) {
+        final YamlHelper helper = new YamlHelper();
+        helper.getData().putAll(new Yaml().<Map<String, Object>>load(content));
+        return helper;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> pathItem(YamlHelper helper, String path) {
+        return (Map<String, Object>) ((Map<String, Object>) helper.getData().get("paths")).get(path);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> operation(YamlHelper helper, String path, String method) {
+        return (Map<String, Object>) pathItem(helper, path).get(method);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> response(YamlHelper helper, String path, String method, String status) {
+        return (Map<String, Object>) ((Map<String, Object>) operation(helper, path, method).get("responses")).get(status);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> schema(YamlHelper helper, String name) {
+        return (Map<String, Object>) helper.get("components.schemas." + name);
+    }
+}